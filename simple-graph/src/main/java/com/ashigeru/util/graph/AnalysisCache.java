@@ -0,0 +1,233 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link Graphs}が提供するグラフの解析結果を、グラフの版ごとに保持する。
+ * <p>
+ * このオブジェクトは、対象のグラフの版番号が変化しない限り、同じ解析の結果を再計算せずに返す。
+ * 対象のグラフの版番号が変化した場合、保持していた全ての解析結果を破棄する。
+ * </p>
+ * <p>
+ * 保持する解析結果の量は、結果に含まれるノードの参照の総数で制限される。
+ * 新しい解析結果を保持すると総数が上限を超える場合、最も長い間利用されていない解析結果から順に破棄する。
+ * 単独で上限を超える解析結果は保持しない。
+ * </p>
+ * <p>
+ * このオブジェクトが返す解析結果は変更できない。
+ * このクラスのインスタンスはスレッド安全でない。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ * @see VersionedGraph
+ */
+public class AnalysisCache<V> {
+
+    private final VersionedGraph<V> graph;
+
+    private final int capacity;
+
+    private final Map<Kind, Entry> entries = new LinkedHashMap<Kind, Entry>(8, 0.75f, true);
+
+    private long version;
+
+    private int size;
+
+    /**
+     * インスタンスを生成する。
+     * @param graph 対象のグラフ
+     * @param capacity 保持する解析結果に含まれるノードの参照の総数の上限
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     または{@code capacity}が負の値である場合
+     */
+    public AnalysisCache(VersionedGraph<V> graph, int capacity) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0"); //$NON-NLS-1$
+        }
+        this.graph = graph;
+        this.capacity = capacity;
+        this.version = graph.getVersion();
+    }
+
+    /**
+     * 対象のグラフ内で循環する要素の集合を返す。
+     * @return 循環依存する要素集合の一覧
+     * @see Graphs#findCircuit(Graph)
+     */
+    public Set<Set<V>> findCircuit() {
+        Set<Set<V>> cached = get(Kind.CIRCUIT);
+        if (cached != null) {
+            return cached;
+        }
+        Set<Set<V>> sccs = findStronglyConnectedComponents();
+        Set<Set<V>> results = Collections.unmodifiableSet(Graphs.collectCircuits(graph, sccs));
+        int cost = 0;
+        for (Set<V> circuit : results) {
+            cost += circuit.size();
+        }
+        put(Kind.CIRCUIT, results, cost);
+        return results;
+    }
+
+    /**
+     * 対象のグラフに含まれる強連結成分の一覧を返す。
+     * @return 強連結成分の一覧
+     * @see Graphs#findStronglyConnectedComponents(Graph)
+     */
+    public Set<Set<V>> findStronglyConnectedComponents() {
+        Set<Set<V>> cached = get(Kind.STRONGLY_CONNECTED_COMPONENTS);
+        if (cached != null) {
+            return cached;
+        }
+        Set<Set<V>> sccs = Graphs.findStronglyConnectedComponents(graph);
+        Set<Set<V>> results = new HashSet<Set<V>>();
+        int cost = 0;
+        for (Set<V> scc : sccs) {
+            results.add(Collections.unmodifiableSet(scc));
+            cost += scc.size();
+        }
+        results = Collections.unmodifiableSet(results);
+        put(Kind.STRONGLY_CONNECTED_COMPONENTS, results, cost);
+        return results;
+    }
+
+    /**
+     * 対象のグラフに含まれるノードの一覧を、接続の末尾から順に並べて返す。
+     * @return ノードの一覧を接続の末尾から順に並べたリスト
+     * @see Graphs#sortPostOrder(Graph)
+     */
+    public List<V> sortPostOrder() {
+        List<V> cached = get(Kind.POST_ORDER);
+        if (cached != null) {
+            return cached;
+        }
+        List<V> results = Collections.unmodifiableList(Graphs.sortPostOrder(graph));
+        put(Kind.POST_ORDER, results, results.size());
+        return results;
+    }
+
+    /**
+     * 対象のグラフに含まれる先頭ノードの一覧を返す。
+     * @return 先頭ノードの一覧
+     * @see Graphs#collectHeads(Graph)
+     */
+    public Set<V> collectHeads() {
+        Set<V> cached = get(Kind.HEADS);
+        if (cached != null) {
+            return cached;
+        }
+        Set<V> results = Collections.unmodifiableSet(Graphs.collectHeads(graph));
+        put(Kind.HEADS, results, results.size());
+        return results;
+    }
+
+    /**
+     * 対象のグラフに含まれる末尾ノードの一覧を返す。
+     * @return 末尾ノードの一覧
+     * @see Graphs#collectTails(Graph)
+     */
+    public Set<V> collectTails() {
+        Set<V> cached = get(Kind.TAILS);
+        if (cached != null) {
+            return cached;
+        }
+        Set<V> results = Collections.unmodifiableSet(Graphs.collectTails(graph));
+        put(Kind.TAILS, results, results.size());
+        return results;
+    }
+
+    /**
+     * このオブジェクトが保持している全ての解析結果を破棄する。
+     */
+    public void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    private <T> T get(Kind kind) {
+        assert kind != null;
+        long current = graph.getVersion();
+        if (current != version) {
+            clear();
+            version = current;
+            return null;
+        }
+        Entry entry = entries.get(kind);
+        if (entry == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) entry.value;
+        return value;
+    }
+
+    private void put(Kind kind, Object value, int cost) {
+        assert kind != null;
+        assert value != null;
+        if (cost > capacity) {
+            return;
+        }
+        for (Iterator<Entry> iter = entries.values().iterator();
+                iter.hasNext() && size + cost > capacity;) {
+            Entry eldest = iter.next();
+            iter.remove();
+            size -= eldest.cost;
+        }
+        entries.put(kind, new Entry(value, cost));
+        size += cost;
+    }
+
+    /**
+     * 保持する解析の種類。
+     */
+    private enum Kind {
+
+        CIRCUIT,
+
+        STRONGLY_CONNECTED_COMPONENTS,
+
+        POST_ORDER,
+
+        HEADS,
+
+        TAILS,
+    }
+
+    /**
+     * 保持している解析結果。
+     */
+    private static final class Entry {
+
+        final Object value;
+
+        final int cost;
+
+        Entry(Object value, int cost) {
+            this.value = value;
+            this.cost = cost;
+        }
+    }
+}
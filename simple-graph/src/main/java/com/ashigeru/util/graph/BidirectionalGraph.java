@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.Set;
+
+/**
+ * 接続先に加えて、接続元のノードも参照できるグラフ。
+ * @param <V> ノードを識別する値
+ * @see Graphs
+ */
+public interface BidirectionalGraph<V> extends Graph<V> {
+
+    /**
+     * 指定の値を持つノードに対して接続しているノードの一覧を返す。
+     * <p>
+     * 返される集合に含まれる任意の値{@code x}について、
+     * {@code this.isConnected(x, key)}は{@code true}を返す。
+     * </p>
+     * <p>
+     * 存在しないノードを指定した場合、この呼び出しは空の集合を返す。
+     * 返される集合を変更した場合の動作は保証されない。
+     * </p>
+     * @param key キー
+     * @return 指定のノードに接続しているノードの一覧、
+     *     指定のノードがグラフ上に存在しない場合は空の集合
+     */
+    Set<V> getPredecessors(Object key);
+}
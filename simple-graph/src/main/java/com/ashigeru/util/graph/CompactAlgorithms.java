@@ -0,0 +1,507 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 圧縮行形式 (CSR) で表現されたグラフに対するアルゴリズム群。
+ * <p>
+ * それぞれのグラフは、ノード{@code i}の接続先が
+ * {@code targets[offsets[i]..offsets[i+1]-1]}に格納された整数配列の組で表す。
+ * </p>
+ */
+final class CompactAlgorithms {
+
+    /**
+     * 全てのノードを深さ優先で探索し、後順 (post-order) に並べた番号の一覧を返す。
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @return 後順に並べたノードの番号
+     */
+    static int[] computePostOrder(int[] offsets, int[] targets) {
+        assert offsets != null;
+        assert targets != null;
+        int size = offsets.length - 1;
+        int[] results = new int[size];
+        int count = 0;
+        BitSet saw = new BitSet(size);
+        int[] stack = new int[size];
+        int[] cursor = new int[size];
+        for (int start = 0; start < size; start++) {
+            if (saw.get(start)) {
+                continue;
+            }
+            saw.set(start);
+            int top = 0;
+            stack[top++] = start;
+            cursor[start] = offsets[start];
+            while (top > 0) {
+                int node = stack[top - 1];
+                if (cursor[node] < offsets[node + 1]) {
+                    int next = targets[cursor[node]++];
+                    if (saw.get(next) == false) {
+                        saw.set(next);
+                        stack[top++] = next;
+                        cursor[next] = offsets[next];
+                    }
+                }
+                else {
+                    results[count++] = node;
+                    top--;
+                }
+            }
+        }
+        assert count == size;
+        return results;
+    }
+
+    /**
+     * 指定のノード一覧から直接または間接的に後続する全てのノードを返す。
+     * <p>
+     * 開始ノード自身は、いずれかの開始ノードから到達可能である場合のみ結果に含まれる。
+     * </p>
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @param starts 開始ノードの番号
+     * @return 到達可能なノードの番号の集合
+     */
+    static BitSet collectAllConnected(int[] offsets, int[] targets, int[] starts) {
+        assert offsets != null;
+        assert targets != null;
+        assert starts != null;
+        int size = offsets.length - 1;
+        BitSet connected = new BitSet(size);
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int start : starts) {
+            for (int i = offsets[start], n = offsets[start + 1]; i < n; i++) {
+                int next = targets[i];
+                if (connected.get(next) == false) {
+                    connected.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            for (int i = offsets[node], n = offsets[node + 1]; i < n; i++) {
+                int next = targets[i];
+                if (connected.get(next) == false) {
+                    connected.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * 指定のノード一覧を起点に幅優先で探索し、条件に合致するノードの一覧を返す。
+     * <p>
+     * 条件に合致したノードより先は探索しない。
+     * {@code collectPath}に{@code true}を指定した場合、条件に合致したノードに加え、
+     * そこまでに訪問したノードも結果に含める。
+     * </p>
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @param starts 開始ノードの番号
+     * @param acceptor 利用する条件
+     * @param collectPath 訪問したノードも結果に含める場合は{@code true}
+     * @return 条件に合致したノードの番号の集合
+     */
+    static BitSet findNearest(
+            int[] offsets,
+            int[] targets,
+            int[] starts,
+            IntMatcher acceptor,
+            boolean collectPath) {
+        assert offsets != null;
+        assert targets != null;
+        assert starts != null;
+        assert acceptor != null;
+        int size = offsets.length - 1;
+        BitSet saw = new BitSet(size);
+        BitSet results = new BitSet(size);
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int start : starts) {
+            for (int i = offsets[start], n = offsets[start + 1]; i < n; i++) {
+                int next = targets[i];
+                if (saw.get(next) == false) {
+                    saw.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            if (acceptor.matches(node)) {
+                results.set(node);
+                continue;
+            }
+            if (collectPath) {
+                results.set(node);
+            }
+            for (int i = offsets[node], n = offsets[node + 1]; i < n; i++) {
+                int next = targets[i];
+                if (saw.get(next) == false) {
+                    saw.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 強連結成分を列挙し、各ノードが属する強連結成分の番号を返す。
+     * <p>
+     * 強連結成分の番号は{@code 0}から始まり、探索を完了した順に割り当てられる。
+     * つまり、ある強連結成分から接続された別の強連結成分には、必ずより小さな番号が割り当てられる。
+     * </p>
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @return 強連結成分の情報
+     */
+    static Components findStronglyConnectedComponents(int[] offsets, int[] targets) {
+        assert offsets != null;
+        assert targets != null;
+        return findStronglyConnectedComponents(offsets, targets, null);
+    }
+
+    /**
+     * 強連結成分を列挙し、それらを縮約したグラフを同じ探索の中で構築する。
+     * <p>
+     * 強連結成分の番号は{@link #findStronglyConnectedComponents(int[], int[])}と同様に割り当てられる。
+     * 各強連結成分の接続先は、その強連結成分の探索を完了した時点で確定する。
+     * </p>
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @return 縮約したグラフ
+     */
+    static Condensed condense(int[] offsets, int[] targets) {
+        assert offsets != null;
+        assert targets != null;
+        Condensed results = new Condensed(offsets.length - 1);
+        findStronglyConnectedComponents(offsets, targets, results);
+        return results;
+    }
+
+    private static Components findStronglyConnectedComponents(
+            int[] offsets,
+            int[] targets,
+            Condensed condensed) {
+        int size = offsets.length - 1;
+        int[] index = new int[size];
+        int[] lowlink = new int[size];
+        int[] component = new int[size];
+        Arrays.fill(index, -1);
+        Arrays.fill(component, -1);
+        int[] members = new int[size];
+        int memberCount = 0;
+        int[] stack = new int[size];
+        int[] cursor = new int[size];
+        int counter = 0;
+        int count = 0;
+        for (int start = 0; start < size; start++) {
+            if (index[start] >= 0) {
+                continue;
+            }
+            index[start] = lowlink[start] = counter++;
+            members[memberCount++] = start;
+            int top = 0;
+            stack[top++] = start;
+            cursor[start] = offsets[start];
+            while (top > 0) {
+                int node = stack[top - 1];
+                if (cursor[node] < offsets[node + 1]) {
+                    int next = targets[cursor[node]++];
+                    if (index[next] < 0) {
+                        index[next] = lowlink[next] = counter++;
+                        members[memberCount++] = next;
+                        stack[top++] = next;
+                        cursor[next] = offsets[next];
+                    }
+                    else if (component[next] < 0) {
+                        lowlink[node] = Math.min(lowlink[node], index[next]);
+                    }
+                }
+                else {
+                    top--;
+                    if (lowlink[node] == index[node]) {
+                        int end = memberCount;
+                        int member;
+                        do {
+                            member = members[--memberCount];
+                            component[member] = count;
+                        } while (member != node);
+                        if (condensed != null) {
+                            condensed.add(offsets, targets, component, members, memberCount, end);
+                        }
+                        count++;
+                    }
+                    if (top > 0) {
+                        int parent = stack[top - 1];
+                        lowlink[parent] = Math.min(lowlink[parent], lowlink[node]);
+                    }
+                }
+            }
+        }
+        if (condensed != null) {
+            condensed.finish(component);
+        }
+        return new Components(count, component);
+    }
+
+    /**
+     * 指定のグラフを転置したグラフについて、各ノードの接続先の開始位置を返す。
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @return 転置したグラフの各ノードの接続先の開始位置
+     * @see #transposeTargets(int[], int[], int[])
+     */
+    static int[] transposeOffsets(int[] offsets, int[] targets) {
+        assert offsets != null;
+        assert targets != null;
+        int size = offsets.length - 1;
+        int[] results = new int[size + 1];
+        for (int target : targets) {
+            results[target + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            results[i + 1] += results[i];
+        }
+        return results;
+    }
+
+    /**
+     * 指定のグラフを転置したグラフについて、各ノードの接続先を返す。
+     * <p>
+     * 返される配列のそれぞれの範囲は、番号の昇順に並べられている。
+     * </p>
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @param transposedOffsets {@link #transposeOffsets(int[], int[])}で計算した開始位置
+     * @return 転置したグラフの各ノードの接続先
+     */
+    static int[] transposeTargets(int[] offsets, int[] targets, int[] transposedOffsets) {
+        assert offsets != null;
+        assert targets != null;
+        assert transposedOffsets != null;
+        int size = offsets.length - 1;
+        int[] results = new int[targets.length];
+        int[] positions = Arrays.copyOf(transposedOffsets, size);
+        for (int from = 0; from < size; from++) {
+            for (int i = offsets[from], n = offsets[from + 1]; i < n; i++) {
+                results[positions[targets[i]]++] = from;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 非循環グラフの推移簡約を求め、取り除くべき接続の位置の一覧を返す。
+     * <p>
+     * この操作はノードを後順に処理し、各ノードから到達可能なノードの集合をビット集合で保持する。
+     * あるノードの接続先をトポロジカル順序で近いものから順に調べ、
+     * すでに他の接続先を経由して到達可能なものへの接続を冗長とみなす。
+     * 各ノードの到達可能集合は、全ての接続元の処理が完了した時点で破棄する。
+     * </p>
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @return 冗長な接続の{@code targets}上の位置の集合、グラフが循環を含む場合は{@code null}
+     */
+    static BitSet findTransitiveEdges(int[] offsets, int[] targets) {
+        assert offsets != null;
+        assert targets != null;
+        int size = offsets.length - 1;
+        int[] order = computePostOrder(offsets, targets);
+        int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            positions[order[i]] = i;
+        }
+        int[] remaining = new int[size];
+        int maxDegree = 0;
+        for (int from = 0; from < size; from++) {
+            maxDegree = Math.max(maxDegree, offsets[from + 1] - offsets[from]);
+            for (int i = offsets[from], n = offsets[from + 1]; i < n; i++) {
+                int to = targets[i];
+                if (positions[to] >= positions[from]) {
+                    return null;
+                }
+                remaining[to]++;
+            }
+        }
+        BitSet results = new BitSet(targets.length);
+        BitSet[] reachable = new BitSet[size];
+        long[] buffer = new long[maxDegree];
+        for (int k = 0; k < size; k++) {
+            int node = order[k];
+            int begin = offsets[node];
+            int degree = offsets[node + 1] - begin;
+            // 接続先をトポロジカル順序で近いもの (後順で大きいもの) から調べる
+            for (int i = 0; i < degree; i++) {
+                buffer[i] = ((long) positions[targets[begin + i]] << 32) | i;
+            }
+            Arrays.sort(buffer, 0, degree);
+            BitSet current = new BitSet(k);
+            for (int i = degree - 1; i >= 0; i--) {
+                int edge = begin + (int) buffer[i];
+                int next = targets[edge];
+                int position = positions[next];
+                if (current.get(position)) {
+                    results.set(edge);
+                }
+                else {
+                    current.set(position);
+                    if (reachable[next] != null) {
+                        current.or(reachable[next]);
+                    }
+                }
+            }
+            for (int i = begin, n = begin + degree; i < n; i++) {
+                int next = targets[i];
+                if (--remaining[next] == 0) {
+                    reachable[next] = null;
+                }
+            }
+            if (remaining[node] > 0) {
+                reachable[node] = current;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * インスタンス生成の禁止。
+     */
+    private CompactAlgorithms() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 強連結成分の一覧。
+     */
+    static final class Components {
+
+        /**
+         * 強連結成分の個数。
+         */
+        final int count;
+
+        /**
+         * 各ノードが属する強連結成分の番号。
+         */
+        final int[] ids;
+
+        Components(int count, int[] ids) {
+            assert ids != null;
+            this.count = count;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * 強連結成分を縮約したグラフ。
+     * <p>
+     * 強連結成分{@code c}の構成要素は{@code members[memberOffsets[c]..memberOffsets[c+1]-1]}に、
+     * 接続先の強連結成分は{@code targets[offsets[c]..offsets[c+1]-1]}に昇順で格納される。
+     * </p>
+     */
+    static final class Condensed {
+
+        /**
+         * 強連結成分の個数。
+         */
+        int count;
+
+        /**
+         * 各ノードが属する強連結成分の番号。
+         */
+        int[] ids;
+
+        /**
+         * それぞれの強連結成分の構成要素が{@link #members}上で開始する位置。
+         */
+        final int[] memberOffsets;
+
+        /**
+         * 強連結成分ごとに並べたノードの番号。
+         */
+        final int[] members;
+
+        /**
+         * それぞれの強連結成分の接続先が{@link #targets}上で開始する位置。
+         */
+        int[] offsets;
+
+        /**
+         * それぞれの強連結成分の接続先の番号。
+         */
+        int[] targets;
+
+        /**
+         * 各強連結成分を最後に接続先として記録した強連結成分の番号。
+         */
+        private int[] stamps;
+
+        private int memberCount;
+
+        private int edgeCount;
+
+        Condensed(int size) {
+            this.memberOffsets = new int[size + 1];
+            this.members = new int[size];
+            this.offsets = new int[size + 1];
+            this.targets = new int[Math.max(size, 1)];
+            this.stamps = new int[size];
+            Arrays.fill(stamps, -1);
+        }
+
+        void add(int[] graphOffsets, int[] graphTargets, int[] component, int[] stack, int begin, int end) {
+            int id = count++;
+            memberOffsets[id] = memberCount;
+            offsets[id] = edgeCount;
+            for (int i = begin; i < end; i++) {
+                int member = stack[i];
+                members[memberCount++] = member;
+                for (int j = graphOffsets[member], n = graphOffsets[member + 1]; j < n; j++) {
+                    int next = component[graphTargets[j]];
+                    assert next >= 0;
+                    if (next != id && stamps[next] != id) {
+                        stamps[next] = id;
+                        if (edgeCount == targets.length) {
+                            targets = Arrays.copyOf(targets, edgeCount * 2);
+                        }
+                        targets[edgeCount++] = next;
+                    }
+                }
+            }
+            Arrays.sort(targets, offsets[id], edgeCount);
+        }
+
+        void finish(int[] component) {
+            memberOffsets[count] = memberCount;
+            offsets[count] = edgeCount;
+            offsets = Arrays.copyOf(offsets, count + 1);
+            targets = Arrays.copyOf(targets, edgeCount);
+            ids = component;
+            stamps = null;
+        }
+    }
+}
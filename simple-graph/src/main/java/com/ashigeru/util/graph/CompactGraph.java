@@ -0,0 +1,394 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 隣接関係を圧縮行形式 (CSR) の整数配列で保持する、変更不可能な{@link Graph}の実装。
+ * <p>
+ * 各ノードには{@code 0}から始まる連続した番号が割り当てられ、
+ * ノード{@code i}の接続先は{@code targets[offsets[i]..offsets[i+1]-1]}に
+ * 番号の昇順で格納される。
+ * ノードごとに集合オブジェクトを持たないため、{@link HashGraph}に比べて
+ * 大幅に少ないメモリで同じグラフを表現できる。
+ * </p>
+ * <p>
+ * このグラフを変更する操作はいずれも{@link UnsupportedOperationException}をスローする。
+ * インスタンスは{@link Graphs#freeze(Graph)}で生成する。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ */
+public class CompactGraph<V> implements Graph<V> {
+
+    private final Object[] values;
+
+    private final Map<V, Integer> ids;
+
+    private final Set<V> nodeSet;
+
+    /**
+     * それぞれのノードの接続先が{@link #targets}上で開始する位置 (要素数はノード数{@code +1})。
+     */
+    final int[] offsets;
+
+    /**
+     * それぞれのノードの接続先の番号。
+     */
+    final int[] targets;
+
+    /**
+     * 指定のグラフの内容を持つインスタンスを生成する。
+     * @param graph 対象のグラフ
+     */
+    CompactGraph(Graph<? extends V> graph) {
+        assert graph != null;
+        Set<? extends V> nodes = graph.getNodeSet();
+        int size = nodes.size();
+        this.values = new Object[size];
+        this.ids = new HashMap<V, Integer>(size * 4 / 3 + 1);
+        int index = 0;
+        for (V node : nodes) {
+            values[index] = node;
+            ids.put(node, index);
+            index++;
+        }
+        this.offsets = new int[size + 1];
+        int edges = 0;
+        for (int i = 0; i < size; i++) {
+            offsets[i] = edges;
+            edges += graph.getConnected(values[i]).size();
+        }
+        offsets[size] = edges;
+        this.targets = new int[edges];
+        for (int i = 0; i < size; i++) {
+            int position = offsets[i];
+            for (V to : graph.getConnected(values[i])) {
+                Integer id = ids.get(to);
+                assert id != null;
+                targets[position++] = id;
+            }
+            Arrays.sort(targets, offsets[i], offsets[i + 1]);
+        }
+        this.nodeSet = Collections.unmodifiableSet(ids.keySet());
+    }
+
+    /**
+     * 構築済みの隣接リストを持つインスタンスを生成する。
+     * <p>
+     * {@code targets}の各ノードに対応する範囲は、昇順に整列され、重複を含まないこと。
+     * 引数に指定したオブジェクトは複製せずにそのまま利用する。
+     * </p>
+     * @param values 各番号に対応するノードの値
+     * @param ids 各ノードの値に対応する番号
+     * @param offsets それぞれのノードの接続先が{@code targets}上で開始する位置
+     * @param targets それぞれのノードの接続先の番号
+     */
+    CompactGraph(Object[] values, Map<V, Integer> ids, int[] offsets, int[] targets) {
+        assert values != null;
+        assert ids != null;
+        assert offsets != null;
+        assert targets != null;
+        assert values.length == ids.size();
+        assert offsets.length == values.length + 1;
+        assert offsets[values.length] == targets.length;
+        this.values = values;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.nodeSet = Collections.unmodifiableSet(ids.keySet());
+    }
+
+    /**
+     * このグラフに含まれるノードの個数を返す。
+     * @return ノードの個数
+     */
+    int getVertexCount() {
+        return values.length;
+    }
+
+    /**
+     * 指定の値を持つノードに割り当てられた番号を返す。
+     * @param node 対象のノードに割り当てられた値
+     * @return 対応する番号、存在しない場合は{@code -1}
+     */
+    int getId(Object node) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * 指定の番号が割り当てられたノードの値を返す。
+     * @param id 対象の番号
+     * @return 対応するノードの値
+     */
+    @SuppressWarnings("unchecked")
+    V getValue(int id) {
+        return (V) values[id];
+    }
+
+    @Override
+    public void addEdge(V from, V to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addEdges(V from, Collection<? extends V> to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addNode(V node) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        return ids.containsKey(node);
+    }
+
+    @Override
+    public Set<V> getConnected(Object key) {
+        int id = getId(key);
+        if (id < 0) {
+            return Collections.emptySet();
+        }
+        return new Successors(id);
+    }
+
+    @Override
+    public Set<V> getNodeSet() {
+        return nodeSet;
+    }
+
+    @Override
+    public boolean isConnected(Object from, Object to) {
+        int fromId = getId(from);
+        if (fromId < 0) {
+            return false;
+        }
+        int toId = getId(to);
+        if (toId < 0) {
+            return false;
+        }
+        return isConnected(fromId, toId);
+    }
+
+    /**
+     * 指定の番号を持つノード同士が直接接続されている場合のみ{@code true}を返す。
+     * @param from 接続元のノードの番号
+     * @param to 接続先のノードの番号
+     * @return 直接接続されている場合は{@code true}、そうでない場合は{@code false}
+     */
+    boolean isConnected(int from, int to) {
+        return Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to) >= 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    @Override
+    public Iterator<Graph.Vertex<V>> iterator() {
+        return new Iterator<Graph.Vertex<V>>() {
+
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < values.length;
+            }
+
+            @Override
+            public Graph.Vertex<V> next() {
+                if (hasNext() == false) {
+                    throw new NoSuchElementException();
+                }
+                return new CompactVertex(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public void removeEdge(Object from, Object to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNode(Object node) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNodes(Collection<?> nodes) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 0;
+        for (int i = 0; i < values.length; i++) {
+            Object node = values[i];
+            int vertex = prime + ((node == null) ? 0 : node.hashCode());
+            vertex = prime * vertex + new Successors(i).hashCode();
+            result += vertex;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        CompactGraph<?> other = (CompactGraph<?>) obj;
+        if (values.length != other.values.length || targets.length != other.targets.length) {
+            return false;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (other.contains(values[i]) == false) {
+                return false;
+            }
+            if (getConnected(values[i]).equals(other.getConnected(values[i])) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buf.append(", "); //$NON-NLS-1$
+            }
+            buf.append(new CompactVertex(i));
+        }
+        buf.append(']');
+        return buf.toString();
+    }
+
+    /**
+     * 特定のノードの接続先を表す集合のビュー。
+     */
+    private final class Successors extends AbstractSet<V> {
+
+        private final int id;
+
+        Successors(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+
+                private int position = offsets[id];
+
+                @Override
+                public boolean hasNext() {
+                    return position < offsets[id + 1];
+                }
+
+                @Override
+                public V next() {
+                    if (hasNext() == false) {
+                        throw new NoSuchElementException();
+                    }
+                    return getValue(targets[position++]);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return offsets[id + 1] - offsets[id];
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int to = getId(o);
+            if (to < 0) {
+                return false;
+            }
+            return isConnected(id, to);
+        }
+    }
+
+    /**
+     * 特定のノードとその接続先を表す頂点。
+     */
+    private final class CompactVertex implements Vertex<V> {
+
+        private final int id;
+
+        CompactVertex(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Set<V> getConnected() {
+            return new Successors(id);
+        }
+
+        @Override
+        public V getNode() {
+            return getValue(id);
+        }
+
+        @Override
+        public String toString() {
+            return MessageFormat.format("{0} => {1}", getNode(), getConnected());
+        }
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 複数のスレッドから同時に利用できる{@link Graph}の実装。
+ * <p>
+ * ノードの一覧と各ノードの接続先の一覧は、それぞれ{@link ConcurrentHashMap}を利用して保持する。
+ * 接続先の参照はロックを取得せずに実行する。
+ * </p>
+ * <p>
+ * ノードや接続の追加は、接続元のノードのハッシュ値で選ばれた読み出し/書き込みロックの
+ * 読み出しロックのみを取得する。
+ * 接続元のノードが異なれば多くの場合は別のロックを利用するため、複数のスレッドから
+ * 追加を同時に行っても単一のロックの状態を奪い合うことはない。
+ * 一方、ノードの削除は、削除したノードへの接続が残らないよう、全てのロックの書き込みロックを取得し、
+ * 全ての追加の操作と排他して実行する。
+ * </p>
+ * <p>
+ * このグラフや、このグラフが返す集合の反復子は弱一貫性を持つ。
+ * つまり、反復子は{@link java.util.ConcurrentModificationException}をスローせず、
+ * 反復子の生成後に行われた変更を反映する場合としない場合がある。
+ * </p>
+ * <p>
+ * このグラフは{@code null}をノードとして利用できない。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ */
+public class ConcurrentHashGraph<V> implements Graph<V> {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final int MAX_LOCKS = 1 << 16;
+
+    private final ConcurrentMap<V, ConcurrentVertex<V>> entity;
+
+    /**
+     * 接続元のノードのハッシュ値で選択するロックの一覧 (要素数は2の累乗)。
+     * <p>
+     * 追加の操作は接続元に対応するロックの読み出しロックを、
+     * ノードの削除は全てのロックの書き込みロックを、添字の昇順に取得する。
+     * </p>
+     */
+    private final ReadWriteLock[] locks;
+
+    /**
+     * インスタンスを生成する。
+     */
+    public ConcurrentHashGraph() {
+        this.entity = new ConcurrentHashMap<V, ConcurrentVertex<V>>();
+        this.locks = createLocks(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * インスタンスを生成する。
+     * @param concurrencyLevel 同時に更新を行うスレッド数の見積もり
+     * @throws IllegalArgumentException 引数が{@code 1}未満の場合
+     */
+    public ConcurrentHashGraph(int concurrencyLevel) {
+        if (concurrencyLevel < 1) {
+            throw new IllegalArgumentException("concurrencyLevel must be > 0"); //$NON-NLS-1$
+        }
+        this.entity = new ConcurrentHashMap<V, ConcurrentVertex<V>>(16, 0.75f, concurrencyLevel);
+        this.locks = createLocks(concurrencyLevel);
+    }
+
+    private static ReadWriteLock[] createLocks(int concurrencyLevel) {
+        assert concurrencyLevel >= 1;
+        int size = 1;
+        while (size < concurrencyLevel && size < MAX_LOCKS) {
+            size <<= 1;
+        }
+        ReadWriteLock[] results = new ReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            results[i] = new ReentrantReadWriteLock();
+        }
+        return results;
+    }
+
+    @Override
+    public void addEdge(V from, V to) {
+        if (from == null) {
+            throw new IllegalArgumentException("from must not be null"); //$NON-NLS-1$
+        }
+        if (to == null) {
+            throw new IllegalArgumentException("to must not be null"); //$NON-NLS-1$
+        }
+        Lock shared = lockFor(from).readLock();
+        shared.lock();
+        try {
+            ConcurrentVertex<V> vertex = prepare(from);
+            prepare(to);
+            vertex.to.add(to);
+        }
+        finally {
+            shared.unlock();
+        }
+    }
+
+    @Override
+    public void addEdges(V from, Collection<? extends V> to) {
+        if (from == null) {
+            throw new IllegalArgumentException("from must not be null"); //$NON-NLS-1$
+        }
+        if (to == null) {
+            throw new IllegalArgumentException("to is null"); //$NON-NLS-1$
+        }
+        Lock shared = lockFor(from).readLock();
+        shared.lock();
+        try {
+            ConcurrentVertex<V> vertex = prepare(from);
+            for (V v : to) {
+                if (v == null) {
+                    throw new IllegalArgumentException("to must not contain null"); //$NON-NLS-1$
+                }
+                prepare(v);
+                vertex.to.add(v);
+            }
+        }
+        finally {
+            shared.unlock();
+        }
+    }
+
+    @Override
+    public void addNode(V node) {
+        if (node == null) {
+            throw new IllegalArgumentException("node must not be null"); //$NON-NLS-1$
+        }
+        Lock shared = lockFor(node).readLock();
+        shared.lock();
+        try {
+            prepare(node);
+        }
+        finally {
+            shared.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lockAll();
+        try {
+            entity.clear();
+        }
+        finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        if (node == null) {
+            return false;
+        }
+        return entity.containsKey(node);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        ConcurrentHashGraph<?> other = (ConcurrentHashGraph<?>) obj;
+        if ((this.entity.equals(other.entity)) == false) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Set<V> getConnected(Object key) {
+        if (key == null) {
+            return Collections.emptySet();
+        }
+        ConcurrentVertex<V> vertex = entity.get(key);
+        if (vertex != null) {
+            return vertex.view;
+        }
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<V> getNodeSet() {
+        return Collections.unmodifiableSet(entity.keySet());
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + this.entity.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean isConnected(Object from, Object to) {
+        if (from == null || to == null) {
+            return false;
+        }
+        ConcurrentVertex<V> vertex = entity.get(from);
+        if (vertex == null) {
+            return false;
+        }
+        return vertex.to.contains(to);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entity.isEmpty();
+    }
+
+    @Override
+    public Iterator<Graph.Vertex<V>> iterator() {
+        final Iterator<ConcurrentVertex<V>> iterator = entity.values().iterator();
+        return new Iterator<Graph.Vertex<V>>() {
+
+            private ConcurrentVertex<V> current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Graph.Vertex<V> next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                removeNode(current.from);
+                current = null;
+            }
+        };
+    }
+
+    @Override
+    public void removeEdge(Object from, Object to) {
+        if (from == null || to == null) {
+            return;
+        }
+        Lock exclusive = lockFor(from).writeLock();
+        exclusive.lock();
+        try {
+            ConcurrentVertex<V> vertex = entity.get(from);
+            if (vertex != null) {
+                vertex.to.remove(to);
+            }
+        }
+        finally {
+            exclusive.unlock();
+        }
+    }
+
+    @Override
+    public void removeNode(Object node) {
+        if (node == null) {
+            return;
+        }
+        lockAll();
+        try {
+            if (entity.remove(node) == null) {
+                return;
+            }
+            for (ConcurrentVertex<V> vertex : entity.values()) {
+                vertex.to.remove(node);
+            }
+        }
+        finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeNodes(Collection<?> nodes) {
+        if (nodes == null) {
+            throw new IllegalArgumentException("nodes is null"); //$NON-NLS-1$
+        }
+        lockAll();
+        try {
+            boolean changed = false;
+            for (Object node : nodes) {
+                if (node != null && entity.remove(node) != null) {
+                    changed = true;
+                }
+            }
+            if (changed == false) {
+                return;
+            }
+            for (ConcurrentVertex<V> vertex : entity.values()) {
+                vertex.to.removeAll(nodes);
+            }
+        }
+        finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return entity.values().toString();
+    }
+
+    private ReadWriteLock lockFor(Object node) {
+        assert node != null;
+        int hash = node.hashCode();
+        hash ^= (hash >>> 16);
+        return locks[hash & (locks.length - 1)];
+    }
+
+    private void lockAll() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i].writeLock().lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    private ConcurrentVertex<V> prepare(V node) {
+        assert node != null;
+        ConcurrentVertex<V> vertex = entity.get(node);
+        if (vertex != null) {
+            return vertex;
+        }
+        ConcurrentVertex<V> created = new ConcurrentVertex<V>(node);
+        vertex = entity.putIfAbsent(node, created);
+        return vertex == null ? created : vertex;
+    }
+
+    /**
+     * グラフ上の頂点を表現し、接続先ノード情報を持つオブジェクト。
+     * @param <V> ノードを識別する値の型
+     */
+    private static class ConcurrentVertex<V> implements Vertex<V> {
+
+        /**
+         * 接続元のノードに割り当てられた値。
+         */
+        final V from;
+
+        /**
+         * それぞれの接続先のノードに割り当てられた値。
+         */
+        final Set<V> to;
+
+        /**
+         * {@link #to}の変更できないビュー。
+         */
+        final Set<V> view;
+
+        /**
+         * インスタンスを生成する。
+         * @param node この頂点ノードに割り当てられた値
+         */
+        public ConcurrentVertex(V node) {
+            super();
+            this.from = node;
+            this.to = Collections.newSetFromMap(new ConcurrentHashMap<V, Boolean>(4, 0.75f, 1));
+            this.view = Collections.unmodifiableSet(to);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            ConcurrentVertex<?> other = (ConcurrentVertex<?>) obj;
+            if ((this.from.equals(other.from)) == false) {
+                return false;
+            }
+            if ((this.to.equals(other.to)) == false) {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Set<V> getConnected() {
+            return view;
+        }
+
+        @Override
+        public V getNode() {
+            return from;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + this.from.hashCode();
+            result = prime * result + this.to.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return MessageFormat.format("{0} => {1}", from, to);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * グラフに含まれる強連結成分と、それらを縮約した非循環グラフ。
+ * <p>
+ * 各強連結成分には{@code 0}から{@code getComponentCount() - 1}までの番号が割り当てられ、
+ * ある強連結成分から接続された別の強連結成分には、必ずより小さな番号が割り当てられる。
+ * つまり、番号の昇順は縮約したグラフの後順 (post-order) の一つとなる。
+ * </p>
+ * <p>
+ * このオブジェクトは生成元のグラフと独立しており、生成元のグラフへの変更は反映されない。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ * @see Graphs#condense(Graph)
+ */
+public final class Condensation<V> {
+
+    private final CompactGraph<? extends V> graph;
+
+    private final CompactAlgorithms.Condensed condensed;
+
+    /**
+     * インスタンスを生成する。
+     * @param graph 対象のグラフ
+     * @param condensed 対象のグラフを縮約した結果
+     */
+    Condensation(CompactGraph<? extends V> graph, CompactAlgorithms.Condensed condensed) {
+        assert graph != null;
+        assert condensed != null;
+        this.graph = graph;
+        this.condensed = condensed;
+    }
+
+    /**
+     * 強連結成分の個数を返す。
+     * @return 強連結成分の個数
+     */
+    public int getComponentCount() {
+        return condensed.count;
+    }
+
+    /**
+     * 指定のノードが属する強連結成分の番号を返す。
+     * @param node 対象のノード
+     * @return 強連結成分の番号、ノードが含まれない場合は{@code -1}
+     */
+    public int getComponentId(Object node) {
+        int id = graph.getId(node);
+        if (id < 0) {
+            return -1;
+        }
+        return condensed.ids[id];
+    }
+
+    /**
+     * 指定の強連結成分に含まれるノードの一覧を返す。
+     * @param component 対象の強連結成分の番号
+     * @return 強連結成分に含まれるノードの一覧 (変更できない集合)
+     * @throws IndexOutOfBoundsException 番号が範囲外である場合
+     */
+    public Set<V> getMembers(int component) {
+        checkIndex(component);
+        return new Members(component);
+    }
+
+    /**
+     * 指定の強連結成分から接続された、強連結成分の番号の一覧を返す。
+     * <p>
+     * 返される配列は昇順に整列され、重複を含まない。
+     * また、指定の強連結成分自身の番号は含まない。
+     * </p>
+     * @param component 対象の強連結成分の番号
+     * @return 接続先の強連結成分の番号の一覧
+     * @throws IndexOutOfBoundsException 番号が範囲外である場合
+     */
+    public int[] getSuccessors(int component) {
+        checkIndex(component);
+        return Arrays.copyOfRange(
+                condensed.targets,
+                condensed.offsets[component],
+                condensed.offsets[component + 1]);
+    }
+
+    /**
+     * 指定の強連結成分が循環を構成する場合に{@code true}を返す。
+     * <p>
+     * 強連結成分が複数のノードを含む場合、または唯一のノードが自身に接続している場合に循環とみなす。
+     * </p>
+     * @param component 対象の強連結成分の番号
+     * @return 循環を構成する場合は{@code true}
+     * @throws IndexOutOfBoundsException 番号が範囲外である場合
+     */
+    public boolean isCircuit(int component) {
+        checkIndex(component);
+        int begin = condensed.memberOffsets[component];
+        int end = condensed.memberOffsets[component + 1];
+        if (end - begin >= 2) {
+            return true;
+        }
+        int member = condensed.members[begin];
+        int[] offsets = graph.offsets;
+        return Arrays.binarySearch(graph.targets, offsets[member], offsets[member + 1], member) >= 0;
+    }
+
+    /**
+     * 強連結成分の番号をノードとする、縮約したグラフを返す。
+     * <p>
+     * このメソッドは呼び出すたびに新しいグラフを構築する。
+     * </p>
+     * @return 縮約したグラフ
+     */
+    public Graph<Integer> toGraph() {
+        int count = condensed.count;
+        Object[] values = new Object[count];
+        Map<Integer, Integer> ids = new HashMap<Integer, Integer>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            values[i] = i;
+            ids.put(i, i);
+        }
+        return new CompactGraph<Integer>(values, ids, condensed.offsets, condensed.targets);
+    }
+
+    private void checkIndex(int component) {
+        if (component < 0 || component >= condensed.count) {
+            throw new IndexOutOfBoundsException(String.valueOf(component));
+        }
+    }
+
+    /**
+     * 特定の強連結成分に含まれるノードの集合のビュー。
+     */
+    private final class Members extends AbstractSet<V> {
+
+        private final int component;
+
+        Members(int component) {
+            this.component = component;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+
+                private int position = condensed.memberOffsets[component];
+
+                @Override
+                public boolean hasNext() {
+                    return position < condensed.memberOffsets[component + 1];
+                }
+
+                @Override
+                public V next() {
+                    if (hasNext() == false) {
+                        throw new NoSuchElementException();
+                    }
+                    return graph.getValue(condensed.members[position++]);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return condensed.memberOffsets[component + 1] - condensed.memberOffsets[component];
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return getComponentId(o) == component;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 循環を持たないグラフに、循環を構成する接続を追加しようとした際にスローされる例外。
+ * @see DynamicDag
+ */
+public class CyclicEdgeException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object from;
+
+    private final Object to;
+
+    private final List<Object> path;
+
+    /**
+     * インスタンスを生成する。
+     * @param from 追加しようとした接続の接続元
+     * @param to 追加しようとした接続の接続先
+     * @param path {@code to}から{@code from}までの既存の経路 (両端を含む)
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public CyclicEdgeException(Object from, Object to, List<?> path) {
+        super(MessageFormat.format(
+                "cyclic edge: {0} -> {1} (path: {2})", //$NON-NLS-1$
+                from,
+                to,
+                path));
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null"); //$NON-NLS-1$
+        }
+        this.from = from;
+        this.to = to;
+        this.path = Collections.unmodifiableList(new ArrayList<Object>(path));
+    }
+
+    /**
+     * 追加しようとした接続の接続元を返す。
+     * @return 接続元のノードに割り当てられた値
+     */
+    public Object getFrom() {
+        return from;
+    }
+
+    /**
+     * 追加しようとした接続の接続先を返す。
+     * @return 接続先のノードに割り当てられた値
+     */
+    public Object getTo() {
+        return to;
+    }
+
+    /**
+     * 追加しようとした接続の接続先から接続元までの、既存の経路を返す。
+     * <p>
+     * 返されるリストの先頭は{@link #getTo()}、末尾は{@link #getFrom()}である。
+     * つまり、追加しようとした接続とこの経路を合わせたものが循環を構成する。
+     * 自己参照の接続を追加しようとした場合、このリストは一つの要素のみを含む。
+     * </p>
+     * @return 接続先から接続元までの経路
+     */
+    public List<Object> getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * グラフ上の依存関係に従って、各ノードに対する処理を並列に実行する。
+ * <p>
+ * それぞれのノードに対する処理は、そのノードが依存する全てのノードの処理が完了した時点で
+ * {@link Executor}に投入される。
+ * 既定では、ノードはその接続先のノードに依存する。
+ * つまり、処理は{@link Graphs#sortPostOrder(Graph)}と同様に接続の末尾から順に実行される。
+ * </p>
+ * <p>
+ * 各ノードは未完了の依存先の個数を保持し、依存先の処理が完了するたびにこれを減らす。
+ * このため、あらかじめ全体の実行順序を決定することなく、
+ * 互いに依存しないノードの処理は可能な限り同時に実行される。
+ * </p>
+ * <p>
+ * あるノードの処理が失敗した場合、そのノードに直接または間接的に依存するノードの処理は実行されない。
+ * それ以外のノードの処理は継続する。
+ * </p>
+ * @see Graphs#sortPostOrder(Graph)
+ */
+public class DependencyScheduler {
+
+    /**
+     * 制限なしを表す同時実行数。
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final Executor executor;
+
+    private final Direction direction;
+
+    private final int maxConcurrency;
+
+    /**
+     * 同時実行数を制限せず、接続先のノードを先に処理するインスタンスを生成する。
+     * @param executor 処理を実行する{@link Executor}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public DependencyScheduler(Executor executor) {
+        this(executor, Direction.SUCCESSORS_FIRST, UNBOUNDED);
+    }
+
+    /**
+     * インスタンスを生成する。
+     * @param executor 処理を実行する{@link Executor}
+     * @param direction 依存関係の方向
+     * @param maxConcurrency 同時に実行する処理の最大数、制限しない場合は{@link #UNBOUNDED}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     または{@code maxConcurrency}が{@code 1}未満の場合
+     */
+    public DependencyScheduler(Executor executor, Direction direction, int maxConcurrency) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null"); //$NON-NLS-1$
+        }
+        if (direction == null) {
+            throw new IllegalArgumentException("direction must not be null"); //$NON-NLS-1$
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be > 0"); //$NON-NLS-1$
+        }
+        this.executor = executor;
+        this.direction = direction;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * 指定のグラフの各ノードに対する処理を開始する。
+     * <p>
+     * この呼び出しは処理の完了を待たずに復帰する。
+     * 処理の完了を待つには、返されるオブジェクトの{@link Execution#await()}を利用する。
+     * 処理の開始後に対象のグラフを変更した場合の動作は保証されない。
+     * </p>
+     * @param <V> ノードを識別する値の型
+     * @param graph 対象のグラフ
+     * @param task 各ノードに対する処理
+     * @return 処理の実行状況
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     または対象のグラフが循環を含む場合
+     */
+    public <V> Execution<V> start(Graph<? extends V> graph, Task<? super V> task) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (task == null) {
+            throw new IllegalArgumentException("task must not be null"); //$NON-NLS-1$
+        }
+        Set<Set<V>> circuits = Graphs.findCircuit(graph);
+        if (circuits.isEmpty() == false) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "graph must be acyclic: {0}", //$NON-NLS-1$
+                    circuits));
+        }
+        Execution<V> execution = new Execution<V>(task, executor, maxConcurrency);
+        execution.prepare(graph, direction);
+        execution.launch();
+        return execution;
+    }
+
+    /**
+     * 各ノードに対する処理。
+     * @param <V> ノードを識別する値の型
+     */
+    public interface Task<V> {
+
+        /**
+         * 指定のノードに対する処理を実行する。
+         * @param node 対象のノードに割り当てられた値
+         * @throws Exception 処理に失敗した場合
+         */
+        void execute(V node) throws Exception;
+    }
+
+    /**
+     * 依存関係の方向。
+     */
+    public enum Direction {
+
+        /**
+         * 各ノードは、その接続先のノードの処理が完了した後に処理される。
+         */
+        SUCCESSORS_FIRST,
+
+        /**
+         * 各ノードは、そのノードへ接続している全てのノードの処理が完了した後に処理される。
+         */
+        PREDECESSORS_FIRST,
+    }
+
+    /**
+     * 処理の実行状況。
+     * <p>
+     * このクラスのインスタンスは、複数のスレッドから同時に利用できる。
+     * </p>
+     * @param <V> ノードを識別する値の型
+     */
+    public static final class Execution<V> {
+
+        private final Task<? super V> task;
+
+        private final Executor executor;
+
+        private final int maxConcurrency;
+
+        private final List<Entry<V>> entries = new ArrayList<Entry<V>>();
+
+        private final LinkedList<Entry<V>> waiting = new LinkedList<Entry<V>>();
+
+        private int running;
+
+        private final AtomicInteger remaining = new AtomicInteger();
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private final Map<V, Throwable> failures = new LinkedHashMap<V, Throwable>();
+
+        private final Set<V> skipped = new LinkedHashSet<V>();
+
+        private volatile boolean cancelled;
+
+        /**
+         * 現在のスレッドで処理を実行中の場合、そのスレッドで後から実行する処理の一覧。
+         */
+        private final ThreadLocal<LinkedList<Entry<V>>> deferred = new ThreadLocal<LinkedList<Entry<V>>>();
+
+        Execution(Task<? super V> task, Executor executor, int maxConcurrency) {
+            assert task != null;
+            assert executor != null;
+            this.task = task;
+            this.executor = executor;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        void prepare(Graph<? extends V> graph, Direction direction) {
+            assert graph != null;
+            assert direction != null;
+            Map<V, Entry<V>> map = new HashMap<V, Entry<V>>();
+            for (V node : graph.getNodeSet()) {
+                Entry<V> entry = new Entry<V>(node);
+                map.put(node, entry);
+                entries.add(entry);
+            }
+            for (Entry<V> entry : entries) {
+                for (V successor : graph.getConnected(entry.node)) {
+                    Entry<V> other = map.get(successor);
+                    assert other != null;
+                    if (direction == Direction.SUCCESSORS_FIRST) {
+                        entry.pending.incrementAndGet();
+                        other.dependents.add(entry);
+                    }
+                    else {
+                        other.pending.incrementAndGet();
+                        entry.dependents.add(other);
+                    }
+                }
+            }
+            remaining.set(entries.size());
+        }
+
+        void launch() {
+            if (entries.isEmpty()) {
+                done.countDown();
+                return;
+            }
+            List<Entry<V>> roots = new ArrayList<Entry<V>>();
+            for (Entry<V> entry : entries) {
+                if (entry.pending.get() == 0) {
+                    roots.add(entry);
+                }
+            }
+            for (Entry<V> entry : roots) {
+                ready(entry);
+            }
+        }
+
+        /**
+         * 未実行の処理を今後開始しないようにする。
+         * <p>
+         * 既に実行中の処理は中断しない。
+         * 開始されなかったノードは{@link #getSkipped()}に含まれる。
+         * </p>
+         */
+        public void cancel() {
+            cancelled = true;
+            List<Entry<V>> drained;
+            synchronized (waiting) {
+                drained = new ArrayList<Entry<V>>(waiting);
+                waiting.clear();
+            }
+            for (Entry<V> entry : drained) {
+                skip(entry);
+            }
+        }
+
+        /**
+         * {@link #cancel()}が呼び出された場合のみ{@code true}を返す。
+         * @return 取り消された場合は{@code true}
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * 全てのノードの処理が完了、失敗、または省略された場合のみ{@code true}を返す。
+         * @return 全ての処理が終了した場合は{@code true}
+         */
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        /**
+         * 全てのノードの処理が終了するまで待機する。
+         * @throws InterruptedException 待機中に割り込みが発生した場合
+         * @throws ExecutionException いずれかのノードの処理に失敗した場合 (最初の失敗を原因とする)
+         * @throws CancellationException 処理が取り消された場合
+         */
+        public void await() throws InterruptedException, ExecutionException {
+            done.await();
+            check();
+        }
+
+        /**
+         * 全てのノードの処理が終了するまで、指定の時間だけ待機する。
+         * @param timeout 待機する時間
+         * @param unit {@code timeout}の単位
+         * @return 全ての処理が終了した場合は{@code true}、時間切れの場合は{@code false}
+         * @throws InterruptedException 待機中に割り込みが発生した場合
+         * @throws ExecutionException いずれかのノードの処理に失敗した場合 (最初の失敗を原因とする)
+         * @throws CancellationException 処理が取り消された場合
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException {
+            if (unit == null) {
+                throw new IllegalArgumentException("unit must not be null"); //$NON-NLS-1$
+            }
+            if (done.await(timeout, unit) == false) {
+                return false;
+            }
+            check();
+            return true;
+        }
+
+        /**
+         * 処理に失敗したノードと、その原因の一覧を返す。
+         * @return 処理に失敗したノードと、その原因の一覧
+         */
+        public Map<V, Throwable> getFailures() {
+            synchronized (failures) {
+                return Collections.unmodifiableMap(new LinkedHashMap<V, Throwable>(failures));
+            }
+        }
+
+        /**
+         * 依存先の失敗や取り消しによって、処理を実行しなかったノードの一覧を返す。
+         * @return 処理を実行しなかったノードの一覧
+         */
+        public Set<V> getSkipped() {
+            synchronized (skipped) {
+                return Collections.unmodifiableSet(new LinkedHashSet<V>(skipped));
+            }
+        }
+
+        private void check() throws ExecutionException {
+            synchronized (failures) {
+                if (failures.isEmpty() == false) {
+                    throw new ExecutionException(failures.values().iterator().next());
+                }
+            }
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+
+        private void ready(Entry<V> entry) {
+            assert entry != null;
+            if (cancelled || entry.poisoned) {
+                skip(entry);
+                return;
+            }
+            synchronized (waiting) {
+                if (running >= maxConcurrency) {
+                    waiting.addLast(entry);
+                    return;
+                }
+                running++;
+            }
+            if (submit(entry) == false) {
+                release();
+            }
+        }
+
+        /**
+         * 指定のノードの処理を{@link Executor}に投入する。
+         * @param entry 対象のノード
+         * @return 投入に成功した場合は{@code true}、失敗した場合は{@code false}
+         */
+        private boolean submit(final Entry<V> entry) {
+            assert entry != null;
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        trampoline(entry);
+                    }
+                });
+                return true;
+            }
+            catch (Throwable t) {
+                fail(entry, t);
+                return false;
+            }
+        }
+
+        /**
+         * 指定のノードの処理を実行する。
+         * <p>
+         * 呼び出し元のスレッドで処理を実行する{@link Executor}を利用した場合、
+         * 処理の完了から後続の処理の投入までが同じスレッド上で入れ子になる。
+         * 依存関係の連鎖に比例して呼び出しが深くならないよう、
+         * 既にこのスレッドで処理を実行中であれば、その処理が復帰した後に実行する。
+         * </p>
+         * @param entry 対象のノード
+         */
+        private void trampoline(Entry<V> entry) {
+            assert entry != null;
+            LinkedList<Entry<V>> queue = deferred.get();
+            if (queue != null) {
+                queue.addLast(entry);
+                return;
+            }
+            queue = new LinkedList<Entry<V>>();
+            deferred.set(queue);
+            try {
+                execute(entry);
+                while (queue.isEmpty() == false) {
+                    execute(queue.removeFirst());
+                }
+            }
+            finally {
+                deferred.remove();
+            }
+        }
+
+        void execute(Entry<V> entry) {
+            assert entry != null;
+            try {
+                if (cancelled) {
+                    skip(entry);
+                    return;
+                }
+                try {
+                    task.execute(entry.node);
+                }
+                catch (Throwable t) {
+                    fail(entry, t);
+                    return;
+                }
+                finish(entry);
+            }
+            finally {
+                release();
+            }
+        }
+
+        private void release() {
+            while (true) {
+                Entry<V> next;
+                synchronized (waiting) {
+                    next = waiting.pollFirst();
+                    if (next == null) {
+                        running--;
+                        return;
+                    }
+                }
+                if (cancelled || next.poisoned) {
+                    skip(next);
+                }
+                else if (submit(next)) {
+                    return;
+                }
+            }
+        }
+
+        private void fail(Entry<V> entry, Throwable cause) {
+            synchronized (failures) {
+                failures.put(entry.node, cause);
+            }
+            propagate(entry, true);
+        }
+
+        private void skip(Entry<V> entry) {
+            synchronized (skipped) {
+                skipped.add(entry.node);
+            }
+            propagate(entry, true);
+        }
+
+        private void finish(Entry<V> entry) {
+            propagate(entry, false);
+        }
+
+        private void propagate(Entry<V> entry, boolean poison) {
+            // 省略するノードが連鎖しても呼び出しが深くならないよう、明示的に作業リストを利用する
+            LinkedList<Entry<V>> work = null;
+            List<Entry<V>> readied = null;
+            Entry<V> current = entry;
+            boolean currentPoison = poison;
+            while (true) {
+                try {
+                    for (Entry<V> dependent : current.dependents) {
+                        if (currentPoison) {
+                            dependent.poisoned = true;
+                        }
+                        if (dependent.pending.decrementAndGet() != 0) {
+                            continue;
+                        }
+                        if (cancelled || dependent.poisoned) {
+                            synchronized (skipped) {
+                                skipped.add(dependent.node);
+                            }
+                            if (work == null) {
+                                work = new LinkedList<Entry<V>>();
+                            }
+                            work.addLast(dependent);
+                        }
+                        else {
+                            if (readied == null) {
+                                readied = new ArrayList<Entry<V>>();
+                            }
+                            readied.add(dependent);
+                        }
+                    }
+                }
+                finally {
+                    // 予期しない例外が発生しても、このノードを終了したものとして数える
+                    if (remaining.decrementAndGet() == 0) {
+                        done.countDown();
+                    }
+                }
+                if (work == null || work.isEmpty()) {
+                    break;
+                }
+                current = work.removeFirst();
+                currentPoison = true;
+            }
+            // 実行可能になったノードは、このノードの後始末を終えてから投入する
+            if (readied != null) {
+                for (Entry<V> dependent : readied) {
+                    ready(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * 各ノードの実行状態。
+     * @param <V> ノードを識別する値の型
+     */
+    private static final class Entry<V> {
+
+        final V node;
+
+        final List<Entry<V>> dependents = new ArrayList<Entry<V>>(2);
+
+        /**
+         * 未完了の依存先の個数。
+         */
+        final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * 依存先のいずれかが失敗または省略された場合に{@code true}。
+         */
+        volatile boolean poisoned;
+
+        Entry(V node) {
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * {@code double}の優先度を持つ整数を取り出す、索引付きの二分ヒープ。
+ * <p>
+ * 各要素は{@code 0}以上{@code capacity}未満の整数であり、
+ * ヒープ上の位置を要素ごとに記憶しているため、優先度の変更を対数時間で行える。
+ * </p>
+ */
+final class DoubleHeap {
+
+    private final int[] heap;
+
+    private final int[] positions;
+
+    private final double[] keys;
+
+    private int size;
+
+    /**
+     * インスタンスを生成する。
+     * @param capacity 要素の上限 (この値を含まない)
+     */
+    DoubleHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * このヒープが空である場合に{@code true}を返す。
+     * @return 空である場合に{@code true}
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 指定の要素がヒープに含まれる場合に{@code true}を返す。
+     * @param element 対象の要素
+     * @return 含まれる場合に{@code true}
+     */
+    boolean contains(int element) {
+        return positions[element] >= 0;
+    }
+
+    /**
+     * 要素を追加するか、すでに含まれる要素の優先度を下げる。
+     * <p>
+     * すでに含まれる要素に現在よりも大きな優先度を指定した場合、何も行わない。
+     * </p>
+     * @param element 対象の要素
+     * @param key 優先度
+     */
+    void offer(int element, double key) {
+        int position = positions[element];
+        if (position < 0) {
+            position = size++;
+            heap[position] = element;
+            positions[element] = position;
+        }
+        else if (key >= keys[element]) {
+            return;
+        }
+        keys[element] = key;
+        siftUp(position);
+    }
+
+    /**
+     * 優先度が最小の要素を取り除いて返す。
+     * @return 取り除いた要素
+     * @throws NoSuchElementException ヒープが空である場合
+     */
+    int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int result = heap[0];
+        positions[result] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private void siftUp(int position) {
+        int element = heap[position];
+        double key = keys[element];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int other = heap[parent];
+            if (keys[other] <= key) {
+                break;
+            }
+            heap[position] = other;
+            positions[other] = position;
+            position = parent;
+        }
+        heap[position] = element;
+        positions[element] = position;
+    }
+
+    private void siftDown(int position) {
+        int element = heap[position];
+        double key = keys[element];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = position * 2 + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            int other = heap[child];
+            if (key <= keys[other]) {
+                break;
+            }
+            heap[position] = other;
+            positions[other] = position;
+            position = child;
+        }
+        heap[position] = element;
+        positions[element] = position;
+    }
+}
@@ -0,0 +1,543 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 循環を持たない有向グラフ (DAG) を表現し、常にトポロジカル順序を保持する{@link Graph}の実装。
+ * <p>
+ * 接続を追加するたびに、Pearce と Kelly による動的トポロジカルソートのアルゴリズムを利用して
+ * 影響を受ける範囲のノードのみを並べ替える。
+ * このため、{@link #sortPostOrder()}は全体を探索せずにノード数に比例する時間で完了する。
+ * </p>
+ * <p>
+ * 循環を構成する接続を追加しようとした場合、
+ * {@link #addEdge(Object, Object)}や{@link #addEdges(Object, Collection)}は
+ * {@link CyclicEdgeException}をスローし、グラフは変更されない。
+ * 循環の検出は上記の並べ替えと同時に行い、その探索範囲は
+ * トポロジカル順序において接続先から接続元までの間にあるノードに限られる。
+ * このため、グラフ全体の循環を{@link Graphs#findCircuit(Graph)}で検査するよりも
+ * 少ない計算量で循環を検出できる。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ */
+public class DynamicDag<V> implements Graph<V> {
+
+    private static final Comparator<DagVertex<?>> POSITION_COMPARATOR = new Comparator<DagVertex<?>>() {
+        @Override
+        public int compare(DagVertex<?> o1, DagVertex<?> o2) {
+            if (o1.position < o2.position) {
+                return -1;
+            }
+            else if (o1.position > o2.position) {
+                return +1;
+            }
+            return 0;
+        }
+    };
+
+    private final HashMap<V, DagVertex<V>> entity;
+
+    /**
+     * トポロジカル順序に並べた頂点 (削除された位置は{@code null})。
+     */
+    private DagVertex<?>[] order;
+
+    private int orderSize;
+
+    private int stamp;
+
+    /**
+     * インスタンスを生成する。
+     */
+    public DynamicDag() {
+        this.entity = new HashMap<V, DagVertex<V>>();
+        this.order = new DagVertex<?>[16];
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws CyclicEdgeException 接続を追加すると循環が発生する場合
+     */
+    @Override
+    public void addEdge(V from, V to) {
+        if (from == null ? to == null : from.equals(to)) {
+            throw new CyclicEdgeException(from, to, Collections.singletonList(from));
+        }
+        DagVertex<V> source = prepare(from);
+        DagVertex<V> target = prepare(to);
+        link(source, target);
+    }
+
+    /**
+     * このグラフに指定の値を持つノードと、そこに直接接続されたノードを追加する。
+     * <p>
+     * この操作は{@link #addEdge(Object, Object)}と同様であるが、
+     * 接続を追加すると循環が発生する場合には例外をスローせずに{@code false}を返す。
+     * この場合、グラフは変更されない。
+     * </p>
+     * @param from 接続元のノードに割り当てられる値
+     * @param to 接続先のノードに割り当てられる値
+     * @return 接続を追加できた場合、またはすでに接続が存在する場合は{@code true}、
+     *     循環が発生するため追加しなかった場合は{@code false}
+     */
+    public boolean tryAddEdge(V from, V to) {
+        try {
+            addEdge(from, to);
+            return true;
+        }
+        catch (CyclicEdgeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * いずれかの接続が循環を発生させる場合、この呼び出しはいずれの接続やノードも追加しない。
+     * </p>
+     * @throws CyclicEdgeException 接続を追加すると循環が発生する場合
+     */
+    @Override
+    public void addEdges(V from, Collection<? extends V> to) {
+        if (to == null) {
+            throw new IllegalArgumentException("to is null"); //$NON-NLS-1$
+        }
+        boolean created = contains(from) == false;
+        DagVertex<V> source = prepare(from);
+        List<V> createdNodes = new ArrayList<V>();
+        List<V> linked = new ArrayList<V>();
+        try {
+            for (V v : to) {
+                if (from == null ? v == null : from.equals(v)) {
+                    throw new CyclicEdgeException(from, v, Collections.singletonList(from));
+                }
+                if (contains(v) == false) {
+                    createdNodes.add(v);
+                }
+                DagVertex<V> target = prepare(v);
+                if (link(source, target)) {
+                    linked.add(v);
+                }
+            }
+        }
+        catch (CyclicEdgeException e) {
+            for (V v : linked) {
+                removeEdge(from, v);
+            }
+            removeNodes(createdNodes);
+            if (created) {
+                removeNode(from);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void addNode(V node) {
+        prepare(node);
+    }
+
+    @Override
+    public void clear() {
+        entity.clear();
+        Arrays.fill(order, 0, orderSize, null);
+        orderSize = 0;
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        return entity.containsKey(node);
+    }
+
+    @Override
+    public Set<V> getConnected(Object key) {
+        DagVertex<V> vertex = entity.get(key);
+        if (vertex != null) {
+            return vertex.to;
+        }
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<V> getNodeSet() {
+        return Collections.unmodifiableSet(entity.keySet());
+    }
+
+    @Override
+    public boolean isConnected(Object from, Object to) {
+        DagVertex<V> vertex = entity.get(from);
+        if (vertex == null) {
+            return false;
+        }
+        return vertex.to.contains(to);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entity.isEmpty();
+    }
+
+    @Override
+    public Iterator<Graph.Vertex<V>> iterator() {
+        final Iterator<DagVertex<V>> iterator = entity.values().iterator();
+        return new Iterator<Graph.Vertex<V>>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Graph.Vertex<V> next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public void removeEdge(Object from, Object to) {
+        DagVertex<V> vertex = entity.get(from);
+        if (vertex != null && vertex.to.remove(to)) {
+            entity.get(to).from.remove(from);
+        }
+    }
+
+    @Override
+    public void removeNode(Object node) {
+        DagVertex<V> removed = entity.remove(node);
+        if (removed == null) {
+            return;
+        }
+        for (V predecessor : removed.from) {
+            entity.get(predecessor).to.remove(node);
+        }
+        for (V successor : removed.to) {
+            entity.get(successor).from.remove(node);
+        }
+        order[removed.position] = null;
+        if (entity.size() * 2 < orderSize) {
+            compact();
+        }
+    }
+
+    @Override
+    public void removeNodes(Collection<?> nodes) {
+        if (nodes == null) {
+            throw new IllegalArgumentException("nodes is null"); //$NON-NLS-1$
+        }
+        for (Object node : nodes) {
+            removeNode(node);
+        }
+    }
+
+    /**
+     * このグラフに含まれるノードの一覧を、接続の末尾から順に列挙する。
+     * <p>
+     * 返されるリストは{@link Graphs#sortPostOrder(Graph)}と同じ条件を満たす。
+     * すなわち、返されるリスト{@code list}について、{@code i < j}であれば
+     * {@code this.isConnected(list[i], list[j])}は常に{@code false}となる。
+     * このグラフはトポロジカル順序を常に保持しているため、
+     * この操作はグラフを探索せずにノード数に比例する時間で完了する。
+     * </p>
+     * @return ノードの一覧を接続の末尾から順に並べたリスト
+     */
+    public List<V> sortPostOrder() {
+        List<V> results = new ArrayList<V>(entity.size());
+        for (int i = orderSize - 1; i >= 0; i--) {
+            DagVertex<?> vertex = order[i];
+            if (vertex != null) {
+                results.add(this.<V>cast(vertex.node));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        DynamicDag<?> other = (DynamicDag<?>) obj;
+        if ((this.entity.equals(other.entity)) == false) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + this.entity.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return entity.values().toString();
+    }
+
+    private DagVertex<V> prepare(V node) {
+        DagVertex<V> vertex = entity.get(node);
+        if (vertex == null) {
+            vertex = new DagVertex<V>(node);
+            entity.put(node, vertex);
+            if (orderSize == order.length) {
+                if (entity.size() * 2 < orderSize) {
+                    compact();
+                }
+                else {
+                    order = Arrays.copyOf(order, orderSize * 2);
+                }
+            }
+            vertex.position = orderSize;
+            order[orderSize++] = vertex;
+        }
+        return vertex;
+    }
+
+    private boolean link(DagVertex<V> source, DagVertex<V> target) {
+        assert source != null;
+        assert target != null;
+        if (source.to.contains(target.node)) {
+            return false;
+        }
+        if (target.position < source.position) {
+            reorder(source, target);
+        }
+        source.to.add(target.node);
+        target.from.add(source.node);
+        return true;
+    }
+
+    /**
+     * {@code source -> target}の接続を追加できるように、影響範囲のノードを並べ替える。
+     * @param source 接続元
+     * @param target 接続先
+     * @throws CyclicEdgeException 接続を追加すると循環が発生する場合
+     */
+    private void reorder(DagVertex<V> source, DagVertex<V> target) {
+        int lower = target.position;
+        int upper = source.position;
+        assert lower < upper;
+        stamp++;
+
+        // 接続先から前方へ、接続元の位置までに到達可能なノード
+        List<DagVertex<V>> forward = new ArrayList<DagVertex<V>>();
+        int[] parents = new int[16];
+        target.stamp = stamp;
+        forward.add(target);
+        parents[0] = -1;
+        for (int i = 0; i < forward.size(); i++) {
+            for (V next : forward.get(i).to) {
+                DagVertex<V> vertex = entity.get(next);
+                if (vertex == source) {
+                    List<V> path = buildPath(forward, parents, i);
+                    path.add(source.node);
+                    throw new CyclicEdgeException(source.node, target.node, path);
+                }
+                if (vertex.stamp != stamp && vertex.position < upper) {
+                    vertex.stamp = stamp;
+                    if (forward.size() == parents.length) {
+                        parents = Arrays.copyOf(parents, parents.length * 2);
+                    }
+                    parents[forward.size()] = i;
+                    forward.add(vertex);
+                }
+            }
+        }
+
+        // 接続元から後方へ、接続先の位置までに到達可能なノード
+        List<DagVertex<V>> backward = new ArrayList<DagVertex<V>>();
+        source.stamp = stamp;
+        backward.add(source);
+        for (int i = 0; i < backward.size(); i++) {
+            for (V next : backward.get(i).from) {
+                DagVertex<V> vertex = entity.get(next);
+                if (vertex.stamp != stamp && vertex.position > lower) {
+                    vertex.stamp = stamp;
+                    backward.add(vertex);
+                }
+            }
+        }
+
+        // 後方のノードを前方のノードより前に並べ、もともと利用していた位置に詰め直す
+        Collections.sort(forward, POSITION_COMPARATOR);
+        Collections.sort(backward, POSITION_COMPARATOR);
+        int[] positions = new int[forward.size() + backward.size()];
+        int index = 0;
+        for (DagVertex<V> vertex : backward) {
+            positions[index++] = vertex.position;
+        }
+        for (DagVertex<V> vertex : forward) {
+            positions[index++] = vertex.position;
+        }
+        Arrays.sort(positions);
+        index = 0;
+        for (DagVertex<V> vertex : backward) {
+            vertex.position = positions[index++];
+            order[vertex.position] = vertex;
+        }
+        for (DagVertex<V> vertex : forward) {
+            vertex.position = positions[index++];
+            order[vertex.position] = vertex;
+        }
+    }
+
+    private List<V> buildPath(List<DagVertex<V>> forward, int[] parents, int last) {
+        assert forward != null;
+        assert parents != null;
+        LinkedList<V> path = new LinkedList<V>();
+        for (int i = last; i >= 0; i = parents[i]) {
+            path.addFirst(forward.get(i).node);
+        }
+        return path;
+    }
+
+    private void compact() {
+        int next = 0;
+        for (int i = 0; i < orderSize; i++) {
+            DagVertex<?> vertex = order[i];
+            if (vertex != null) {
+                vertex.position = next;
+                order[next++] = vertex;
+            }
+        }
+        Arrays.fill(order, next, orderSize, null);
+        orderSize = next;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cast(Object object) {
+        return (T) object;
+    }
+
+    /**
+     * グラフ上の頂点を表現し、接続先と接続元のノード情報を持つオブジェクト。
+     * @param <V> ノードを識別する値の型
+     */
+    private static final class DagVertex<V> implements Vertex<V> {
+
+        /**
+         * この頂点に割り当てられた値。
+         */
+        final V node;
+
+        /**
+         * それぞれの接続先のノードに割り当てられた値。
+         */
+        final Set<V> to;
+
+        /**
+         * それぞれの接続元のノードに割り当てられた値。
+         */
+        final Set<V> from;
+
+        /**
+         * トポロジカル順序におけるこの頂点の位置。
+         */
+        int position;
+
+        /**
+         * 並べ替えの際に、この頂点を最後に訪問した探索の番号。
+         */
+        int stamp;
+
+        /**
+         * インスタンスを生成する。
+         * @param node この頂点ノードに割り当てられた値
+         */
+        DagVertex(V node) {
+            this.node = node;
+            this.to = new HashSet<V>();
+            this.from = new HashSet<V>();
+        }
+
+        @Override
+        public Set<V> getConnected() {
+            return to;
+        }
+
+        @Override
+        public V getNode() {
+            return node;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            DagVertex<?> other = (DagVertex<?>) obj;
+            if (this.node == null) {
+                if (other.node != null) {
+                    return false;
+                }
+            }
+            else if ((this.node.equals(other.node)) == false) {
+                return false;
+            }
+            if ((this.to.equals(other.to)) == false) {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((this.node == null) ? 0 : this.node.hashCode());
+            result = prime * result + this.to.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return MessageFormat.format("{0} => {1}", node, to);
+        }
+    }
+}
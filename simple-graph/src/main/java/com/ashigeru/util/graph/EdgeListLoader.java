@@ -0,0 +1,609 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 接続の一覧を記述したテキストファイルからグラフを読み出す。
+ * <p>
+ * 対象のファイルはUTF-8で符号化され、各行に接続元と接続先のノードの名前を空白またはタブで区切って記述する。
+ * 名前を一つだけ記述した行は、接続を持たないノードとして扱う。
+ * 空行と、{@code #}で始まる行は無視する。
+ * </p>
+ * <pre>{@code
+ * # from to
+ * a b
+ * a c
+ * d
+ * }</pre>
+ * <p>
+ * ファイルはメモリに写像した上で、行の境界で区切った断片ごとに解析する。
+ * 同じ名前を持つノードには、常に同一の文字列オブジェクトが割り当てられる。
+ * {@link Executor}を指定した場合、それぞれの断片を並列に解析する。
+ * </p>
+ */
+public final class EdgeListLoader {
+
+    private static final Charset ENCODING = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+    /**
+     * 一つの断片に含まれるバイト数の目安。
+     */
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final int PROBE_SIZE = 4096;
+
+    /**
+     * 指定のファイルを読み出し、{@link HashGraph}として返す。
+     * @param file 対象のファイル
+     * @return 読み出したグラフ
+     * @throws IOException ファイルの読み出しに失敗した場合、またはファイルの形式が正しくない場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static HashGraph<String> loadHashGraph(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        return toHashGraph(parse(file));
+    }
+
+    /**
+     * 指定のファイルを、指定の{@link Executor}を利用して並列に読み出し、{@link HashGraph}として返す。
+     * @param file 対象のファイル
+     * @param executor 処理を並列に実行する{@link Executor}
+     * @return 読み出したグラフ
+     * @throws IOException ファイルの読み出しに失敗した場合、またはファイルの形式が正しくない場合
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static HashGraph<String> loadHashGraph(
+            File file,
+            Executor executor) throws IOException, InterruptedException {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null"); //$NON-NLS-1$
+        }
+        return toHashGraph(parse(file, executor));
+    }
+
+    /**
+     * 指定のファイルを読み出し、{@link CompactGraph}として返す。
+     * <p>
+     * この操作は、途中で{@link HashGraph}を構築せずに、読み出した接続から直接隣接リストを構築する。
+     * </p>
+     * @param file 対象のファイル
+     * @return 読み出したグラフ
+     * @throws IOException ファイルの読み出しに失敗した場合、またはファイルの形式が正しくない場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static CompactGraph<String> loadCompactGraph(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        return toCompactGraph(parse(file));
+    }
+
+    /**
+     * 指定のファイルを、指定の{@link Executor}を利用して並列に読み出し、{@link CompactGraph}として返す。
+     * <p>
+     * この操作は、途中で{@link HashGraph}を構築せずに、読み出した接続から直接隣接リストを構築する。
+     * </p>
+     * @param file 対象のファイル
+     * @param executor 処理を並列に実行する{@link Executor}
+     * @return 読み出したグラフ
+     * @throws IOException ファイルの読み出しに失敗した場合、またはファイルの形式が正しくない場合
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static CompactGraph<String> loadCompactGraph(
+            File file,
+            Executor executor) throws IOException, InterruptedException {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null"); //$NON-NLS-1$
+        }
+        return toCompactGraph(parse(file, executor));
+    }
+
+    private static EdgeList parse(File file) throws IOException {
+        assert file != null;
+        try {
+            return parse(file, null, CHUNK_SIZE);
+        }
+        catch (InterruptedException e) {
+            // 並列に実行しない場合は待機しない
+            throw new AssertionError(e);
+        }
+    }
+
+    private static EdgeList parse(File file, Executor executor) throws IOException, InterruptedException {
+        assert file != null;
+        assert executor != null;
+        return parse(file, executor, CHUNK_SIZE);
+    }
+
+    /**
+     * 指定のファイルを断片ごとに解析する。
+     * @param file 対象のファイル
+     * @param executor 処理を並列に実行する{@link Executor}、逐次実行する場合は{@code null}
+     * @param chunkSize 一つの断片に含まれるバイト数の目安
+     * @return 解析結果
+     * @throws IOException ファイルの読み出しに失敗した場合、またはファイルの形式が正しくない場合
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     */
+    static EdgeList parse(
+            File file,
+            Executor executor,
+            int chunkSize) throws IOException, InterruptedException {
+        assert file != null;
+        assert chunkSize > 0;
+        FileInputStream input = new FileInputStream(file);
+        try {
+            FileChannel channel = input.getChannel();
+            long[] bounds = split(channel, chunkSize);
+            List<Chunk> chunks = new ArrayList<Chunk>();
+            if (executor == null) {
+                for (int i = 0; i < bounds.length - 1; i++) {
+                    chunks.add(new Chunk(channel, bounds[i], bounds[i + 1]).call());
+                }
+                return merge(chunks);
+            }
+            List<FutureTask<Chunk>> tasks = new ArrayList<FutureTask<Chunk>>();
+            for (int i = 0; i < bounds.length - 1; i++) {
+                FutureTask<Chunk> task = new FutureTask<Chunk>(new Chunk(channel, bounds[i], bounds[i + 1]));
+                executor.execute(task);
+                tasks.add(task);
+            }
+            for (FutureTask<Chunk> task : tasks) {
+                chunks.add(get(task));
+            }
+            return merge(chunks);
+        }
+        finally {
+            input.close();
+        }
+    }
+
+    /**
+     * ファイルを行の境界で断片に分割し、各断片の開始位置と、ファイルの末尾の位置を返す。
+     */
+    private static long[] split(FileChannel channel, int chunkSize) throws IOException {
+        assert channel != null;
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<Long>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long position = chunkSize;
+        while (position < size) {
+            long boundary = findLineEnd(channel, probe, position, size);
+            if (boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            position = boundary + chunkSize;
+        }
+        bounds.add(size);
+        long[] results = new long[bounds.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = bounds.get(i);
+        }
+        return results;
+    }
+
+    /**
+     * 指定の位置以降で最初に現れる行末の直後の位置を返す。
+     */
+    private static long findLineEnd(
+            FileChannel channel,
+            ByteBuffer probe,
+            long start,
+            long size) throws IOException {
+        long position = start;
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static Chunk get(FutureTask<Chunk> task) throws IOException, InterruptedException {
+        assert task != null;
+        try {
+            return task.get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 各断片で独立に割り当てた番号を、全体で一意な番号に置き換える。
+     * 同じ名前には、最初に現れた断片で生成した文字列を割り当てる。
+     */
+    private static EdgeList merge(List<Chunk> chunks) {
+        assert chunks != null;
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> names = new ArrayList<String>();
+        int edgeCount = 0;
+        for (Chunk chunk : chunks) {
+            int[] mapping = new int[chunk.nameCount];
+            for (int i = 0; i < chunk.nameCount; i++) {
+                String name = chunk.names[i];
+                Integer id = ids.get(name);
+                if (id == null) {
+                    id = names.size();
+                    ids.put(name, id);
+                    names.add(name);
+                }
+                mapping[i] = id;
+            }
+            int[] pairs = chunk.pairs;
+            for (int i = 0, n = chunk.pairCount * 2; i < n; i += 2) {
+                pairs[i] = mapping[pairs[i]];
+                if (pairs[i + 1] >= 0) {
+                    pairs[i + 1] = mapping[pairs[i + 1]];
+                    edgeCount++;
+                }
+            }
+            chunk.names = null;
+        }
+        return new EdgeList(names.toArray(), ids, chunks, edgeCount);
+    }
+
+    static HashGraph<String> toHashGraph(EdgeList edges) {
+        assert edges != null;
+        HashGraph<String> results = new HashGraph<String>();
+        Object[] names = edges.names;
+        for (Object name : names) {
+            results.addNode((String) name);
+        }
+        for (Chunk chunk : edges.chunks) {
+            int[] pairs = chunk.pairs;
+            for (int i = 0, n = chunk.pairCount * 2; i < n; i += 2) {
+                if (pairs[i + 1] >= 0) {
+                    results.addEdge((String) names[pairs[i]], (String) names[pairs[i + 1]]);
+                }
+            }
+        }
+        return results;
+    }
+
+    static CompactGraph<String> toCompactGraph(EdgeList edges) {
+        assert edges != null;
+        int size = edges.names.length;
+        int[] offsets = new int[size + 1];
+        for (Chunk chunk : edges.chunks) {
+            int[] pairs = chunk.pairs;
+            for (int i = 0, n = chunk.pairCount * 2; i < n; i += 2) {
+                if (pairs[i + 1] >= 0) {
+                    offsets[pairs[i] + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[edges.edgeCount];
+        int[] positions = Arrays.copyOf(offsets, size);
+        for (Chunk chunk : edges.chunks) {
+            int[] pairs = chunk.pairs;
+            for (int i = 0, n = chunk.pairCount * 2; i < n; i += 2) {
+                if (pairs[i + 1] >= 0) {
+                    targets[positions[pairs[i]]++] = pairs[i + 1];
+                }
+            }
+            chunk.pairs = null;
+        }
+
+        // 各ノードの接続先を整列し、重複を除去しながら前に詰める
+        int written = 0;
+        for (int i = 0; i < size; i++) {
+            int begin = offsets[i];
+            int end = offsets[i + 1];
+            offsets[i] = written;
+            Arrays.sort(targets, begin, end);
+            for (int j = begin; j < end; j++) {
+                if (j == begin || targets[j] != targets[j - 1]) {
+                    targets[written++] = targets[j];
+                }
+            }
+        }
+        offsets[size] = written;
+        if (written != targets.length) {
+            targets = Arrays.copyOf(targets, written);
+        }
+        return new CompactGraph<String>(edges.names, edges.ids, offsets, targets);
+    }
+
+    private EdgeListLoader() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 全ての断片から読み出した接続の一覧。
+     */
+    static final class EdgeList {
+
+        final Object[] names;
+
+        final Map<String, Integer> ids;
+
+        final List<Chunk> chunks;
+
+        final int edgeCount;
+
+        EdgeList(Object[] names, Map<String, Integer> ids, List<Chunk> chunks, int edgeCount) {
+            this.names = names;
+            this.ids = ids;
+            this.chunks = chunks;
+            this.edgeCount = edgeCount;
+        }
+    }
+
+    /**
+     * ファイルの一つの断片を解析する。
+     * <p>
+     * 断片内に現れた名前には、断片内で一意な番号を割り当てる。
+     * 名前の文字列は、断片内で最初に現れた際に一度だけ生成する。
+     * </p>
+     */
+    private static final class Chunk implements Callable<Chunk> {
+
+        private final FileChannel channel;
+
+        private final long begin;
+
+        private final long end;
+
+        private MappedByteBuffer buffer;
+
+        /**
+         * 断片内の番号に対応する名前。
+         */
+        String[] names = new String[64];
+
+        int nameCount;
+
+        /**
+         * 名前の開始位置 ({@link #buffer}上の位置)。
+         */
+        private int[] nameOffsets = new int[64];
+
+        private int[] nameLengths = new int[64];
+
+        private int[] nameHashes = new int[64];
+
+        /**
+         * 名前のハッシュ表 (番号{@code +1}を格納し、{@code 0}は空き)。
+         */
+        private int[] table = new int[128];
+
+        /**
+         * 接続元と接続先の番号の組 (接続先が{@code -1}の場合はノードのみ)。
+         */
+        int[] pairs = new int[256];
+
+        int pairCount;
+
+        Chunk(FileChannel channel, long begin, long end) {
+            assert channel != null;
+            assert begin <= end;
+            assert end - begin <= Integer.MAX_VALUE;
+            this.channel = channel;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        @Override
+        public Chunk call() throws IOException {
+            int length = (int) (end - begin);
+            if (length == 0) {
+                return this;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, begin, length);
+            int position = 0;
+            while (position < length) {
+                position = parseLine(position, length);
+            }
+            buffer = null;
+            return this;
+        }
+
+        private int parseLine(int start, int limit) throws IOException {
+            int position = skipBlank(start, limit);
+            if (position < limit && buffer.get(position) == '#') {
+                return skipLine(position, limit);
+            }
+            int from = -1;
+            int to = -1;
+            for (int field = 0; position < limit; field++) {
+                byte c = buffer.get(position);
+                if (c == '\n') {
+                    position++;
+                    break;
+                }
+                if (field >= 2) {
+                    throw new IOException(MessageFormat.format(
+                            "too many fields in line (offset={0})", //$NON-NLS-1$
+                            begin + start));
+                }
+                int tokenEnd = position;
+                while (tokenEnd < limit && isDelimiter(buffer.get(tokenEnd)) == false) {
+                    tokenEnd++;
+                }
+                int id = intern(position, tokenEnd - position);
+                if (field == 0) {
+                    from = id;
+                }
+                else {
+                    to = id;
+                }
+                position = skipBlank(tokenEnd, limit);
+            }
+            if (from >= 0) {
+                addPair(from, to);
+            }
+            return position;
+        }
+
+        private int skipBlank(int start, int limit) {
+            int position = start;
+            while (position < limit) {
+                byte c = buffer.get(position);
+                if (c != ' ' && c != '\t' && c != '\r') {
+                    break;
+                }
+                position++;
+            }
+            return position;
+        }
+
+        private int skipLine(int start, int limit) {
+            int position = start;
+            while (position < limit && buffer.get(position) != '\n') {
+                position++;
+            }
+            return position + 1;
+        }
+
+        private boolean isDelimiter(byte c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+        }
+
+        private void addPair(int from, int to) {
+            if (pairCount * 2 == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[pairCount * 2] = from;
+            pairs[pairCount * 2 + 1] = to;
+            pairCount++;
+        }
+
+        private int intern(int offset, int length) {
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = hash * 31 + buffer.get(offset + i);
+            }
+            int mask = table.length - 1;
+            for (int slot = mix(hash) & mask;; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    int id = addName(offset, length, hash);
+                    table[slot] = id + 1;
+                    if (nameCount * 2 > table.length) {
+                        rehash();
+                    }
+                    return id;
+                }
+                int id = entry - 1;
+                if (nameHashes[id] == hash && matches(id, offset, length)) {
+                    return id;
+                }
+            }
+        }
+
+        private boolean matches(int id, int offset, int length) {
+            if (nameLengths[id] != length) {
+                return false;
+            }
+            int other = nameOffsets[id];
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(other + i) != buffer.get(offset + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int addName(int offset, int length, int hash) {
+            if (nameCount == names.length) {
+                int capacity = names.length * 2;
+                names = Arrays.copyOf(names, capacity);
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+                nameLengths = Arrays.copyOf(nameLengths, capacity);
+                nameHashes = Arrays.copyOf(nameHashes, capacity);
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+            int id = nameCount++;
+            names[id] = new String(bytes, ENCODING);
+            nameOffsets[id] = offset;
+            nameLengths[id] = length;
+            nameHashes[id] = hash;
+            return id;
+        }
+
+        private void rehash() {
+            int[] next = new int[table.length * 2];
+            int mask = next.length - 1;
+            for (int id = 0; id < nameCount; id++) {
+                int slot = mix(nameHashes[id]) & mask;
+                while (next[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                next[slot] = id + 1;
+            }
+            table = next;
+        }
+
+        private static int mix(int hash) {
+            int h = hash * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
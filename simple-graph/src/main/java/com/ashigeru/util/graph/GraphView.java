@@ -0,0 +1,157 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * 他のグラフの内容を変換して提供する、変更できないグラフの骨格実装。
+ * <p>
+ * このグラフを変更する操作はいずれも{@link UnsupportedOperationException}をスローする。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ */
+abstract class GraphView<V> implements Graph<V> {
+
+    @Override
+    public void addEdge(V from, V to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addEdges(V from, Collection<? extends V> to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addNode(V node) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeEdge(Object from, Object to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNode(Object node) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNodes(Collection<?> nodes) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append('[');
+        for (Iterator<Graph.Vertex<V>> iter = iterator(); iter.hasNext();) {
+            buf.append(iter.next());
+            if (iter.hasNext()) {
+                buf.append(", "); //$NON-NLS-1$
+            }
+        }
+        buf.append(']');
+        return buf.toString();
+    }
+
+    /**
+     * ビュー上の頂点。
+     * @param <V> ノードを識別する値の型
+     */
+    static final class ViewVertex<V> implements Vertex<V> {
+
+        private final V node;
+
+        private final Set<V> connected;
+
+        /**
+         * インスタンスを生成する。
+         * @param node この頂点ノードに割り当てられた値
+         * @param connected 接続先のノードの一覧
+         */
+        ViewVertex(V node, Set<V> connected) {
+            this.node = node;
+            this.connected = connected;
+        }
+
+        @Override
+        public V getNode() {
+            return node;
+        }
+
+        @Override
+        public Set<V> getConnected() {
+            return connected;
+        }
+
+        @Override
+        public String toString() {
+            return MessageFormat.format("{0} => {1}", node, connected);
+        }
+    }
+
+    /**
+     * 反復子の要素を変換する反復子。
+     * @param <S> 変換元の要素の型
+     * @param <T> 変換後の要素の型
+     */
+    abstract static class ConvertIterator<S, T> implements Iterator<T> {
+
+        private final Iterator<? extends S> iterator;
+
+        /**
+         * インスタンスを生成する。
+         * @param iterator 変換元の反復子
+         */
+        ConvertIterator(Iterator<? extends S> iterator) {
+            assert iterator != null;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return convert(iterator.next());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * 要素を変換する。
+         * @param element 変換元の要素
+         * @return 変換後の要素
+         */
+        abstract T convert(S element);
+    }
+}
@@ -15,15 +15,21 @@
  */
 package com.ashigeru.util.graph;
 
+import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import com.ashigeru.util.graph.Graph.Vertex;
 
@@ -59,6 +65,42 @@ public class Graphs {
         return copy;
     }
 
+    /**
+     * 指定のグラフと同じ内容を持つ、変更不可能なグラフを返す。
+     * <p>
+     * 返されるグラフは隣接関係を整数配列で保持するため、元のグラフよりも少ないメモリで表現される。
+     * また、このクラスの一部の操作は、返されるグラフに対してより効率よく動作する。
+     * 返されるグラフは元のグラフと独立しており、元のグラフへの変更は反映されない。
+     * </p>
+     * <p>
+     * 次の操作は、返されるグラフに対してノードを整数の番号のまま探索し、
+     * 探索中にノードの{@link Object#hashCode()}や{@link Object#equals(Object)}を呼び出さない。
+     * ノードの比較に時間がかかる大きなグラフに対して同じグラフを繰り返し探索する場合、
+     * あらかじめこのメソッドで変換しておくとよい。
+     * </p>
+     * <ul>
+     * <li> {@link #collectAllConnected(Graph, Collection)} </li>
+     * <li> {@link #findNearest(Graph, Collection, Matcher)} </li>
+     * <li> {@link #collectNearest(Graph, Collection, Matcher)} </li>
+     * <li> {@link #findStronglyConnectedComponents(Graph)} </li>
+     * <li> {@link #findCircuit(Graph)} </li>
+     * <li> {@link #sortPostOrder(Graph)} </li>
+     * <li> {@link #condense(Graph)} </li>
+     * <li> {@link #transitiveReduction(Graph)} </li>
+     * </ul>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @return 変更不可能なグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see CompactGraph
+     */
+    public static <V> CompactGraph<V> freeze(Graph<? extends V> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        return new CompactGraph<V>(graph);
+    }
+
     /**
      * 指定のグラフに含まれるノードのうち、先行するノードが存在しないものの一覧を返す。
      * @param <V> ノードを識別する値
@@ -122,6 +164,9 @@ public class Graphs {
         if (startNodes == null) {
             throw new IllegalArgumentException("startNodes is null"); //$NON-NLS-1$
         }
+        if (graph instanceof CompactGraph<?>) {
+            return collectAllConnected((CompactGraph<? extends V>) graph, startNodes);
+        }
         Set<V> connected = new HashSet<V>();
         for (V start : startNodes) {
             findAllConnected(graph, start, connected);
@@ -129,6 +174,163 @@ public class Graphs {
         return connected;
     }
 
+    /**
+     * 指定の{@link Executor}を利用して、
+     * 指定のノード一覧から直接または間接的に後続する全てのノードを並列に探索して返す。
+     * <p>
+     * この操作は{@link #collectAllConnected(Graph, Collection)}と同じ結果を返す。
+     * 探索の途中で、対象のグラフを変更してはならない。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @param executor 処理を並列に実行する{@link Executor}
+     * @return 開始ノードから直接または間接的に接続されたすべてのノード
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Set<V> collectAllConnected(
+            Graph<? extends V> graph,
+            Collection<? extends V> startNodes,
+            Executor executor) throws InterruptedException {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph is null"); //$NON-NLS-1$
+        }
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes is null"); //$NON-NLS-1$
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null"); //$NON-NLS-1$
+        }
+        ParallelTraversal<V> traversal = new ParallelTraversal<V>(graph, null, executor);
+        traversal.traverse(startNodes);
+        return traversal.getVisited();
+    }
+
+    /**
+     * 指定の開始ノードから到達可能なノードを、幅優先で発見した順に列挙する。
+     * <p>
+     * この操作は{@link #breadthFirst(Graph, Collection, Matcher)}に全てのノードを展開する条件を
+     * 指定した場合と同じである。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @return ノードを列挙する{@link Iterable}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Iterable<V> breadthFirst(
+            Graph<? extends V> graph,
+            Collection<? extends V> startNodes) {
+        return breadthFirst(graph, startNodes, expandAll());
+    }
+
+    /**
+     * 指定の開始ノードから到達可能なノードを、幅優先で発見した順に列挙する。
+     * <p>
+     * {@link #collectAllConnected(Graph, Collection)}と異なり、
+     * 返される{@link Iterable}はノードを取り出すたびに必要な分だけグラフを探索する。
+     * このため、途中で列挙を打ち切った場合は、残りのノードを探索しない。
+     * また、{@link Iterable#iterator()}を呼び出すたびに、開始ノードから新たに探索を行う。
+     * </p>
+     * <p>
+     * 開始ノードは最初に列挙されるが、グラフに含まれないものは無視する。
+     * {@code expander}に合致しなかったノードは列挙されるが、その接続先は探索しない。
+     * 列挙の途中で対象のグラフを変更してはならない。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @param expander 接続先を探索するノードのみに合致する条件
+     * @return ノードを列挙する{@link Iterable}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Iterable<V> breadthFirst(
+            final Graph<? extends V> graph,
+            final Collection<? extends V> startNodes,
+            final Matcher<? super V> expander) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (expander == null) {
+            throw new IllegalArgumentException("expander must not be null"); //$NON-NLS-1$
+        }
+        return new Iterable<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new BreadthFirstIterator<V>(graph, startNodes, expander);
+            }
+        };
+    }
+
+    /**
+     * 指定の開始ノードから到達可能なノードを、深さ優先の前順で列挙する。
+     * <p>
+     * この操作は{@link #depthFirst(Graph, Collection, VisitOrder, Matcher)}に
+     * {@link VisitOrder#PRE_ORDER}と全てのノードを展開する条件を指定した場合と同じである。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @return ノードを列挙する{@link Iterable}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Iterable<V> depthFirst(
+            Graph<? extends V> graph,
+            Collection<? extends V> startNodes) {
+        return depthFirst(graph, startNodes, VisitOrder.PRE_ORDER, expandAll());
+    }
+
+    /**
+     * 指定の開始ノードから到達可能なノードを、深さ優先で指定の順序で列挙する。
+     * <p>
+     * 返される{@link Iterable}はノードを取り出すたびに必要な分だけグラフを探索し、
+     * 探索中の経路は明示的なスタックで保持する。
+     * このため、途中で列挙を打ち切った場合は残りのノードを探索せず、
+     * また経路が長い場合もスタックオーバーフローを起こさない。
+     * {@link Iterable#iterator()}を呼び出すたびに、開始ノードから新たに探索を行う。
+     * </p>
+     * <p>
+     * 開始ノードは指定された順に探索の起点とし、すでに探索済みのものやグラフに含まれないものは無視する。
+     * {@code expander}に合致しなかったノードは列挙されるが、その接続先は探索しない。
+     * 列挙の途中で対象のグラフを変更してはならない。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @param order ノードを列挙する順序
+     * @param expander 接続先を探索するノードのみに合致する条件
+     * @return ノードを列挙する{@link Iterable}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Iterable<V> depthFirst(
+            final Graph<? extends V> graph,
+            final Collection<? extends V> startNodes,
+            final VisitOrder order,
+            final Matcher<? super V> expander) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (order == null) {
+            throw new IllegalArgumentException("order must not be null"); //$NON-NLS-1$
+        }
+        if (expander == null) {
+            throw new IllegalArgumentException("expander must not be null"); //$NON-NLS-1$
+        }
+        return new Iterable<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new DepthFirstIterator<V>(graph, startNodes, order, expander);
+            }
+        };
+    }
+
     /**
      * 指定の開始ノードを起点に、後続するノードの中から条件に合致するノードの一覧を返す。
      * <p>
@@ -174,6 +376,9 @@ public class Graphs {
         if (acceptor == null) {
             throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
         }
+        if (graph instanceof CompactGraph<?>) {
+            return findNearest((CompactGraph<? extends V>) graph, startNodes, acceptor, false);
+        }
         LinkedList<V> queue = new LinkedList<V>();
         for (V start : startNodes) {
             queue.addAll(graph.getConnected(start));
@@ -205,6 +410,45 @@ public class Graphs {
         return results;
     }
 
+    /**
+     * 指定の{@link Executor}を利用して、指定の開始ノードを起点に、
+     * 後続するノードの中から条件に合致するノードの一覧を並列に探索して返す。
+     * <p>
+     * この操作は{@link #findNearest(Graph, Collection, Matcher)}と同じ結果を返す。
+     * {@code acceptor}は複数のスレッドから同時に呼び出される場合がある。
+     * また、探索の途中で対象のグラフを変更してはならない。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @param acceptor 利用する条件、合致するるものが条件に合致したとみなされる
+     * @param executor 処理を並列に実行する{@link Executor}
+     * @return 後続するノードのうち条件に合致するノードの一覧
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Set<V> findNearest(
+            Graph<? extends V> graph,
+            Collection<? extends V> startNodes,
+            Matcher<? super V> acceptor,
+            Executor executor) throws InterruptedException {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (acceptor == null) {
+            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null"); //$NON-NLS-1$
+        }
+        ParallelTraversal<V> traversal = new ParallelTraversal<V>(graph, acceptor, executor);
+        traversal.traverse(startNodes);
+        return traversal.getAccepted();
+    }
+
     /**
      * 指定の開始ノードを起点に、後続するノードの中から条件に合致するノードの一覧と、
      * そこまでのノードの一覧を返す。
@@ -237,6 +481,9 @@ public class Graphs {
         if (acceptor == null) {
             throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
         }
+        if (graph instanceof CompactGraph<?>) {
+            return findNearest((CompactGraph<? extends V>) graph, startNodes, acceptor, true);
+        }
         LinkedList<V> queue = new LinkedList<V>();
         for (V start : startNodes) {
             queue.addAll(graph.getConnected(start));
@@ -269,6 +516,45 @@ public class Graphs {
         return results;
     }
 
+    /**
+     * 指定の{@link Executor}を利用して、指定の開始ノードを起点に、
+     * 後続するノードの中から条件に合致するノードの一覧と、そこまでのノードの一覧を並列に探索して返す。
+     * <p>
+     * この操作は{@link #collectNearest(Graph, Collection, Matcher)}と同じ結果を返す。
+     * {@code acceptor}は複数のスレッドから同時に呼び出される場合がある。
+     * また、探索の途中で対象のグラフを変更してはならない。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @param acceptor 利用する条件、合致するるものが条件に合致したとみなされる
+     * @param executor 処理を並列に実行する{@link Executor}
+     * @return 後続するノードのうち条件に合致するノードと、そこまでのノードの一覧
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Set<V> collectNearest(
+            Graph<? extends V> graph,
+            Collection<? extends V> startNodes,
+            Matcher<? super V> acceptor,
+            Executor executor) throws InterruptedException {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (acceptor == null) {
+            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null"); //$NON-NLS-1$
+        }
+        ParallelTraversal<V> traversal = new ParallelTraversal<V>(graph, acceptor, executor);
+        traversal.traverse(startNodes);
+        return traversal.getVisited();
+    }
+
     /**
      * 指定の有向グラフ内で循環する要素の集合を検出して返す。
      * @param <V> 頂点要素の型
@@ -280,8 +566,40 @@ public class Graphs {
         if (graph == null) {
             throw new IllegalArgumentException("graph is null"); //$NON-NLS-1$
         }
-        Set<Set<V>> results = new HashSet<Set<V>>();
         Set<Set<V>> sccs = Graphs.findStronglyConnectedComponents(graph);
+        return collectCircuits(graph, sccs);
+    }
+
+    /**
+     * 指定の有向グラフ内で循環する要素の集合を、指定の{@link Executor}を利用して並列に検出して返す。
+     * <p>
+     * この操作は{@link #findCircuit(Graph)}と同じ結果を返す。
+     * </p>
+     * @param <V> 頂点要素の型
+     * @param graph 対象の有向グラフ
+     * @param executor 処理を並列に実行する{@link Executor}
+     * @return 循環依存する要素集合の一覧
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see #findStronglyConnectedComponentsParallel(Graph, Executor)
+     */
+    public static <V> Set<Set<V>> findCircuit(
+            Graph<? extends V> graph,
+            Executor executor) throws InterruptedException {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph is null"); //$NON-NLS-1$
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null"); //$NON-NLS-1$
+        }
+        Set<Set<V>> sccs = Graphs.findStronglyConnectedComponentsParallel(graph, executor);
+        return collectCircuits(graph, sccs);
+    }
+
+    static <V> Set<Set<V>> collectCircuits(Graph<? extends V> graph, Set<Set<V>> sccs) {
+        assert graph != null;
+        assert sccs != null;
+        Set<Set<V>> results = new HashSet<Set<V>>();
         for (Set<V> scc : sccs) {
             // 強連結成分が2要素以上ならば、それらは循環
             if (scc.size() >= 2) {
@@ -300,6 +618,10 @@ public class Graphs {
 
     /**
      * 指定の有向グラフに含まれる強連結成分を列挙する。
+     * <p>
+     * この操作はTarjanのアルゴリズムを明示的なスタックを利用して実行するため、
+     * 転置グラフを構築せずに一度の探索で全ての強連結成分を求める。
+     * </p>
      * @param <V> ノードを識別する値
      * @param graph 対象のグラフ
      * @return 強連結成分の一覧
@@ -309,38 +631,113 @@ public class Graphs {
         if (graph == null) {
             throw new IllegalArgumentException("graph is null"); //$NON-NLS-1$
         }
-        List<? extends V> postorder = computePostOrderByDepth(graph);
-        Graph<? extends V> tgraph = transpose(graph);
-
+        if (graph instanceof CompactGraph<?>) {
+            return findStronglyConnectedComponents((CompactGraph<? extends V>) graph);
+        }
         List<Set<V>> results = new ArrayList<Set<V>>();
-        Set<V> saw = new HashSet<V>();
-        for (int i = postorder.size() - 1; i >= 0; --i) {
-            V start = postorder.get(i);
-            if (saw.contains(start)) {
+
+        // 訪問済みのノードと訪問順、強連結成分が確定したノードは Integer.MAX_VALUE
+        Map<V, Integer> indices = new HashMap<V, Integer>();
+        List<V> members = new ArrayList<V>();
+        int counter = 0;
+        for (Graph.Vertex<? extends V> start : graph) {
+            if (indices.containsKey(start.getNode())) {
                 continue;
             }
-            saw.add(start);
-            Set<V> connected = new HashSet<V>();
-            connected.add(start);
-            VisitFrame<V> top = VisitFrame.build(tgraph, start);
+            indices.put(start.getNode(), counter);
+            ComponentFrame<V> top = ComponentFrame.build(graph, start.getNode(), counter++, members.size());
+            members.add(start.getNode());
             while (top != null) {
-                while (top.branches.hasNext()) {
+                if (top.branches.hasNext()) {
                     V node = top.branches.next();
-                    if (saw.contains(node)) {
-                        continue;
+                    Integer index = indices.get(node);
+                    if (index == null) {
+                        indices.put(node, counter);
+                        top = top.push(node, counter++, members.size());
+                        members.add(node);
                     }
-                    saw.add(node);
-                    connected.add(node);
-                    top = top.push(node);
+                    else {
+                        top.lowlink = Math.min(top.lowlink, index);
+                    }
+                    continue;
                 }
-                top = top.previous;
+
+                // 自身が強連結成分の根であれば、スタック上の自身以降を一つの強連結成分とする
+                if (top.lowlink == top.index) {
+                    List<V> component = members.subList(top.depth, members.size());
+                    for (V member : component) {
+                        indices.put(member, Integer.MAX_VALUE);
+                    }
+                    results.add(new HashSet<V>(component));
+                    component.clear();
+                }
+                ComponentFrame<V> previous = top.previous;
+                if (previous != null) {
+                    previous.lowlink = Math.min(previous.lowlink, top.lowlink);
+                }
+                top = previous;
             }
-            results.add(connected);
         }
 
         return new HashSet<Set<V>>(results);
     }
 
+    /**
+     * 指定の{@link Executor}を利用して、指定の有向グラフに含まれる強連結成分を並列に列挙する。
+     * <p>
+     * この操作は、最初に入次数または出次数を持たないノードを自明な強連結成分として並列に取り除き、
+     * 残りのノードを forward-backward アルゴリズムによって互いに独立した部分集合に分割しながら、
+     * それぞれの部分集合を並列に処理する。
+     * 結果は{@link #findStronglyConnectedComponents(Graph)}と同じである。
+     * </p>
+     * <p>
+     * 処理の途中で{@code executor}がタスクの受け入れを拒否した場合、
+     * この呼び出しは{@link java.util.concurrent.RejectedExecutionException}をスローする。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param executor 処理を並列に実行する{@link Executor}
+     * @return 強連結成分の一覧
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Set<Set<V>> findStronglyConnectedComponentsParallel(
+            Graph<? extends V> graph,
+            Executor executor) throws InterruptedException {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph is null"); //$NON-NLS-1$
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null"); //$NON-NLS-1$
+        }
+        CompactGraph<? extends V> compact = toCompactGraph(graph);
+        CompactAlgorithms.Components components =
+            new ParallelComponents(compact.offsets, compact.targets, executor).compute();
+        return toComponentSets(compact, components);
+    }
+
+    /**
+     * 指定の有向グラフに含まれる強連結成分を求め、それらを縮約した非循環グラフを返す。
+     * <p>
+     * この操作は{@link #findStronglyConnectedComponents(Graph)}と同じ探索の中で、
+     * 探索を完了した強連結成分から順に、その接続先の強連結成分を確定させる。
+     * 各強連結成分は整数の番号で表されるため、強連結成分ごとの集合や対応表を構築しない。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @return 強連結成分と、それらを縮約したグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Condensation
+     */
+    public static <V> Condensation<V> condense(Graph<? extends V> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        CompactGraph<? extends V> compact = toCompactGraph(graph);
+        CompactAlgorithms.Condensed condensed = CompactAlgorithms.condense(compact.offsets, compact.targets);
+        return new Condensation<V>(compact, condensed);
+    }
+
     /**
      * 指定の有向グラフに含まれるノードの一覧を、接続の末尾から順に列挙する。
      * <p>
@@ -355,6 +752,10 @@ public class Graphs {
      * <p>
      * 対象のグラフに循環が存在する場合は、循環部分を取り除けば上記の関係は成り立つ。
      * </p>
+     * <p>
+     * 対象のグラフが{@link DynamicDag}である場合、この操作はグラフを探索せずに
+     * {@link DynamicDag#sortPostOrder()}の結果を返す。
+     * </p>
      * @param <V> ノードを識別する値
      * @param graph 対象のグラフ
      * @return ノードの一覧を接続の末尾から順に並べたリスト
@@ -364,6 +765,9 @@ public class Graphs {
         if (graph == null) {
             throw new IllegalArgumentException("graph is null"); //$NON-NLS-1$
         }
+        if (graph instanceof DynamicDag<?>) {
+            return new ArrayList<V>(((DynamicDag<? extends V>) graph).sortPostOrder());
+        }
         List<? extends V> postorder = computePostOrderByDepth(graph);
         return new ArrayList<V>(postorder);
     }
@@ -398,24 +802,117 @@ public class Graphs {
     }
 
     /**
-     * 指定のグラフのうち、指定した頂点のみを持つ部分グラフを新しく作成して返す。
+     * 指定のグラフに含まれるエッジを転置したビューを返す。
+     * <p>
+     * {@link #transpose(Graph)}と異なり、この操作は新しいグラフを構築しない。
+     * 返されるグラフの接続先は、元のグラフの接続元を参照して都度求められる。
+     * また、元のグラフへの変更は返されるグラフにも反映される。
+     * 返されるグラフを変更する操作はいずれも{@link UnsupportedOperationException}をスローする。
+     * </p>
      * @param <V> ノードを識別する値
      * @param graph 対象のグラフ
-     * @param acceptor 部分グラフに含める頂点のみを許可するオブジェクト
-     * @return 生成した部分グラフ
+     * @return 元のグラフを転置したビュー
      * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see #transpose(Graph)
      */
-    public static <V> Graph<V> subgraph(
-            Graph<? extends V> graph,
-            Matcher<? super V> acceptor) {
+    public static <V> BidirectionalGraph<V> transposeView(BidirectionalGraph<V> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph is null"); //$NON-NLS-1$
+        }
+        return new TransposedGraph<V>(graph);
+    }
+
+    /**
+     * 指定の非循環グラフから冗長な接続を取り除いた、新しいグラフを返す。
+     * <p>
+     * 返されるグラフ{@code reduced}は元のグラフと同じノードを持ち、常に次が成り立つ。
+     * </p>
+     * <pre>{@code
+     * reduced.isConnected(a, b) => graph.isConnected(a, b)
+     * b in collectAllConnected(graph, {a}) <=> b in collectAllConnected(reduced, {a})
+     * }</pre>
+     * <p>
+     * この操作はグラフをトポロジカル順序に並べ、各ノードから到達可能なノードの集合をビット集合で求めるため、
+     * 接続ごとに探索を行わない。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @return 推移簡約したグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、またはグラフに循環が含まれる場合
+     * @see #reduceTransitively(Graph)
+     */
+    public static <V> Graph<V> transitiveReduction(Graph<? extends V> graph) {
         if (graph == null) {
             throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
         }
-        if (acceptor == null) {
-            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        CompactGraph<? extends V> compact = toCompactGraph(graph);
+        BitSet redundant = findTransitiveEdges(compact);
+        int[] offsets = compact.offsets;
+        int[] targets = compact.targets;
+        Graph<V> results = newInstance();
+        for (int from = 0, size = compact.getVertexCount(); from < size; from++) {
+            V node = compact.getValue(from);
+            results.addNode(node);
+            for (int i = offsets[from], n = offsets[from + 1]; i < n; i++) {
+                if (redundant.get(i) == false) {
+                    results.addEdge(node, compact.getValue(targets[i]));
+                }
+            }
         }
-        Graph<V> subgraph = newInstance();
-        Map<V, Boolean> accepted = new HashMap<V, Boolean>();
+        return results;
+    }
+
+    /**
+     * 指定の非循環グラフから冗長な接続を直接取り除く。
+     * <p>
+     * {@link #transitiveReduction(Graph)}と異なり、この操作は新しいグラフを構築せず、
+     * 冗長な接続を{@link Graph#removeEdge(Object, Object)}で取り除く。
+     * 探索のために隣接関係を整数配列に複製するが、元のグラフよりも少ないメモリで表現される。
+     * </p>
+     * @param graph 対象のグラフ
+     * @return 取り除いた接続の個数
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、またはグラフに循環が含まれる場合
+     * @see #transitiveReduction(Graph)
+     */
+    public static int reduceTransitively(Graph<?> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        CompactGraph<?> compact = toCompactGraph(graph);
+        BitSet redundant = findTransitiveEdges(compact);
+        int[] offsets = compact.offsets;
+        int[] targets = compact.targets;
+        int count = 0;
+        for (int from = 0, size = compact.getVertexCount(); from < size; from++) {
+            for (int i = offsets[from], n = offsets[from + 1]; i < n; i++) {
+                if (redundant.get(i)) {
+                    graph.removeEdge(compact.getValue(from), compact.getValue(targets[i]));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 指定のグラフのうち、指定した頂点のみを持つ部分グラフを新しく作成して返す。
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param acceptor 部分グラフに含める頂点のみを許可するオブジェクト
+     * @return 生成した部分グラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> Graph<V> subgraph(
+            Graph<? extends V> graph,
+            Matcher<? super V> acceptor) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (acceptor == null) {
+            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        }
+        Graph<V> subgraph = newInstance();
+        Map<V, Boolean> accepted = new HashMap<V, Boolean>();
         for (V vertex : graph.getNodeSet()) {
             boolean matched = acceptor.matches(vertex);
             if (matched) {
@@ -444,8 +941,159 @@ public class Graphs {
         return subgraph;
     }
 
+    /**
+     * 指定のグラフのうち、指定した頂点のみを持つ部分グラフのビューを返す。
+     * <p>
+     * {@link #subgraph(Graph, Matcher)}と異なり、この操作は新しいグラフを構築せず、
+     * 各頂点が条件に合致するかどうかは、その頂点が参照された時点で判定する。
+     * このため、部分グラフの一部のみを探索する場合には、部分グラフ全体を構築するよりも高速に動作する。
+     * 元のグラフへの変更は返されるグラフにも反映される。
+     * 返されるグラフを変更する操作はいずれも{@link UnsupportedOperationException}をスローする。
+     * </p>
+     * <p>
+     * {@code cache}に{@code true}を指定した場合、返されるグラフは各頂点に対する判定結果を保持し、
+     * 同じ頂点について条件を再度判定しない。
+     * この場合、返されるグラフはスレッド安全でない。
+     * また、判定結果を保持した後に条件が変化しても、その変化は返されるグラフに反映されない。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param acceptor 部分グラフに含める頂点のみを許可するオブジェクト
+     * @param cache 判定結果を保持する場合は{@code true}、都度判定する場合は{@code false}
+     * @return 部分グラフのビュー
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see #subgraph(Graph, Matcher)
+     */
+    public static <V> Graph<V> subgraphView(
+            Graph<? extends V> graph,
+            Matcher<? super V> acceptor,
+            boolean cache) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (acceptor == null) {
+            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        }
+        return new Subgraph<V>(graph, acceptor, cache);
+    }
+
+    /**
+     * 指定のノードから別のノードまでの、経由する接続の個数が最小となる経路を返す。
+     * <p>
+     * 対象のグラフが接続元を効率よく参照できる{@link BidirectionalGraph}である場合、
+     * この操作は始点から接続先の方向へ、終点から接続元の方向へそれぞれ幅優先で探索し、
+     * 両者が出会った時点で経路を確定させる。
+     * 各段では発見済みで未展開のノードが少ない側のみを展開するため、
+     * 片側からのみ探索する場合に比べて、調べるノードの個数を大幅に減らせることが多い。
+     * それ以外のグラフに対しては、始点からのみ幅優先で探索する。
+     * なお、接続元の索引を持たない{@link HashGraph}は接続元の参照にグラフ全体の走査を要するため、
+     * 後者として扱う。
+     * </p>
+     * <p>
+     * 経路が複数存在する場合、そのいずれかを返す。
+     * 始点と終点が同じノードである場合、そのノードのみからなる経路を返す。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param from 始点のノード
+     * @param to 終点のノード
+     * @return 始点から終点までのノードの一覧 (両端を含む)、
+     *     経路が存在しない場合やいずれかのノードがグラフに含まれない場合は{@code null}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static <V> List<V> findPath(Graph<? extends V> graph, V from, V to) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (from == null) {
+            throw new IllegalArgumentException("from must not be null"); //$NON-NLS-1$
+        }
+        if (to == null) {
+            throw new IllegalArgumentException("to must not be null"); //$NON-NLS-1$
+        }
+        if (graph.contains(from) == false || graph.contains(to) == false) {
+            return null;
+        }
+        if (from.equals(to)) {
+            List<V> results = new ArrayList<V>(1);
+            results.add(from);
+            return results;
+        }
+        PathFrontier<V> forward = new PathFrontier<V>(from);
+        PathFrontier<V> backward = new PathFrontier<V>(to);
+        BidirectionalGraph<? extends V> predecessors = toPredecessorIndex(graph);
+        while (forward.isExhausted() == false) {
+            V meet;
+            if (predecessors == null || forward.size() <= backward.size()) {
+                meet = forward.expand(graph, false, backward);
+            }
+            else {
+                meet = backward.expand(predecessors, true, forward);
+            }
+            if (meet != null) {
+                List<V> results = forward.trace(meet);
+                Collections.reverse(results);
+                results.remove(results.size() - 1);
+                results.addAll(backward.trace(meet));
+                return results;
+            }
+            if (backward.isExhausted()) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 指定の重み付きグラフ上で、指定のノードを始点とする最短経路の一覧を求める。
+     * <p>
+     * この操作は、ノードの番号を要素とする索引付きの二分ヒープを利用したDijkstraのアルゴリズムで、
+     * 始点から到達可能な範囲のみを探索する。
+     * 始点から到達可能な接続の重みは、いずれも{@code 0}以上である必要がある。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @param source 始点のノード
+     * @return 最短経路の一覧
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     始点がグラフに含まれない場合、または探索中に負の重みを持つ接続が見つかった場合
+     */
+    public static <V> ShortestPaths<V> shortestPaths(WeightedGraph<V> graph, V source) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        int id = graph.getId(source);
+        if (id < 0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "source must be in the graph: {0}", //$NON-NLS-1$
+                    source));
+        }
+        return WeightedAlgorithms.computeShortestPaths(graph, id);
+    }
+
+    /**
+     * 指定の重み付きの非循環グラフ上で、接続の重みの合計が最大となる経路 (クリティカルパス) を求める。
+     * <p>
+     * この操作はグラフ全体を一度だけ後順に探索し、各ノードから始まる最長の経路を接続先から順に確定させる。
+     * 重みの合計が最大となる経路が複数存在する場合、そのいずれかを返す。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @return 重みの合計が最大となる経路、グラフが空の場合は空の経路
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、またはグラフに循環が含まれる場合
+     */
+    public static <V> WeightedPath<V> criticalPath(WeightedGraph<V> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        return WeightedAlgorithms.computeCriticalPath(graph);
+    }
+
     private static <V> List<V> computePostOrderByDepth(Graph<? extends V> graph) {
         assert graph != null;
+        if (graph instanceof CompactGraph<?>) {
+            return computePostOrderByDepth((CompactGraph<? extends V>) graph);
+        }
         List<V> results = new ArrayList<V>();
 
         Set<V> saw = new HashSet<V>();
@@ -471,6 +1119,113 @@ public class Graphs {
         return results;
     }
 
+    private static <V> List<V> computePostOrderByDepth(CompactGraph<? extends V> graph) {
+        assert graph != null;
+        int[] postorder = CompactAlgorithms.computePostOrder(graph.offsets, graph.targets);
+        List<V> results = new ArrayList<V>(postorder.length);
+        for (int id : postorder) {
+            results.add(graph.getValue(id));
+        }
+        return results;
+    }
+
+    private static <V> Set<V> collectAllConnected(
+            CompactGraph<? extends V> graph,
+            Collection<? extends V> startNodes) {
+        assert graph != null;
+        assert startNodes != null;
+        BitSet connected = CompactAlgorithms.collectAllConnected(
+                graph.offsets,
+                graph.targets,
+                toIds(graph, startNodes));
+        return toValueSet(graph, connected);
+    }
+
+    private static <V> Set<V> findNearest(
+            final CompactGraph<? extends V> graph,
+            Collection<? extends V> startNodes,
+            final Matcher<? super V> acceptor,
+            boolean collectPath) {
+        assert graph != null;
+        assert startNodes != null;
+        assert acceptor != null;
+        BitSet found = CompactAlgorithms.findNearest(
+                graph.offsets,
+                graph.targets,
+                toIds(graph, startNodes),
+                new IntMatcher() {
+                    @Override
+                    public boolean matches(int value) {
+                        return acceptor.matches(graph.getValue(value));
+                    }
+                },
+                collectPath);
+        return toValueSet(graph, found);
+    }
+
+    private static int[] toIds(CompactGraph<?> graph, Collection<?> nodes) {
+        assert graph != null;
+        assert nodes != null;
+        int[] results = new int[nodes.size()];
+        int count = 0;
+        for (Object node : nodes) {
+            int id = graph.getId(node);
+            if (id >= 0) {
+                results[count++] = id;
+            }
+        }
+        return Arrays.copyOf(results, count);
+    }
+
+    private static <V> Set<V> toValueSet(CompactGraph<? extends V> graph, BitSet ids) {
+        assert graph != null;
+        assert ids != null;
+        Set<V> results = new HashSet<V>(ids.cardinality() * 4 / 3 + 1);
+        for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            results.add(graph.getValue(i));
+        }
+        return results;
+    }
+
+    private static <V> Set<Set<V>> findStronglyConnectedComponents(CompactGraph<? extends V> graph) {
+        assert graph != null;
+        CompactAlgorithms.Components components =
+            CompactAlgorithms.findStronglyConnectedComponents(graph.offsets, graph.targets);
+        return toComponentSets(graph, components);
+    }
+
+    private static <V> CompactGraph<? extends V> toCompactGraph(Graph<? extends V> graph) {
+        assert graph != null;
+        if (graph instanceof CompactGraph<?>) {
+            return (CompactGraph<? extends V>) graph;
+        }
+        return freeze(graph);
+    }
+
+    private static BitSet findTransitiveEdges(CompactGraph<?> graph) {
+        assert graph != null;
+        BitSet results = CompactAlgorithms.findTransitiveEdges(graph.offsets, graph.targets);
+        if (results == null) {
+            throw new IllegalArgumentException("graph must be acyclic"); //$NON-NLS-1$
+        }
+        return results;
+    }
+
+    private static <V> Set<Set<V>> toComponentSets(
+            CompactGraph<? extends V> graph,
+            CompactAlgorithms.Components components) {
+        assert graph != null;
+        assert components != null;
+        List<Set<V>> results = new ArrayList<Set<V>>(components.count);
+        for (int i = 0; i < components.count; i++) {
+            results.add(new HashSet<V>());
+        }
+        for (int i = 0; i < components.ids.length; i++) {
+            results.get(components.ids[i]).add(graph.getValue(i));
+        }
+        return new HashSet<Set<V>>(results);
+    }
+
     private static <V> void findAllConnected(Graph<? extends V> graph, V start, Set<V> connected) {
         assert graph != null;
         assert connected != null;
@@ -495,6 +1250,35 @@ public class Graphs {
         }
     }
 
+    /**
+     * 指定のグラフが接続元を効率よく参照できる場合、そのグラフを{@link BidirectionalGraph}として返す。
+     * <p>
+     * 接続元の索引を持たない{@link HashGraph}は、接続元の参照にグラフ全体の走査を要するため対象外とする。
+     * </p>
+     * @param <V> ノードを識別する値
+     * @param graph 対象のグラフ
+     * @return 接続元を効率よく参照できる場合は対象のグラフ、そうでない場合は{@code null}
+     */
+    static <V> BidirectionalGraph<? extends V> toPredecessorIndex(Graph<? extends V> graph) {
+        assert graph != null;
+        if ((graph instanceof BidirectionalGraph<?>) == false) {
+            return null;
+        }
+        if (graph instanceof HashGraph<?> && ((HashGraph<?>) graph).isPredecessorIndexed() == false) {
+            return null;
+        }
+        return (BidirectionalGraph<? extends V>) graph;
+    }
+
+    private static Matcher<Object> expandAll() {
+        return new Matcher<Object>() {
+            @Override
+            public boolean matches(Object object) {
+                return true;
+            }
+        };
+    }
+
     /**
      * インスタンス生成の禁止。
      */
@@ -550,4 +1334,342 @@ public class Graphs {
             return new VisitFrame<V>(this, graph, nextNode, nextBranch);
         }
     }
+
+    /**
+     * 強連結成分を求める際に、グラフを渡り歩く経路を記憶するフレーム。
+     * @param <V> フレームで取り扱うノードの型
+     */
+    private static final class ComponentFrame<V> {
+
+        private final Graph<? extends V> graph;
+
+        /**
+         * このフレームの手前のフレーム (ボトムの場合は{@code null})。
+         */
+        final ComponentFrame<V> previous;
+
+        /**
+         * このフレームで取り扱うノードの値。
+         */
+        final V node;
+
+        /**
+         * このフレームで現在訪問しているneighborの一覧。
+         */
+        final Iterator<? extends V> branches;
+
+        /**
+         * このフレームで取り扱うノードの訪問順。
+         */
+        final int index;
+
+        /**
+         * このフレームで取り扱うノードを格納した、強連結成分候補のスタック上の位置。
+         */
+        final int depth;
+
+        /**
+         * このフレームで取り扱うノードから到達可能な、スタック上のノードの最小の訪問順。
+         */
+        int lowlink;
+
+        ComponentFrame(
+                ComponentFrame<V> previous,
+                Graph<? extends V> graph,
+                V node,
+                int index,
+                int depth) {
+            assert graph != null;
+            this.graph = graph;
+            this.previous = previous;
+            this.node = node;
+            this.branches = graph.getConnected(node).iterator();
+            this.index = index;
+            this.depth = depth;
+            this.lowlink = index;
+        }
+
+        static <V> ComponentFrame<V> build(Graph<? extends V> graph, V node, int index, int depth) {
+            assert graph != null;
+            return new ComponentFrame<V>(null, graph, node, index, depth);
+        }
+
+        ComponentFrame<V> push(V nextNode, int nextIndex, int nextDepth) {
+            return new ComponentFrame<V>(this, graph, nextNode, nextIndex, nextDepth);
+        }
+    }
+
+    /**
+     * 経路探索の片側で発見したノードと、未展開のノードを保持する。
+     * @param <V> ノードの型
+     */
+    private static final class PathFrontier<V> {
+
+        /**
+         * 発見したノードと、それを発見した際に展開していたノードおよび探索の起点からの距離。
+         */
+        private final Map<V, PathStep<V>> steps = new HashMap<V, PathStep<V>>();
+
+        /**
+         * 発見済みで、まだ展開していないノードの一覧。
+         */
+        private List<V> frontier = new ArrayList<V>();
+
+        PathFrontier(V start) {
+            assert start != null;
+            steps.put(start, new PathStep<V>(null, 0));
+            frontier.add(start);
+        }
+
+        int size() {
+            return frontier.size();
+        }
+
+        boolean isExhausted() {
+            return frontier.isEmpty();
+        }
+
+        /**
+         * 未展開のノードを全て展開し、もう一方の探索と出会ったノードを返す。
+         * <p>
+         * 出会ったノードが複数存在する場合、両側の距離の合計が最小となるものを返す。
+         * </p>
+         * @param graph 対象のグラフ
+         * @param reverse 接続元の方向へ展開する場合は{@code true}
+         * @param opposite もう一方の探索
+         * @return 出会ったノード、存在しない場合は{@code null}
+         */
+        V expand(Graph<? extends V> graph, boolean reverse, PathFrontier<V> opposite) {
+            assert graph != null;
+            assert opposite != null;
+            List<V> next = new ArrayList<V>();
+            V meet = null;
+            int best = Integer.MAX_VALUE;
+            for (V node : frontier) {
+                int depth = steps.get(node).depth + 1;
+                Set<? extends V> neighbors = reverse
+                    ? ((BidirectionalGraph<? extends V>) graph).getPredecessors(node)
+                    : graph.getConnected(node);
+                for (V neighbor : neighbors) {
+                    if (steps.containsKey(neighbor)) {
+                        continue;
+                    }
+                    steps.put(neighbor, new PathStep<V>(node, depth));
+                    next.add(neighbor);
+                    PathStep<V> other = opposite.steps.get(neighbor);
+                    if (other != null && depth + other.depth < best) {
+                        meet = neighbor;
+                        best = depth + other.depth;
+                    }
+                }
+            }
+            frontier = next;
+            return meet;
+        }
+
+        /**
+         * 指定のノードから探索の起点までのノードの一覧を返す。
+         * @param node 発見済みのノード
+         * @return 指定のノードから起点までのノードの一覧 (両端を含む)
+         */
+        List<V> trace(V node) {
+            assert steps.containsKey(node);
+            List<V> results = new ArrayList<V>();
+            for (V current = node; current != null; current = steps.get(current).link) {
+                results.add(current);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * 経路探索で発見したノードの情報。
+     * @param <V> ノードの型
+     */
+    private static final class PathStep<V> {
+
+        final V link;
+
+        final int depth;
+
+        PathStep(V link, int depth) {
+            this.link = link;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * ノードを幅優先で発見した順に列挙する反復子。
+     * @param <V> ノードの型
+     */
+    private static final class BreadthFirstIterator<V> implements Iterator<V> {
+
+        private final Graph<? extends V> graph;
+
+        private final Matcher<? super V> expander;
+
+        /**
+         * 発見済みで、まだ列挙していないノードの一覧。
+         */
+        private final LinkedList<V> queue = new LinkedList<V>();
+
+        private final Set<V> saw = new HashSet<V>();
+
+        BreadthFirstIterator(
+                Graph<? extends V> graph,
+                Collection<? extends V> startNodes,
+                Matcher<? super V> expander) {
+            assert graph != null;
+            assert startNodes != null;
+            assert expander != null;
+            this.graph = graph;
+            this.expander = expander;
+            for (V start : startNodes) {
+                if (graph.contains(start) && saw.add(start)) {
+                    queue.addLast(start);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return queue.isEmpty() == false;
+        }
+
+        @Override
+        public V next() {
+            if (queue.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            V node = queue.removeFirst();
+            if (expander.matches(node)) {
+                for (V next : graph.getConnected(node)) {
+                    if (saw.add(next)) {
+                        queue.addLast(next);
+                    }
+                }
+            }
+            return node;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * ノードを深さ優先で列挙する反復子。
+     * @param <V> ノードの型
+     */
+    private static final class DepthFirstIterator<V> implements Iterator<V> {
+
+        private final Graph<? extends V> graph;
+
+        private final Iterator<? extends V> starts;
+
+        private final boolean preOrder;
+
+        private final Matcher<? super V> expander;
+
+        private final Set<V> saw = new HashSet<V>();
+
+        /**
+         * 現在探索中の経路の末尾 (探索中でない場合は{@code null})。
+         */
+        private VisitFrame<V> top;
+
+        private V next;
+
+        private boolean prepared;
+
+        private boolean finished;
+
+        DepthFirstIterator(
+                Graph<? extends V> graph,
+                Collection<? extends V> startNodes,
+                VisitOrder order,
+                Matcher<? super V> expander) {
+            assert graph != null;
+            assert startNodes != null;
+            assert order != null;
+            assert expander != null;
+            this.graph = graph;
+            this.starts = startNodes.iterator();
+            this.preOrder = order == VisitOrder.PRE_ORDER;
+            this.expander = expander;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (prepared == false) {
+                prepare();
+            }
+            return finished == false;
+        }
+
+        @Override
+        public V next() {
+            if (hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            prepared = false;
+            V result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void prepare() {
+            assert prepared == false;
+            prepared = true;
+            while (true) {
+                if (top == null) {
+                    if (starts.hasNext() == false) {
+                        finished = true;
+                        return;
+                    }
+                    V start = starts.next();
+                    if (graph.contains(start) == false || saw.add(start) == false) {
+                        continue;
+                    }
+                    top = new VisitFrame<V>(null, graph, start, branches(start));
+                    if (preOrder) {
+                        next = start;
+                        return;
+                    }
+                }
+                else if (top.branches.hasNext()) {
+                    V node = top.branches.next();
+                    if (saw.add(node) == false) {
+                        continue;
+                    }
+                    top = new VisitFrame<V>(top, graph, node, branches(node));
+                    if (preOrder) {
+                        next = node;
+                        return;
+                    }
+                }
+                else {
+                    V node = top.node;
+                    top = top.previous;
+                    if (preOrder == false) {
+                        next = node;
+                        return;
+                    }
+                }
+            }
+        }
+
+        private Iterator<? extends V> branches(V node) {
+            if (expander.matches(node)) {
+                return graph.getConnected(node).iterator();
+            }
+            return Collections.<V>emptySet().iterator();
+        }
+    }
 }
@@ -25,24 +25,54 @@ import java.util.Set;
 
 /**
  * {@link HashMap}を利用した{@link Graph}の実装。
+ * <p>
+ * インスタンス生成時に接続元の索引を有効にした場合、各ノードは接続元のノードの一覧も保持する。
+ * このとき、{@link #getPredecessors(Object)}や{@link #removeNode(Object)}などの操作は
+ * 対象のノードに隣接するノードのみを参照するようになる。
+ * 索引を有効にしない場合、これらの操作はグラフ上の全てのノードを走査する。
+ * </p>
+ * <p>
+ * 各ノードの接続先 (および接続元) の一覧は、その要素数に応じて表現を切り替える集合で保持する。
+ * 接続先が少ないノードは{@link HashSet}を割り当てずに表現されるため、
+ * 大半のノードの次数が小さいグラフでは、ノードあたりのメモリ使用量が少なくなる。
+ * </p>
  * @param <V> ノードを識別する値の型
  */
-public class HashGraph<V> implements Graph<V> {
+public class HashGraph<V> implements BidirectionalGraph<V>, VersionedGraph<V> {
 
     private final HashMap<V, HashVertex<V>> entity;
 
+    private final boolean indexPredecessors;
+
+    private long version;
+
     /**
-     * インスタンスを生成する。
+     * 接続元の索引を持たないインスタンスを生成する。
      */
     public HashGraph() {
+        this(false);
+    }
+
+    /**
+     * インスタンスを生成する。
+     * @param indexPredecessors 接続元の索引を保持する場合は{@code true}、
+     *     保持しない場合は{@code false}
+     */
+    public HashGraph(boolean indexPredecessors) {
         this.entity = new HashMap<V, HashVertex<V>>();
+        this.indexPredecessors = indexPredecessors;
     }
 
     @Override
     public void addEdge(V from, V to) {
         HashVertex<V> vertex = prepare(from);
-        prepare(to);
-        vertex.to.add(to);
+        HashVertex<V> target = prepare(to);
+        if (vertex.to.add(to)) {
+            version++;
+            if (indexPredecessors) {
+                target.predecessors.add(from);
+            }
+        }
     }
 
     @Override
@@ -52,8 +82,13 @@ public class HashGraph<V> implements Graph<V> {
         }
         HashVertex<V> vertex = prepare(from);
         for (V v : to) {
-            prepare(v);
-            vertex.to.add(v);
+            HashVertex<V> target = prepare(v);
+            if (vertex.to.add(v)) {
+                version++;
+                if (indexPredecessors) {
+                    target.predecessors.add(from);
+                }
+            }
         }
     }
 
@@ -64,6 +99,9 @@ public class HashGraph<V> implements Graph<V> {
 
     @Override
     public void clear() {
+        if (entity.isEmpty() == false) {
+            version++;
+        }
         entity.clear();
     }
 
@@ -99,6 +137,32 @@ public class HashGraph<V> implements Graph<V> {
         return Collections.emptySet();
     }
 
+    @Override
+    public Set<V> getPredecessors(Object key) {
+        HashVertex<V> vertex = entity.get(key);
+        if (vertex == null) {
+            return Collections.emptySet();
+        }
+        if (indexPredecessors) {
+            return vertex.predecessors;
+        }
+        Set<V> results = new HashSet<V>();
+        for (HashVertex<V> other : entity.values()) {
+            if (other.to.contains(key)) {
+                results.add(other.from);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * このグラフが接続元の索引を保持している場合のみ{@code true}を返す。
+     * @return 接続元の索引を保持している場合は{@code true}
+     */
+    boolean isPredecessorIndexed() {
+        return indexPredecessors;
+    }
+
     @Override
     public Set<V> getNodeSet() {
         return entity.keySet();
@@ -128,25 +192,32 @@ public class HashGraph<V> implements Graph<V> {
 
     @Override
     public Iterator<Graph.Vertex<V>> iterator() {
-        return new IteratorWrapper<Vertex<V>>(entity.values().iterator());
+        return new IteratorWrapper(entity.values().iterator());
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
     }
 
     @Override
     public void removeEdge(Object from, Object to) {
         HashVertex<V> vertex = entity.get(from);
-        if (vertex != null) {
-            vertex.to.remove(to);
+        if (vertex != null && vertex.to.remove(to)) {
+            version++;
+            if (indexPredecessors) {
+                entity.get(to).predecessors.remove(from);
+            }
         }
     }
 
     @Override
     public void removeNode(Object node) {
-        if (entity.remove(node) == null) {
+        HashVertex<V> removed = entity.remove(node);
+        if (removed == null) {
             return;
         }
-        for (HashVertex<V> vertex : entity.values()) {
-            vertex.to.remove(node);
-        }
+        detach(removed);
     }
 
     @Override
@@ -154,9 +225,20 @@ public class HashGraph<V> implements Graph<V> {
         if (nodes == null) {
             throw new IllegalArgumentException("nodes is null"); //$NON-NLS-1$
         }
+        if (indexPredecessors) {
+            for (Object node : nodes) {
+                HashVertex<V> removed = entity.remove(node);
+                if (removed != null) {
+                    version++;
+                    unlink(removed);
+                }
+            }
+            return;
+        }
         if (entity.keySet().removeAll(nodes) == false) {
             return;
         }
+        version++;
         for (HashVertex<V> vertex : entity.values()) {
             vertex.to.removeAll(nodes);
         }
@@ -167,11 +249,45 @@ public class HashGraph<V> implements Graph<V> {
         return entity.values().toString();
     }
 
+    /**
+     * グラフから取り除いた頂点への接続を削除する。
+     * @param removed 取り除いた頂点
+     */
+    private void detach(HashVertex<V> removed) {
+        assert removed != null;
+        version++;
+        if (indexPredecessors) {
+            unlink(removed);
+            return;
+        }
+        for (HashVertex<V> vertex : entity.values()) {
+            vertex.to.remove(removed.from);
+        }
+    }
+
+    private void unlink(HashVertex<V> removed) {
+        assert removed != null;
+        assert indexPredecessors;
+        for (V predecessor : removed.predecessors) {
+            HashVertex<V> vertex = entity.get(predecessor);
+            if (vertex != null) {
+                vertex.to.remove(removed.from);
+            }
+        }
+        for (V successor : removed.to) {
+            HashVertex<V> vertex = entity.get(successor);
+            if (vertex != null) {
+                vertex.predecessors.remove(removed.from);
+            }
+        }
+    }
+
     private HashVertex<V> prepare(V node) {
         HashVertex<V> vertex = entity.get(node);
         if (vertex == null) {
-            vertex = new HashVertex<V>(node);
+            vertex = new HashVertex<V>(node, indexPredecessors);
             entity.put(node, vertex);
+            version++;
         }
         return vertex;
     }
@@ -192,14 +308,21 @@ public class HashGraph<V> implements Graph<V> {
          */
         final Set<V> to;
 
+        /**
+         * この頂点に接続しているノードに割り当てられた値 (索引を保持しない場合は{@code null})。
+         */
+        final Set<V> predecessors;
+
         /**
          * インスタンスを生成する。
          * @param node この頂点ノードに割り当てられた値
+         * @param indexPredecessors 接続元の一覧を保持する場合は{@code true}
          */
-        public HashVertex(V node) {
+        public HashVertex(V node, boolean indexPredecessors) {
             super();
             this.from = node;
-            this.to = new HashSet<V>();
+            this.to = new SmallSet<V>();
+            this.predecessors = indexPredecessors ? new SmallSet<V>() : null;
         }
 
         @Override
@@ -255,17 +378,22 @@ public class HashGraph<V> implements Graph<V> {
 
     /**
      * {@link Iterator}をラップして、型パラメータの制約を弱くするクラス。
-     * @param <V> 反復する値の型
+     * <p>
+     * {@link #remove()}は{@link HashGraph#removeNode(Object)}と同様に、
+     * 取り除いた頂点への接続も削除する。
+     * </p>
      */
-    private static final class IteratorWrapper<V> implements Iterator<V> {
+    private final class IteratorWrapper implements Iterator<Vertex<V>> {
+
+        private final Iterator<HashVertex<V>> iterator;
 
-        private final Iterator<? extends V> iterator;
+        private HashVertex<V> current;
 
         /**
          * インスタンスを生成する。
          * @param iterator ラップする反復子
          */
-        public IteratorWrapper(Iterator<? extends V> iterator) {
+        public IteratorWrapper(Iterator<HashVertex<V>> iterator) {
             assert iterator != null;
             this.iterator = iterator;
         }
@@ -276,13 +404,17 @@ public class HashGraph<V> implements Graph<V> {
         }
 
         @Override
-        public V next() {
-            return iterator.next();
+        public Vertex<V> next() {
+            current = iterator.next();
+            return current;
         }
 
         @Override
         public void remove() {
             iterator.remove();
+            HashVertex<V> removed = current;
+            current = null;
+            detach(removed);
         }
     }
 }
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * グラフ上の各ノードに対する計算結果を保持し、変更の影響を受けるノードのみを再計算する。
+ * <p>
+ * グラフ上の接続{@code a -> b}は、{@code a}の計算結果が{@code b}の計算結果に依存することを表す。
+ * {@link #update(Collection)}は、変更されたノードと、それらに直接または間接的に依存するノードを
+ * 再計算の候補とし、依存先から順に再計算する。
+ * 候補のノードのうち、依存先の計算結果がいずれも前回から変化していないものは再計算しない。
+ * </p>
+ * <p>
+ * 依存元のノードを求めるため、対象のグラフが接続元の索引を持つ{@link BidirectionalGraph}である場合は
+ * {@link BidirectionalGraph#getPredecessors(Object)}を利用する。
+ * そうでない場合は更新のたびにグラフ全体から依存元の索引を一度だけ構築するが、
+ * 対象のグラフが{@link VersionedGraph}であれば、グラフが変更されるまで索引を再利用する。
+ * </p>
+ * <p>
+ * このクラスのインスタンスはスレッド安全でない。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ * @param <R> 計算結果の型
+ */
+public class IncrementalEngine<V, R> {
+
+    private final Graph<V> graph;
+
+    private final Computation<V, R> computation;
+
+    private final Map<V, R> results = new HashMap<V, R>();
+
+    /**
+     * 再計算の候補となっているノード。
+     */
+    private final Set<V> dirty = new LinkedHashSet<V>();
+
+    /**
+     * 再計算が必要であると確定したノード。
+     */
+    private final Set<V> stale = new HashSet<V>();
+
+    /**
+     * 接続元を効率よく参照できる場合の対象のグラフ。
+     */
+    private final BidirectionalGraph<? extends V> predecessorIndex;
+
+    private Map<V, List<V>> predecessors;
+
+    private long predecessorsVersion;
+
+    /**
+     * インスタンスを生成する。
+     * @param graph 対象のグラフ
+     * @param computation 各ノードに対する計算
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public IncrementalEngine(Graph<V> graph, Computation<V, R> computation) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (computation == null) {
+            throw new IllegalArgumentException("computation must not be null"); //$NON-NLS-1$
+        }
+        this.graph = graph;
+        this.computation = computation;
+        this.predecessorIndex = Graphs.toPredecessorIndex(graph);
+    }
+
+    /**
+     * 指定のノードが変更されたものとして、影響を受けるノードの計算結果を更新する。
+     * <p>
+     * 指定のノードは必ず再計算される。
+     * 再計算するノードが依存するノードのうち、まだ計算結果を持たないものも併せて計算する。
+     * したがって、最初はグラフ上の全てのノードを指定して呼び出すとよい。
+     * </p>
+     * <p>
+     * グラフの接続を変更した場合、接続元のノードを変更されたノードとして指定する必要がある。
+     * グラフから削除されたノードを指定した場合、そのノードの計算結果は破棄される。
+     * </p>
+     * <p>
+     * 計算中に例外が発生した場合、まだ再計算されていないノードは次回の呼び出しで再計算の候補となる。
+     * </p>
+     * @param changed 変更されたノードの一覧
+     * @return 実際に再計算したノードの一覧 (再計算した順序)
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     または再計算の対象が循環を含む場合
+     */
+    public List<V> update(Collection<? extends V> changed) {
+        if (changed == null) {
+            throw new IllegalArgumentException("changed must not be null"); //$NON-NLS-1$
+        }
+        preparePredecessors();
+        for (V node : changed) {
+            if (graph.contains(node)) {
+                stale.add(node);
+                dirty.add(node);
+            }
+            else {
+                results.remove(node);
+            }
+        }
+        markDependents(changed);
+        List<V> order = sortDirty();
+        List<V> recomputed = new ArrayList<V>();
+        for (V node : order) {
+            if (stale.contains(node) || results.containsKey(node) == false) {
+                R previous = results.get(node);
+                boolean existed = results.containsKey(node);
+                R next = compute(node);
+                results.put(node, next);
+                recomputed.add(node);
+                if (existed == false || equals(previous, next) == false) {
+                    for (V dependent : getPredecessors(node)) {
+                        stale.add(dependent);
+                    }
+                }
+            }
+            stale.remove(node);
+            dirty.remove(node);
+        }
+        return recomputed;
+    }
+
+    /**
+     * 指定のノードに対する最新の計算結果を返す。
+     * @param node 対象のノード
+     * @return 計算結果、まだ計算されていない場合は{@code null}
+     */
+    public R get(Object node) {
+        return results.get(node);
+    }
+
+    /**
+     * 保持している全ての計算結果を返す。
+     * @return ノードと計算結果の対応表
+     */
+    public Map<V, R> getResults() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    private void markDependents(Collection<? extends V> changed) {
+        assert changed != null;
+        LinkedList<V> work = new LinkedList<V>();
+        for (V node : changed) {
+            if (graph.contains(node)) {
+                work.add(node);
+            }
+        }
+        Set<V> saw = new HashSet<V>();
+        while (work.isEmpty() == false) {
+            V node = work.removeFirst();
+            for (V dependent : getPredecessors(node)) {
+                if (saw.add(dependent)) {
+                    dirty.add(dependent);
+                    work.addLast(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * 再計算の候補と、それらが依存する未計算のノードを、依存先から順に並べて返す。
+     */
+    private List<V> sortDirty() {
+        List<V> results = new ArrayList<V>();
+        Set<V> finished = new HashSet<V>();
+        Set<V> active = new HashSet<V>();
+        for (V start : new ArrayList<V>(dirty)) {
+            if (finished.contains(start) || graph.contains(start) == false) {
+                continue;
+            }
+            LinkedList<V> nodes = new LinkedList<V>();
+            LinkedList<Iterator<V>> branches = new LinkedList<Iterator<V>>();
+            nodes.addFirst(start);
+            branches.addFirst(graph.getConnected(start).iterator());
+            active.add(start);
+            while (nodes.isEmpty() == false) {
+                Iterator<V> iter = branches.getFirst();
+                if (iter.hasNext()) {
+                    V next = iter.next();
+                    if (active.contains(next)) {
+                        throw new IllegalArgumentException(MessageFormat.format(
+                                "graph must be acyclic: {0}", //$NON-NLS-1$
+                                next));
+                    }
+                    if (finished.contains(next)) {
+                        continue;
+                    }
+                    if (dirty.contains(next) || this.results.containsKey(next) == false) {
+                        nodes.addFirst(next);
+                        branches.addFirst(graph.getConnected(next).iterator());
+                        active.add(next);
+                    }
+                }
+                else {
+                    V node = nodes.removeFirst();
+                    branches.removeFirst();
+                    active.remove(node);
+                    finished.add(node);
+                    results.add(node);
+                }
+            }
+        }
+        return results;
+    }
+
+    private R compute(V node) {
+        Map<V, R> inputs = new LinkedHashMap<V, R>();
+        for (V successor : graph.getConnected(node)) {
+            inputs.put(successor, results.get(successor));
+        }
+        return computation.compute(node, Collections.unmodifiableMap(inputs));
+    }
+
+    /**
+     * 今回の更新で利用する依存元の索引を用意する。
+     */
+    private void preparePredecessors() {
+        if (predecessorIndex != null) {
+            return;
+        }
+        if (predecessors == null
+                || (graph instanceof VersionedGraph<?>) == false
+                || ((VersionedGraph<?>) graph).getVersion() != predecessorsVersion) {
+            predecessors = buildPredecessors();
+            if (graph instanceof VersionedGraph<?>) {
+                predecessorsVersion = ((VersionedGraph<?>) graph).getVersion();
+            }
+        }
+    }
+
+    private Collection<? extends V> getPredecessors(V node) {
+        if (predecessorIndex != null) {
+            return predecessorIndex.getPredecessors(node);
+        }
+        assert predecessors != null;
+        List<V> found = predecessors.get(node);
+        if (found == null) {
+            return Collections.emptyList();
+        }
+        return found;
+    }
+
+    private Map<V, List<V>> buildPredecessors() {
+        Map<V, List<V>> results = new HashMap<V, List<V>>();
+        for (Graph.Vertex<V> vertex : graph) {
+            for (V successor : vertex.getConnected()) {
+                List<V> list = results.get(successor);
+                if (list == null) {
+                    list = new ArrayList<V>(2);
+                    results.put(successor, list);
+                }
+                list.add(vertex.getNode());
+            }
+        }
+        return results;
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * 各ノードに対する計算。
+     * @param <V> ノードを識別する値の型
+     * @param <R> 計算結果の型
+     */
+    public interface Computation<V, R> {
+
+        /**
+         * 指定のノードに対する計算を行う。
+         * @param node 対象のノード
+         * @param inputs 対象のノードが依存するノードと、それらの計算結果の対応表
+         * @return 計算結果
+         */
+        R compute(V node, Map<V, R> inputs);
+    }
+}
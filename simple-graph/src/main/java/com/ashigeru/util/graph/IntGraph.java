@@ -0,0 +1,357 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+/**
+ * {@code 0}以上の整数をノードとする有向グラフ。
+ * <p>
+ * このグラフは{@link Graph}と同様の操作を提供するが、ノードを整数のまま扱い、
+ * 各ノードの接続先を整数の開番地法のハッシュ集合で保持する。
+ * このため、{@code Graph<Integer>}のようにノードや接続ごとにオブジェクトを生成せず、
+ * ノードの番号が密である場合は特に少ないメモリで表現できる。
+ * このグラフに対するアルゴリズムは{@link IntGraphs}で提供する。
+ * </p>
+ * <p>
+ * 内部の表は最大のノードの番号に比例した大きさを持つ。
+ * </p>
+ * <p>
+ * このクラスのインスタンスはスレッド安全でない。
+ * </p>
+ */
+public class IntGraph {
+
+    private static final int[] EMPTY = new int[0];
+
+    private IntSet[] vertices;
+
+    private int limit;
+
+    private int nodeCount;
+
+    private int edgeCount;
+
+    /**
+     * 空のグラフを生成する。
+     */
+    public IntGraph() {
+        this.vertices = new IntSet[16];
+    }
+
+    /**
+     * 指定のノード間に接続を追加する。
+     * <p>
+     * この呼び出しはまず{@link #addNode(int)}によってそれぞれのノードを
+     * グラフに追加したのち、ノード間の接続を追加する。
+     * </p>
+     * @param from 接続元のノード
+     * @param to 接続先のノード
+     * @throws IllegalArgumentException いずれかのノードが負の値である場合
+     */
+    public void addEdge(int from, int to) {
+        IntSet successors = prepare(from);
+        prepare(to);
+        if (successors.add(to)) {
+            edgeCount++;
+        }
+    }
+
+    /**
+     * 指定のノードから、それぞれのノードへの接続を追加する。
+     * @param from 接続元のノード
+     * @param to 接続先のノードの一覧
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     またはいずれかのノードが負の値である場合
+     */
+    public void addEdges(int from, int... to) {
+        if (to == null) {
+            throw new IllegalArgumentException("to must not be null"); //$NON-NLS-1$
+        }
+        prepare(from);
+        for (int v : to) {
+            addEdge(from, v);
+        }
+    }
+
+    /**
+     * 指定のノードを追加する。
+     * <p>
+     * すでにノードが存在する場合は何も行わない。
+     * </p>
+     * @param node 追加するノード
+     * @throws IllegalArgumentException ノードが負の値である場合
+     */
+    public void addNode(int node) {
+        prepare(node);
+    }
+
+    /**
+     * このグラフの全てのノードと接続を削除する。
+     */
+    public void clear() {
+        Arrays.fill(vertices, 0, limit, null);
+        limit = 0;
+        nodeCount = 0;
+        edgeCount = 0;
+    }
+
+    /**
+     * 指定のノードがこのグラフに含まれる場合に{@code true}を返す。
+     * @param node 対象のノード
+     * @return 含まれる場合は{@code true}
+     */
+    public boolean contains(int node) {
+        return getSuccessors(node) != null;
+    }
+
+    /**
+     * 指定のノードの接続先を昇順に並べた配列を返す。
+     * @param node 対象のノード
+     * @return 接続先の一覧、ノードが存在しない場合は空の配列
+     */
+    public int[] getConnected(int node) {
+        IntSet successors = getSuccessors(node);
+        if (successors == null) {
+            return EMPTY;
+        }
+        return successors.toSortedArray();
+    }
+
+    /**
+     * 指定のノードの接続先の個数を返す。
+     * @param node 対象のノード
+     * @return 接続先の個数、ノードが存在しない場合は{@code 0}
+     */
+    public int getDegree(int node) {
+        IntSet successors = getSuccessors(node);
+        if (successors == null) {
+            return 0;
+        }
+        return successors.size();
+    }
+
+    /**
+     * このグラフに含まれるノードを昇順に並べた配列を返す。
+     * @return ノードの一覧
+     */
+    public int[] getNodes() {
+        int[] results = new int[nodeCount];
+        int count = 0;
+        for (int i = 0; i < limit; i++) {
+            if (vertices[i] != null) {
+                results[count++] = i;
+            }
+        }
+        assert count == nodeCount;
+        return results;
+    }
+
+    /**
+     * このグラフに含まれるノードの個数を返す。
+     * @return ノードの個数
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * このグラフに含まれる接続の個数を返す。
+     * @return 接続の個数
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * 指定のノード間に接続が存在する場合に{@code true}を返す。
+     * @param from 接続元のノード
+     * @param to 接続先のノード
+     * @return 接続が存在する場合は{@code true}
+     */
+    public boolean isConnected(int from, int to) {
+        IntSet successors = getSuccessors(from);
+        if (successors == null) {
+            return false;
+        }
+        return successors.contains(to);
+    }
+
+    /**
+     * このグラフにノードが含まれない場合に{@code true}を返す。
+     * @return ノードが含まれない場合は{@code true}
+     */
+    public boolean isEmpty() {
+        return nodeCount == 0;
+    }
+
+    /**
+     * 指定のノード間の接続を削除する。
+     * <p>
+     * 接続が存在しない場合は何も行わない。
+     * </p>
+     * @param from 接続元のノード
+     * @param to 接続先のノード
+     */
+    public void removeEdge(int from, int to) {
+        IntSet successors = getSuccessors(from);
+        if (successors != null && successors.remove(to)) {
+            edgeCount--;
+        }
+    }
+
+    /**
+     * 指定のノードと、そのノードに関する全ての接続を削除する。
+     * <p>
+     * この操作はグラフ上の全てのノードを走査する。
+     * </p>
+     * @param node 削除するノード
+     */
+    public void removeNode(int node) {
+        IntSet removed = getSuccessors(node);
+        if (removed == null) {
+            return;
+        }
+        vertices[node] = null;
+        nodeCount--;
+        edgeCount -= removed.size();
+        for (int i = 0; i < limit; i++) {
+            IntSet successors = vertices[i];
+            if (successors != null && successors.remove(node)) {
+                edgeCount--;
+            }
+        }
+    }
+
+    /**
+     * このグラフと同じ内容を持つ{@link Graph}を返す。
+     * @return 生成したグラフ
+     */
+    public Graph<Integer> toGraph() {
+        Graph<Integer> results = Graphs.newInstance();
+        for (int i = 0; i < limit; i++) {
+            IntSet successors = vertices[i];
+            if (successors != null) {
+                results.addNode(i);
+                for (int to : successors.slots) {
+                    if (to >= 0) {
+                        results.addEdge(i, to);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append('[');
+        for (int i = 0; i < limit; i++) {
+            if (vertices[i] != null) {
+                if (buf.length() > 1) {
+                    buf.append(", "); //$NON-NLS-1$
+                }
+                buf.append(i);
+                buf.append(" => "); //$NON-NLS-1$
+                buf.append(Arrays.toString(vertices[i].toSortedArray()));
+            }
+        }
+        buf.append(']');
+        return buf.toString();
+    }
+
+    /**
+     * ノードの番号の上限 (この値を含まない) を返す。
+     * @return ノードの番号の上限
+     */
+    int getIdLimit() {
+        return limit;
+    }
+
+    /**
+     * 指定のノードの接続先の集合を返す。
+     * @param node 対象のノード
+     * @return 接続先の集合、ノードが存在しない場合は{@code null}
+     */
+    IntSet getSuccessors(int node) {
+        if (node < 0 || node >= limit) {
+            return null;
+        }
+        return vertices[node];
+    }
+
+    /**
+     * 隣接関係を圧縮行形式に変換し、各ノードの接続先の開始位置を返す。
+     * <p>
+     * 存在しない番号のノードは接続先を持たないノードとして扱う。
+     * </p>
+     * @return 各ノードの接続先の開始位置 (要素数は{@link #getIdLimit()}{@code +1})
+     * @see #toTargets(int[])
+     */
+    int[] toOffsets() {
+        int[] offsets = new int[limit + 1];
+        for (int i = 0; i < limit; i++) {
+            IntSet successors = vertices[i];
+            offsets[i + 1] = offsets[i] + (successors == null ? 0 : successors.size());
+        }
+        return offsets;
+    }
+
+    /**
+     * 隣接関係を圧縮行形式に変換し、各ノードの接続先を返す。
+     * @param offsets {@link #toOffsets()}で計算した開始位置
+     * @return 各ノードの接続先
+     */
+    int[] toTargets(int[] offsets) {
+        int[] targets = new int[offsets[limit]];
+        for (int i = 0; i < limit; i++) {
+            IntSet successors = vertices[i];
+            if (successors != null) {
+                int position = offsets[i];
+                for (int to : successors.slots) {
+                    if (to >= 0) {
+                        targets[position++] = to;
+                    }
+                }
+                assert position == offsets[i + 1];
+            }
+        }
+        return targets;
+    }
+
+    private IntSet prepare(int node) {
+        if (node < 0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "node must not be negative: {0}", //$NON-NLS-1$
+                    String.valueOf(node)));
+        }
+        if (node >= vertices.length) {
+            vertices = Arrays.copyOf(vertices, Math.max(node + 1, vertices.length * 2));
+        }
+        if (node >= limit) {
+            limit = node + 1;
+        }
+        IntSet successors = vertices[node];
+        if (successors == null) {
+            successors = new IntSet();
+            vertices[node] = successors;
+            nodeCount++;
+        }
+        return successors;
+    }
+}
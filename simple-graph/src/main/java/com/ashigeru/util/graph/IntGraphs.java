@@ -0,0 +1,342 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * {@link IntGraph}に関する操作を行うライブラリ。
+ * <p>
+ * それぞれの操作は{@link Graphs}の同名の操作と同じ結果を返すが、
+ * ノードの集合を{@link BitSet}や整数の配列で表し、探索中にノードを表すオブジェクトを生成しない。
+ * </p>
+ */
+public class IntGraphs {
+
+    /**
+     * 指定のグラフと同じ内容を持つ新しいグラフを返す。
+     * @param graph 対象のグラフ
+     * @return 生成したグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static IntGraph copy(IntGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        IntGraph results = new IntGraph();
+        for (int i = 0, n = graph.getIdLimit(); i < n; i++) {
+            IntSet successors = graph.getSuccessors(i);
+            if (successors != null) {
+                results.addNode(i);
+                for (int to : successors.slots) {
+                    if (to >= 0) {
+                        results.addEdge(i, to);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 指定のグラフに含まれるノードのうち、先行するノードが存在しないものの一覧を返す。
+     * @param graph 対象のグラフ
+     * @return 先行するノードが存在しないノードの集合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#collectHeads(Graph)
+     */
+    public static BitSet collectHeads(IntGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        int limit = graph.getIdLimit();
+        BitSet results = new BitSet(limit);
+        for (int i = 0; i < limit; i++) {
+            if (graph.getSuccessors(i) != null) {
+                results.set(i);
+            }
+        }
+        for (int i = 0; i < limit; i++) {
+            IntSet successors = graph.getSuccessors(i);
+            if (successors != null) {
+                for (int to : successors.slots) {
+                    if (to >= 0) {
+                        results.clear(to);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 指定のグラフに含まれるノードのうち、後続するノードが存在しないものの一覧を返す。
+     * @param graph 対象のグラフ
+     * @return 後続するノードが存在しないノードの集合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#collectTails(Graph)
+     */
+    public static BitSet collectTails(IntGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        int limit = graph.getIdLimit();
+        BitSet results = new BitSet(limit);
+        for (int i = 0; i < limit; i++) {
+            IntSet successors = graph.getSuccessors(i);
+            if (successors != null && successors.size() == 0) {
+                results.set(i);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 指定のノード一覧から直接または間接的に後続する全てのノードを返す。
+     * <p>
+     * 開始ノード自身は、いずれかの開始ノードから到達可能である場合のみ結果に含まれる。
+     * </p>
+     * @param graph 対象のグラフ
+     * @param startNodes 開始ノードの一覧
+     * @return 後続する全てのノードの集合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#collectAllConnected(Graph, java.util.Collection)
+     */
+    public static BitSet collectAllConnected(IntGraph graph, int... startNodes) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        return traverse(graph, startNodes, null, false);
+    }
+
+    /**
+     * 指定の開始ノードを起点に、後続するノードの中から条件に合致するノードの一覧を返す。
+     * <p>
+     * 条件に合致したノードより先は探索しない。
+     * </p>
+     * @param graph 対象のグラフ
+     * @param startNodes 開始ノードの一覧
+     * @param acceptor 利用する条件
+     * @return 後続するノードのうち条件に合致するノードの集合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#findNearest(Graph, java.util.Collection, Matcher)
+     */
+    public static BitSet findNearest(IntGraph graph, int[] startNodes, IntMatcher acceptor) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (acceptor == null) {
+            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        }
+        return traverse(graph, startNodes, acceptor, false);
+    }
+
+    /**
+     * 指定の開始ノードを起点に、後続するノードの中から条件に合致するノードの一覧と、
+     * そこまでのノードの一覧を返す。
+     * @param graph 対象のグラフ
+     * @param startNodes 開始ノードの一覧
+     * @param acceptor 利用する条件
+     * @return 後続するノードのうち条件に合致するノードと、そこまでのノードの集合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#collectNearest(Graph, java.util.Collection, Matcher)
+     */
+    public static BitSet collectNearest(IntGraph graph, int[] startNodes, IntMatcher acceptor) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (acceptor == null) {
+            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        }
+        return traverse(graph, startNodes, acceptor, true);
+    }
+
+    /**
+     * 指定の有向グラフに含まれる強連結成分を列挙する。
+     * @param graph 対象のグラフ
+     * @return 強連結成分の一覧 (それぞれの強連結成分はノードを昇順に並べた配列)
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#findStronglyConnectedComponents(Graph)
+     */
+    public static int[][] findStronglyConnectedComponents(IntGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        int[] offsets = graph.toOffsets();
+        int[] targets = graph.toTargets(offsets);
+        CompactAlgorithms.Components components =
+            CompactAlgorithms.findStronglyConnectedComponents(offsets, targets);
+        int[] sizes = new int[components.count];
+        for (int i = 0; i < components.ids.length; i++) {
+            if (graph.contains(i)) {
+                sizes[components.ids[i]]++;
+            }
+        }
+        int[][] members = new int[components.count][];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new int[sizes[i]];
+        }
+        Arrays.fill(sizes, 0);
+        for (int i = 0; i < components.ids.length; i++) {
+            if (graph.contains(i)) {
+                int id = components.ids[i];
+                members[id][sizes[id]++] = i;
+            }
+        }
+        // 存在しないノードは単独の強連結成分となるため、空の強連結成分を取り除く
+        List<int[]> results = new ArrayList<int[]>(graph.getNodeCount());
+        for (int[] component : members) {
+            if (component.length > 0) {
+                results.add(component);
+            }
+        }
+        return results.toArray(new int[results.size()][]);
+    }
+
+    /**
+     * 指定の有向グラフ内で循環する要素の集合を検出して返す。
+     * @param graph 対象のグラフ
+     * @return 循環する要素の一覧 (それぞれの要素はノードを昇順に並べた配列)
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#findCircuit(Graph)
+     */
+    public static int[][] findCircuit(IntGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        List<int[]> results = new ArrayList<int[]>();
+        for (int[] component : findStronglyConnectedComponents(graph)) {
+            if (component.length >= 2 || graph.isConnected(component[0], component[0])) {
+                results.add(component);
+            }
+        }
+        return results.toArray(new int[results.size()][]);
+    }
+
+    /**
+     * 指定の有向グラフに含まれるノードの一覧を、接続の末尾から順に列挙する。
+     * @param graph 対象のグラフ
+     * @return ノードの一覧を接続の末尾から順に並べた配列
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#sortPostOrder(Graph)
+     */
+    public static int[] sortPostOrder(IntGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        int[] offsets = graph.toOffsets();
+        int[] targets = graph.toTargets(offsets);
+        int[] order = CompactAlgorithms.computePostOrder(offsets, targets);
+        int[] results = new int[graph.getNodeCount()];
+        int count = 0;
+        for (int node : order) {
+            if (graph.contains(node)) {
+                results[count++] = node;
+            }
+        }
+        assert count == results.length;
+        return results;
+    }
+
+    /**
+     * 指定のグラフに含まれるエッジを転置した新しいグラフを返す。
+     * @param graph 対象のグラフ
+     * @return 生成したグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     * @see Graphs#transpose(Graph)
+     */
+    public static IntGraph transpose(IntGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        IntGraph results = new IntGraph();
+        for (int i = 0, n = graph.getIdLimit(); i < n; i++) {
+            IntSet successors = graph.getSuccessors(i);
+            if (successors != null) {
+                results.addNode(i);
+                for (int to : successors.slots) {
+                    if (to >= 0) {
+                        results.addEdge(to, i);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static BitSet traverse(
+            IntGraph graph,
+            int[] startNodes,
+            IntMatcher acceptor,
+            boolean collectPath) {
+        assert graph != null;
+        assert startNodes != null;
+        int limit = graph.getIdLimit();
+        BitSet saw = new BitSet(limit);
+        BitSet results = new BitSet(limit);
+        int[] queue = new int[Math.max(limit, 1)];
+        int tail = 0;
+        for (int start : startNodes) {
+            IntSet successors = graph.getSuccessors(start);
+            if (successors == null) {
+                continue;
+            }
+            for (int next : successors.slots) {
+                if (next >= 0 && saw.get(next) == false) {
+                    saw.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            if (acceptor != null && acceptor.matches(node)) {
+                // 該当するノードならば結果に追加し、以降の探索を打ち切り
+                results.set(node);
+                continue;
+            }
+            if (acceptor == null || collectPath) {
+                results.set(node);
+            }
+            for (int next : graph.getSuccessors(node).slots) {
+                if (next >= 0 && saw.get(next) == false) {
+                    saw.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * インスタンス生成の禁止。
+     */
+    private IntGraphs() {
+        throw new AssertionError();
+    }
+}
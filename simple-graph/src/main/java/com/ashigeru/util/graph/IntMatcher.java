@@ -0,0 +1,30 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+/**
+ * 特定の整数が条件に合致するどうか判断するインターフェース。
+ * @see Matcher
+ */
+public interface IntMatcher {
+
+    /**
+     * 指定の値がこの条件に合致する場合に{@code true}を返す。
+     * @param value 対象の値
+     * @return 指定の値がこの条件に合致する場合に{@code true}、そうでない場合は{@code false}
+     */
+    boolean matches(int value);
+}
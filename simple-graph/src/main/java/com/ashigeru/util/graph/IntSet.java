@@ -0,0 +1,178 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.Arrays;
+
+/**
+ * {@code 0}以上の整数を要素とする、開番地法のハッシュ集合。
+ * <p>
+ * 要素は{@link #slots}に直接格納され、空きは{@link #FREE}、
+ * 削除済みの位置は{@link #REMOVED}で表す。
+ * 探索する側は{@link #slots}を走査し、{@code 0}以上の値のみを要素として扱えばよい。
+ * </p>
+ */
+final class IntSet {
+
+    /**
+     * 空きを表す値。
+     */
+    static final int FREE = -1;
+
+    /**
+     * 削除済みの位置を表す値。
+     */
+    static final int REMOVED = -2;
+
+    /**
+     * 要素を格納する表 (大きさは{@code 2}の累乗)。
+     */
+    int[] slots;
+
+    private int size;
+
+    /**
+     * 要素または削除済みの位置の個数。
+     */
+    private int used;
+
+    /**
+     * 空の集合を生成する。
+     */
+    IntSet() {
+        this.slots = new int[4];
+        Arrays.fill(slots, FREE);
+    }
+
+    /**
+     * 要素の個数を返す。
+     * @return 要素の個数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 指定の要素が含まれる場合に{@code true}を返す。
+     * @param value 対象の要素
+     * @return 含まれる場合に{@code true}
+     */
+    boolean contains(int value) {
+        int[] table = slots;
+        int mask = table.length - 1;
+        for (int slot = hash(value) & mask; table[slot] != FREE; slot = (slot + 1) & mask) {
+            if (table[slot] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 要素を追加する。
+     * @param value 追加する要素 ({@code 0}以上)
+     * @return 要素を追加した場合は{@code true}、すでに含まれていた場合は{@code false}
+     */
+    boolean add(int value) {
+        assert value >= 0;
+        int[] table = slots;
+        int mask = table.length - 1;
+        int reuse = -1;
+        int slot = hash(value) & mask;
+        for (; table[slot] != FREE; slot = (slot + 1) & mask) {
+            int current = table[slot];
+            if (current == value) {
+                return false;
+            }
+            if (current == REMOVED && reuse < 0) {
+                reuse = slot;
+            }
+        }
+        if (reuse >= 0) {
+            table[reuse] = value;
+            size++;
+            return true;
+        }
+        table[slot] = value;
+        size++;
+        used++;
+        if (used * 4 > table.length * 3) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * 要素を削除する。
+     * @param value 削除する要素
+     * @return 要素を削除した場合は{@code true}、含まれていなかった場合は{@code false}
+     */
+    boolean remove(int value) {
+        int[] table = slots;
+        int mask = table.length - 1;
+        for (int slot = hash(value) & mask; table[slot] != FREE; slot = (slot + 1) & mask) {
+            if (table[slot] == value) {
+                table[slot] = REMOVED;
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 要素を昇順に並べた配列を返す。
+     * @return 要素の一覧
+     */
+    int[] toSortedArray() {
+        int[] results = new int[size];
+        int count = 0;
+        for (int value : slots) {
+            if (value >= 0) {
+                results[count++] = value;
+            }
+        }
+        assert count == size;
+        Arrays.sort(results);
+        return results;
+    }
+
+    private void rehash() {
+        int capacity = slots.length;
+        while (size * 2 >= capacity) {
+            capacity *= 2;
+        }
+        int[] table = new int[capacity];
+        Arrays.fill(table, FREE);
+        int mask = capacity - 1;
+        for (int value : slots) {
+            if (value >= 0) {
+                int slot = hash(value) & mask;
+                while (table[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+        slots = table;
+        used = size;
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
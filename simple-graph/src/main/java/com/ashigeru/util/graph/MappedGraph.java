@@ -0,0 +1,584 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * ファイルに保存したグラフを、メモリに写像したまま参照する{@link Graph}の実装。
+ * <p>
+ * {@link #write(Graph, File)}はグラフを次の形式でファイルに保存する。
+ * 数値は全てリトルエンディアンで表現する。
+ * </p>
+ * <table border="1">
+ * <tr><th>内容</th><th>形式</th></tr>
+ * <tr><td>識別子</td><td>8バイト ({@code "SGRAPH\0\1"})</td></tr>
+ * <tr><td>形式の版</td><td>{@code int}</td></tr>
+ * <tr><td>ノード数 {@code n}</td><td>{@code int}</td></tr>
+ * <tr><td>接続数 {@code m}</td><td>{@code int}</td></tr>
+ * <tr><td>ハッシュ表の大きさ {@code h}</td><td>{@code int}</td></tr>
+ * <tr><td>名前の総バイト数 {@code b}</td><td>{@code int}</td></tr>
+ * <tr><td>以降の内容のCRC32</td><td>{@code int}</td></tr>
+ * <tr><td>各ノードの接続先の開始位置</td><td>{@code int[n+1]}</td></tr>
+ * <tr><td>各ノードの接続先の番号 (ノードごとに昇順)</td><td>{@code int[m]}</td></tr>
+ * <tr><td>各ノードの名前の開始位置</td><td>{@code int[n+1]}</td></tr>
+ * <tr><td>名前のハッシュ表 (ノードの番号{@code +1}、空きは{@code 0})</td><td>{@code int[h]}</td></tr>
+ * <tr><td>各ノードの名前 (UTF-8)</td><td>{@code byte[b]}</td></tr>
+ * </table>
+ * <p>
+ * {@link #open(File)}はこのファイルをメモリに写像し、グラフの内容を復元せずに
+ * 写像した領域から直接接続先や接続の有無を求める。
+ * ノードの名前は、はじめて参照された際に文字列に変換して保持する。
+ * </p>
+ * <p>
+ * このグラフを変更する操作はいずれも{@link UnsupportedOperationException}をスローする。
+ * このクラスのインスタンスは、複数のスレッドから同時に利用できる。
+ * </p>
+ */
+public final class MappedGraph extends GraphView<String> {
+
+    private static final byte[] MAGIC = { 'S', 'G', 'R', 'A', 'P', 'H', 0, 1 };
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = MAGIC.length + 4 * 6;
+
+    private static final Charset ENCODING = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+    private static final int FNV_OFFSET = 0x811C9DC5;
+
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final ByteBuffer buffer;
+
+    private final int vertexCount;
+
+    private final int offsetsBase;
+
+    private final int targetsBase;
+
+    private final int namesBase;
+
+    private final int tableBase;
+
+    private final int tableSize;
+
+    private final int dataBase;
+
+    private final String[] names;
+
+    private final Set<String> nodeSet;
+
+    private MappedGraph(ByteBuffer buffer, int vertexCount, int edgeCount, int tableSize) {
+        assert buffer != null;
+        this.buffer = buffer;
+        this.vertexCount = vertexCount;
+        this.offsetsBase = HEADER_SIZE;
+        this.targetsBase = offsetsBase + (vertexCount + 1) * 4;
+        this.namesBase = targetsBase + edgeCount * 4;
+        this.tableBase = namesBase + (vertexCount + 1) * 4;
+        this.tableSize = tableSize;
+        this.dataBase = tableBase + tableSize * 4;
+        this.names = new String[vertexCount];
+        this.nodeSet = new IdSet(0, vertexCount, false);
+    }
+
+    /**
+     * 指定のグラフを、指定のファイルに保存する。
+     * @param graph 対象のグラフ
+     * @param file 保存先のファイル
+     * @throws IOException ファイルへの書き出しに失敗した場合、
+     *     またはグラフが大きすぎてこの形式で表現できない場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     またはグラフが{@code null}のノードを含む場合
+     */
+    public static void write(Graph<String> graph, File file) throws IOException {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        Set<String> nodes = graph.getNodeSet();
+        int size = nodes.size();
+        String[] values = new String[size];
+        byte[][] encoded = new byte[size][];
+        Map<String, Integer> ids = new HashMap<String, Integer>(size * 4 / 3 + 1);
+        long nameBytes = 0;
+        int index = 0;
+        for (String node : nodes) {
+            if (node == null) {
+                throw new IllegalArgumentException("graph must not contain null"); //$NON-NLS-1$
+            }
+            values[index] = node;
+            encoded[index] = node.getBytes(ENCODING);
+            nameBytes += encoded[index].length;
+            ids.put(node, index);
+            index++;
+        }
+        long edgeCount = 0;
+        for (String node : values) {
+            edgeCount += graph.getConnected(node).size();
+        }
+        int tableSize = tableSize(size);
+        long total = HEADER_SIZE + (size + 1) * 8L + edgeCount * 4L + tableSize * 4L + nameBytes;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException(MessageFormat.format(
+                    "graph is too large to write: {0} bytes", //$NON-NLS-1$
+                    total));
+        }
+
+        RandomAccessFile output = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+        try {
+            output.setLength(0);
+            FileChannel channel = output.getChannel();
+            Writer writer = new Writer(channel, HEADER_SIZE);
+
+            int offset = 0;
+            writer.putInt(offset);
+            for (String node : values) {
+                offset += graph.getConnected(node).size();
+                writer.putInt(offset);
+            }
+            for (String node : values) {
+                Set<String> connected = graph.getConnected(node);
+                int[] targets = new int[connected.size()];
+                int position = 0;
+                for (String to : connected) {
+                    targets[position++] = ids.get(to);
+                }
+                Arrays.sort(targets);
+                for (int target : targets) {
+                    writer.putInt(target);
+                }
+            }
+            int nameOffset = 0;
+            writer.putInt(nameOffset);
+            for (byte[] name : encoded) {
+                nameOffset += name.length;
+                writer.putInt(nameOffset);
+            }
+            int[] table = new int[tableSize];
+            for (int id = 0; id < size; id++) {
+                int slot = hash(encoded[id], 0, encoded[id].length) & (tableSize - 1);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (tableSize - 1);
+                }
+                table[slot] = id + 1;
+            }
+            for (int entry : table) {
+                writer.putInt(entry);
+            }
+            for (byte[] name : encoded) {
+                writer.putBytes(name);
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC);
+            header.putInt(FORMAT_VERSION);
+            header.putInt(size);
+            header.putInt((int) edgeCount);
+            header.putInt(tableSize);
+            header.putInt((int) nameBytes);
+            header.putInt((int) writer.checksum.getValue());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    /**
+     * 指定のファイルをメモリに写像し、その内容を表すグラフを返す。
+     * <p>
+     * この操作はファイル全体のチェックサムを検証する。
+     * </p>
+     * @param file 対象のファイル
+     * @return ファイルの内容を表すグラフ
+     * @throws IOException ファイルの読み出しに失敗した場合、またはファイルの形式が正しくない場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static MappedGraph open(File file) throws IOException {
+        return open(file, true);
+    }
+
+    /**
+     * 指定のファイルをメモリに写像し、その内容を表すグラフを返す。
+     * <p>
+     * {@code verify}に{@code false}を指定した場合、この操作はヘッダのみを検証し、
+     * ファイルの大きさによらずほぼ一定の時間で完了する。
+     * </p>
+     * @param file 対象のファイル
+     * @param verify ファイル全体のチェックサムを検証する場合は{@code true}
+     * @return ファイルの内容を表すグラフ
+     * @throws IOException ファイルの読み出しに失敗した場合、またはファイルの形式が正しくない場合
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public static MappedGraph open(File file, boolean verify) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        RandomAccessFile input = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+        MappedByteBuffer buffer;
+        try {
+            FileChannel channel = input.getChannel();
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                throw new IOException(MessageFormat.format(
+                        "invalid graph file size: {0} ({1})", //$NON-NLS-1$
+                        length,
+                        file));
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+        finally {
+            input.close();
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                throw new IOException(MessageFormat.format(
+                        "invalid graph file: {0}", //$NON-NLS-1$
+                        file));
+            }
+        }
+        int position = MAGIC.length;
+        int formatVersion = buffer.getInt(position);
+        int vertexCount = buffer.getInt(position + 4);
+        int edgeCount = buffer.getInt(position + 8);
+        int tableSize = buffer.getInt(position + 12);
+        int nameBytes = buffer.getInt(position + 16);
+        int checksum = buffer.getInt(position + 20);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException(MessageFormat.format(
+                    "unsupported graph file version: {0} ({1})", //$NON-NLS-1$
+                    formatVersion,
+                    file));
+        }
+        long expected = HEADER_SIZE + (vertexCount + 1L) * 8L + edgeCount * 4L + tableSize * 4L + nameBytes;
+        if (vertexCount < 0 || edgeCount < 0 || nameBytes < 0
+                || tableSize < tableSize(vertexCount) || Integer.bitCount(tableSize) != 1
+                || expected != buffer.capacity()) {
+            throw new IOException(MessageFormat.format(
+                    "broken graph file: {0}", //$NON-NLS-1$
+                    file));
+        }
+        if (verify) {
+            CRC32 crc = new CRC32();
+            byte[] block = new byte[8192];
+            ByteBuffer body = buffer.duplicate();
+            body.position(HEADER_SIZE);
+            while (body.hasRemaining()) {
+                int count = Math.min(block.length, body.remaining());
+                body.get(block, 0, count);
+                crc.update(block, 0, count);
+            }
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException(MessageFormat.format(
+                        "checksum mismatch: {0}", //$NON-NLS-1$
+                        file));
+            }
+        }
+        return new MappedGraph(buffer, vertexCount, edgeCount, tableSize);
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        return getId(node) >= 0;
+    }
+
+    @Override
+    public Set<String> getConnected(Object key) {
+        int id = getId(key);
+        if (id < 0) {
+            return Collections.emptySet();
+        }
+        return new IdSet(offset(id), offset(id + 1), true);
+    }
+
+    @Override
+    public Set<String> getNodeSet() {
+        return nodeSet;
+    }
+
+    @Override
+    public boolean isConnected(Object from, Object to) {
+        int source = getId(from);
+        if (source < 0) {
+            return false;
+        }
+        int target = getId(to);
+        if (target < 0) {
+            return false;
+        }
+        return search(offset(source), offset(source + 1), target) >= 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return vertexCount == 0;
+    }
+
+    @Override
+    public Iterator<Graph.Vertex<String>> iterator() {
+        return new ConvertIterator<Integer, Graph.Vertex<String>>(new RangeIterator(0, vertexCount)) {
+            @Override
+            Graph.Vertex<String> convert(Integer id) {
+                return new ViewVertex<String>(getName(id), new IdSet(offset(id), offset(id + 1), true));
+            }
+        };
+    }
+
+    int getId(Object node) {
+        if ((node instanceof String) == false) {
+            return -1;
+        }
+        byte[] bytes = ((String) node).getBytes(ENCODING);
+        int mask = tableSize - 1;
+        for (int slot = hash(bytes, 0, bytes.length) & mask;; slot = (slot + 1) & mask) {
+            int entry = buffer.getInt(tableBase + slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            int id = entry - 1;
+            if (matches(id, bytes)) {
+                return id;
+            }
+        }
+    }
+
+    String getName(int id) {
+        String name = names[id];
+        if (name == null) {
+            int begin = buffer.getInt(namesBase + id * 4);
+            int end = buffer.getInt(namesBase + (id + 1) * 4);
+            byte[] bytes = new byte[end - begin];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(dataBase + begin + i);
+            }
+            name = new String(bytes, ENCODING);
+            names[id] = name;
+        }
+        return name;
+    }
+
+    private boolean matches(int id, byte[] bytes) {
+        int begin = buffer.getInt(namesBase + id * 4);
+        int end = buffer.getInt(namesBase + (id + 1) * 4);
+        if (end - begin != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(dataBase + begin + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int offset(int id) {
+        return buffer.getInt(offsetsBase + id * 4);
+    }
+
+    private int target(int index) {
+        return buffer.getInt(targetsBase + index * 4);
+    }
+
+    private int search(int begin, int end, int target) {
+        int low = begin;
+        int high = end - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = target(middle);
+            if (value < target) {
+                low = middle + 1;
+            }
+            else if (value > target) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static int tableSize(int vertexCount) {
+        int size = 1;
+        while (size < vertexCount * 2L) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = FNV_OFFSET;
+        for (int i = offset, n = offset + length; i < n; i++) {
+            hash ^= bytes[i] & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 番号の範囲に対応するノードの集合。
+     */
+    private final class IdSet extends AbstractSet<String> {
+
+        private final int begin;
+
+        private final int end;
+
+        /**
+         * 接続先の番号の範囲を表す場合は{@code true}、ノードの番号の範囲を表す場合は{@code false}。
+         */
+        private final boolean adjacent;
+
+        IdSet(int begin, int end, boolean adjacent) {
+            this.begin = begin;
+            this.end = end;
+            this.adjacent = adjacent;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int id = getId(o);
+            if (id < 0) {
+                return false;
+            }
+            if (adjacent) {
+                return search(begin, end, id) >= 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new ConvertIterator<Integer, String>(new RangeIterator(begin, end)) {
+                @Override
+                String convert(Integer index) {
+                    return getName(adjacent ? target(index) : index);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - begin;
+        }
+    }
+
+    /**
+     * 整数の範囲を順に返す反復子。
+     */
+    private static final class RangeIterator implements Iterator<Integer> {
+
+        private int next;
+
+        private final int end;
+
+        RangeIterator(int begin, int end) {
+            this.next = begin;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public Integer next() {
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+            return next++;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * チェックサムを計算しながらリトルエンディアンで書き出す。
+     */
+    private static final class Writer {
+
+        final CRC32 checksum = new CRC32();
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        private long position;
+
+        Writer(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (buffer.hasRemaining() == false) {
+                    flush();
+                }
+                int count = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
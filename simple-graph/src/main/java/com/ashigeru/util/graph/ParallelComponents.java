@@ -0,0 +1,395 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 強連結成分を並列に列挙する。
+ * <p>
+ * 最初に入次数または出次数が{@code 0}のノードを並列に取り除き (trim)、
+ * 残りのノードに対して forward-backward アルゴリズムを適用する。
+ * forward-backward アルゴリズムでは、ある部分集合から選んだ基点ノードについて
+ * 前方と後方に到達可能なノードを求め、その共通部分を一つの強連結成分とする。
+ * 残りの3つの部分集合は互いに独立しているため、それぞれを別のタスクとして処理する。
+ * </p>
+ * <p>
+ * 各ノードがどの部分集合に属するかは、部分集合ごとに一意な色で表す。
+ * それぞれのタスクは自身の色を持つノードのみを変更するため、タスク間で同期する必要はない。
+ * </p>
+ */
+final class ParallelComponents {
+
+    /**
+     * これより小さな部分集合は、新しいタスクを生成せずに現在のタスクで処理する。
+     */
+    private static final int FORK_THRESHOLD = 1024;
+
+    private static final int TRIMMED = -1;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private final int[] transposedOffsets;
+
+    private final int[] transposedTargets;
+
+    private final Executor executor;
+
+    private final int[] colors;
+
+    private final int[] components;
+
+    private final AtomicInteger nextColor = new AtomicInteger(1);
+
+    private final AtomicInteger nextComponent = new AtomicInteger();
+
+    private final Object lock = new Object();
+
+    private int pending;
+
+    private volatile Throwable failure;
+
+    /**
+     * インスタンスを生成する。
+     * @param offsets 各ノードの接続先の開始位置
+     * @param targets 各ノードの接続先
+     * @param executor タスクを実行する{@link Executor}
+     */
+    ParallelComponents(int[] offsets, int[] targets, Executor executor) {
+        assert offsets != null;
+        assert targets != null;
+        assert executor != null;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.transposedOffsets = CompactAlgorithms.transposeOffsets(offsets, targets);
+        this.transposedTargets = CompactAlgorithms.transposeTargets(offsets, targets, transposedOffsets);
+        this.executor = executor;
+        this.colors = new int[offsets.length - 1];
+        this.components = new int[offsets.length - 1];
+        Arrays.fill(components, -1);
+    }
+
+    /**
+     * 強連結成分を列挙する。
+     * @return 強連結成分の情報
+     * @throws InterruptedException 完了を待機中に割り込みが発生した場合
+     */
+    CompactAlgorithms.Components compute() throws InterruptedException {
+        int size = colors.length;
+        AtomicIntegerArray inDegrees = new AtomicIntegerArray(size);
+        AtomicIntegerArray outDegrees = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            outDegrees.set(i, offsets[i + 1] - offsets[i]);
+            inDegrees.set(i, transposedOffsets[i + 1] - transposedOffsets[i]);
+        }
+        AtomicIntegerArray trimmed = new AtomicIntegerArray(size);
+        int chunk = Math.max(FORK_THRESHOLD, size / (Runtime.getRuntime().availableProcessors() * 4) + 1);
+        for (int i = 0; i < size; i += chunk) {
+            fork(new Trim(i, Math.min(i + chunk, size), inDegrees, outDegrees, trimmed));
+        }
+        await();
+
+        int rest = 0;
+        for (int i = 0; i < size; i++) {
+            if (trimmed.get(i) == 0) {
+                rest++;
+            }
+            else {
+                colors[i] = TRIMMED;
+            }
+        }
+        int[] vertices = new int[rest];
+        for (int i = 0, index = 0; i < size; i++) {
+            if (colors[i] == 0) {
+                vertices[index++] = i;
+            }
+        }
+        fork(new ForwardBackward(0, vertices));
+        await();
+        return new CompactAlgorithms.Components(nextComponent.get(), components);
+    }
+
+    void fork(final Runnable task) {
+        assert task != null;
+        synchronized (lock) {
+            pending++;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (failure == null) {
+                            task.run();
+                        }
+                    }
+                    catch (Throwable e) {
+                        failed(e);
+                    }
+                    finally {
+                        done();
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            failed(e);
+            done();
+        }
+    }
+
+    private void failed(Throwable e) {
+        synchronized (lock) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private void done() {
+        synchronized (lock) {
+            pending--;
+            if (pending == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void await() throws InterruptedException {
+        synchronized (lock) {
+            while (pending > 0) {
+                lock.wait();
+            }
+        }
+        Throwable e = failure;
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        else if (e != null) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 入次数または出次数が{@code 0}のノードを、自明な強連結成分として取り除くタスク。
+     */
+    private final class Trim implements Runnable {
+
+        private final int start;
+
+        private final int end;
+
+        private final AtomicIntegerArray inDegrees;
+
+        private final AtomicIntegerArray outDegrees;
+
+        private final AtomicIntegerArray trimmed;
+
+        private int[] stack = new int[16];
+
+        private int top;
+
+        Trim(int start, int end,
+                AtomicIntegerArray inDegrees,
+                AtomicIntegerArray outDegrees,
+                AtomicIntegerArray trimmed) {
+            this.start = start;
+            this.end = end;
+            this.inDegrees = inDegrees;
+            this.outDegrees = outDegrees;
+            this.trimmed = trimmed;
+        }
+
+        @Override
+        public void run() {
+            for (int i = start; i < end; i++) {
+                if (inDegrees.get(i) == 0 || outDegrees.get(i) == 0) {
+                    claim(i);
+                }
+                while (top > 0) {
+                    int node = stack[--top];
+                    for (int j = offsets[node], n = offsets[node + 1]; j < n; j++) {
+                        int next = targets[j];
+                        if (next != node && inDegrees.decrementAndGet(next) == 0) {
+                            claim(next);
+                        }
+                    }
+                    for (int j = transposedOffsets[node], n = transposedOffsets[node + 1]; j < n; j++) {
+                        int next = transposedTargets[j];
+                        if (next != node && outDegrees.decrementAndGet(next) == 0) {
+                            claim(next);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void claim(int node) {
+            if (trimmed.compareAndSet(node, 0, 1) == false) {
+                return;
+            }
+            components[node] = nextComponent.getAndIncrement();
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+            }
+            stack[top++] = node;
+        }
+    }
+
+    /**
+     * 同じ色を持つノードの集合から、forward-backward アルゴリズムで強連結成分を取り出すタスク。
+     */
+    private final class ForwardBackward implements Runnable {
+
+        private final LinkedList<Subset> rest = new LinkedList<Subset>();
+
+        ForwardBackward(int color, int[] vertices) {
+            rest.add(new Subset(color, vertices));
+        }
+
+        @Override
+        public void run() {
+            while (rest.isEmpty() == false && failure == null) {
+                Subset subset = rest.removeFirst();
+                for (Subset next : split(subset)) {
+                    if (next.vertices.length >= FORK_THRESHOLD) {
+                        fork(new ForwardBackward(next.color, next.vertices));
+                    }
+                    else {
+                        rest.addLast(next);
+                    }
+                }
+            }
+        }
+
+        private List<Subset> split(Subset subset) {
+            int color = subset.color;
+            int[] vertices = subset.vertices;
+            int pivot = vertices[0];
+            int forward = nextColor.getAndIncrement();
+            int backward = nextColor.getAndIncrement();
+            int found = nextColor.getAndIncrement();
+            int component = nextComponent.getAndIncrement();
+            int[] queue = new int[vertices.length];
+
+            // 基点から前方に到達可能なノード
+            int tail = 0;
+            colors[pivot] = forward;
+            queue[tail++] = pivot;
+            for (int head = 0; head < tail; head++) {
+                int node = queue[head];
+                for (int i = offsets[node], n = offsets[node + 1]; i < n; i++) {
+                    int next = targets[i];
+                    if (colors[next] == color) {
+                        colors[next] = forward;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+
+            // 基点から後方に到達可能なノード、前方にも到達可能なものは強連結成分
+            tail = 0;
+            colors[pivot] = found;
+            components[pivot] = component;
+            queue[tail++] = pivot;
+            for (int head = 0; head < tail; head++) {
+                int node = queue[head];
+                for (int i = transposedOffsets[node], n = transposedOffsets[node + 1]; i < n; i++) {
+                    int next = transposedTargets[i];
+                    if (colors[next] == color) {
+                        colors[next] = backward;
+                        queue[tail++] = next;
+                    }
+                    else if (colors[next] == forward) {
+                        colors[next] = found;
+                        components[next] = component;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+
+            int forwardCount = 0;
+            int backwardCount = 0;
+            int restCount = 0;
+            for (int node : vertices) {
+                int c = colors[node];
+                if (c == forward) {
+                    forwardCount++;
+                }
+                else if (c == backward) {
+                    backwardCount++;
+                }
+                else if (c == color) {
+                    restCount++;
+                }
+            }
+            int[] forwardVertices = new int[forwardCount];
+            int[] backwardVertices = new int[backwardCount];
+            int[] restVertices = new int[restCount];
+            forwardCount = backwardCount = restCount = 0;
+            for (int node : vertices) {
+                int c = colors[node];
+                if (c == forward) {
+                    forwardVertices[forwardCount++] = node;
+                }
+                else if (c == backward) {
+                    backwardVertices[backwardCount++] = node;
+                }
+                else if (c == color) {
+                    restVertices[restCount++] = node;
+                }
+            }
+            List<Subset> results = new ArrayList<Subset>(3);
+            if (forwardVertices.length > 0) {
+                results.add(new Subset(forward, forwardVertices));
+            }
+            if (backwardVertices.length > 0) {
+                results.add(new Subset(backward, backwardVertices));
+            }
+            if (restVertices.length > 0) {
+                results.add(new Subset(color, restVertices));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * 同じ色を持つノードの集合。
+     */
+    private static final class Subset {
+
+        final int color;
+
+        final int[] vertices;
+
+        Subset(int color, int[] vertices) {
+            this.color = color;
+            this.vertices = vertices;
+        }
+    }
+}
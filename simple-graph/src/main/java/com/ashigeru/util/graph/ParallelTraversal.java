@@ -0,0 +1,186 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * グラフを幅優先で並列に探索する。
+ * <p>
+ * 探索は段階ごとに同期して行い、各段階では現在の探索前線 (frontier) を分割して
+ * それぞれを並列に展開する。
+ * 各ノードは、並行に利用可能な集合へ最初に追加したタスクのみが処理する。
+ * </p>
+ * <p>
+ * 並行に利用可能な集合は{@code null}を保持できないため、
+ * {@code null}のノードは内部で専用の値に置き換えて保持する。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ */
+final class ParallelTraversal<V> {
+
+    /**
+     * 一つのタスクが展開する探索前線のノード数の下限。
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    private final Graph<? extends V> graph;
+
+    private final Matcher<? super V> acceptor;
+
+    private final Executor executor;
+
+    /**
+     * {@code null}のノードの代わりに保持する値。
+     */
+    private static final Object NULL = new Object();
+
+    private final Set<Object> saw = newConcurrentSet();
+
+    private final Set<Object> accepted = newConcurrentSet();
+
+    /**
+     * インスタンスを生成する。
+     * @param graph 対象のグラフ
+     * @param acceptor 探索を打ち切るノードの条件、打ち切らない場合は{@code null}
+     * @param executor 処理を並列に実行する{@link Executor}
+     */
+    ParallelTraversal(Graph<? extends V> graph, Matcher<? super V> acceptor, Executor executor) {
+        assert graph != null;
+        assert executor != null;
+        this.graph = graph;
+        this.acceptor = acceptor;
+        this.executor = executor;
+    }
+
+    /**
+     * 指定の開始ノードの後続から探索を行う。
+     * @param startNodes 開始ノードの一覧
+     * @throws InterruptedException 処理の完了を待機中に割り込みが発生した場合
+     */
+    void traverse(Collection<? extends V> startNodes) throws InterruptedException {
+        assert startNodes != null;
+        List<V> frontier = new ArrayList<V>();
+        for (V start : startNodes) {
+            frontier.addAll(graph.getConnected(start));
+        }
+        while (frontier.isEmpty() == false) {
+            if (frontier.size() < CHUNK_SIZE * 2) {
+                frontier = expand(frontier);
+                continue;
+            }
+            List<FutureTask<List<V>>> tasks = new ArrayList<FutureTask<List<V>>>();
+            for (int i = 0, n = frontier.size(); i < n; i += CHUNK_SIZE) {
+                final List<V> chunk = frontier.subList(i, Math.min(i + CHUNK_SIZE, n));
+                FutureTask<List<V>> task = new FutureTask<List<V>>(new Callable<List<V>>() {
+                    @Override
+                    public List<V> call() {
+                        return expand(chunk);
+                    }
+                });
+                executor.execute(task);
+                tasks.add(task);
+            }
+            List<V> next = new ArrayList<V>();
+            for (FutureTask<List<V>> task : tasks) {
+                next.addAll(get(task));
+            }
+            frontier = next;
+        }
+    }
+
+    /**
+     * 探索中に訪問した全てのノードを返す。
+     * @return 訪問した全てのノード
+     */
+    Set<V> getVisited() {
+        return unmask(saw);
+    }
+
+    /**
+     * 探索中に条件に合致したノードを返す。
+     * @return 条件に合致したノード
+     */
+    Set<V> getAccepted() {
+        return unmask(accepted);
+    }
+
+    List<V> expand(List<V> chunk) {
+        assert chunk != null;
+        List<V> next = new ArrayList<V>();
+        for (V node : chunk) {
+            if (saw.add(mask(node)) == false) {
+                continue;
+            }
+            if (acceptor != null && acceptor.matches(node)) {
+                accepted.add(mask(node));
+            }
+            else {
+                for (V successor : graph.getConnected(node)) {
+                    if (saw.contains(mask(successor)) == false) {
+                        next.add(successor);
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    private List<V> get(FutureTask<List<V>> task) throws InterruptedException {
+        assert task != null;
+        try {
+            return task.get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static Object mask(Object node) {
+        return node == null ? NULL : node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Set<V> unmask(Set<Object> nodes) {
+        assert nodes != null;
+        Set<V> results = new HashSet<V>(nodes.size() * 4 / 3 + 1);
+        for (Object node : nodes) {
+            results.add(node == NULL ? null : (V) node);
+        }
+        return results;
+    }
+
+    private static Set<Object> newConcurrentSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+    }
+}
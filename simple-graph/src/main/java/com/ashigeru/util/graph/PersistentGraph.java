@@ -0,0 +1,399 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 構造を共有する複製を定数時間で作成できる{@link Graph}の実装。
+ * <p>
+ * このグラフは、ノードの一覧と各ノードの接続先の一覧を、それぞれ変更されないHAMT
+ * (Hash Array Mapped Trie) で保持する。
+ * グラフを変更すると、変更された経路上の節のみを複製した新しい構造に置き換える。
+ * このため、{@link #snapshot()}は内部の構造を複製せずに定数時間で完了し、
+ * 複製元と複製先はそれ以降に変更されなかった部分を共有し続ける。
+ * </p>
+ * <p>
+ * {@link #getNodeSet()}や{@link #getConnected(Object)}、および{@link #iterator()}は、
+ * 呼び出した時点の内容を表す変更できないオブジェクトを返し、以降のグラフへの変更は反映されない。
+ * </p>
+ * <p>
+ * このクラスのインスタンスはスレッド安全でない。
+ * ただし、{@link #snapshot()}で作成した複製は複製元と状態を共有しないため、
+ * 複製元を変更するスレッドとは別のスレッドで利用できる。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ */
+public class PersistentGraph<V> implements VersionedGraph<V> {
+
+    private PersistentMap<V, Successors<V>> entity;
+
+    private long version;
+
+    /**
+     * 空のグラフを生成する。
+     */
+    public PersistentGraph() {
+        this(PersistentMap.<V, Successors<V>>empty(), 0L);
+    }
+
+    /**
+     * 指定のグラフと同じ内容を持つグラフを生成する。
+     * @param graph 複製元のグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public PersistentGraph(Graph<? extends V> graph) {
+        this();
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        for (Graph.Vertex<? extends V> vertex : graph) {
+            addEdges(vertex.getNode(), vertex.getConnected());
+        }
+    }
+
+    private PersistentGraph(PersistentMap<V, Successors<V>> entity, long version) {
+        assert entity != null;
+        this.entity = entity;
+        this.version = version;
+    }
+
+    /**
+     * このグラフの現在の内容を持つ複製を返す。
+     * <p>
+     * この操作はグラフの大きさによらず定数時間で完了する。
+     * 返されるグラフとこのグラフは、以降それぞれ独立して変更できる。
+     * </p>
+     * @return このグラフの複製
+     */
+    public PersistentGraph<V> snapshot() {
+        return new PersistentGraph<V>(entity, version);
+    }
+
+    @Override
+    public void addEdge(V from, V to) {
+        Successors<V> successors = prepare(from);
+        prepare(to);
+        Successors<V> next = successors.plus(to);
+        if (next != successors) {
+            entity = entity.plus(from, next);
+            version++;
+        }
+    }
+
+    @Override
+    public void addEdges(V from, Collection<? extends V> to) {
+        if (to == null) {
+            throw new IllegalArgumentException("to is null"); //$NON-NLS-1$
+        }
+        Successors<V> successors = prepare(from);
+        Successors<V> next = successors;
+        for (V v : to) {
+            prepare(v);
+            next = next.plus(v);
+        }
+        if (next != successors) {
+            entity = entity.plus(from, next);
+            version++;
+        }
+    }
+
+    @Override
+    public void addNode(V node) {
+        prepare(node);
+    }
+
+    @Override
+    public void clear() {
+        if (entity.isEmpty() == false) {
+            entity = PersistentMap.empty();
+            version++;
+        }
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        return entity.containsKey(node);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        PersistentGraph<?> other = (PersistentGraph<?>) obj;
+        if ((this.entity.equals(other.entity)) == false) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Set<V> getConnected(Object key) {
+        Successors<V> successors = entity.get(key);
+        if (successors != null) {
+            return successors;
+        }
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<V> getNodeSet() {
+        return Collections.unmodifiableSet(entity.keySet());
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + this.entity.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean isConnected(Object from, Object to) {
+        Successors<V> successors = entity.get(from);
+        if (successors == null) {
+            return false;
+        }
+        return successors.contains(to);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entity.isEmpty();
+    }
+
+    @Override
+    public Iterator<Graph.Vertex<V>> iterator() {
+        final Iterator<Map.Entry<V, Successors<V>>> iterator = entity.entrySet().iterator();
+        return new Iterator<Graph.Vertex<V>>() {
+
+            private V current;
+
+            private boolean valid;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Graph.Vertex<V> next() {
+                Map.Entry<V, Successors<V>> entry = iterator.next();
+                current = entry.getKey();
+                valid = true;
+                return new PersistentVertex<V>(entry.getKey(), entry.getValue());
+            }
+
+            @Override
+            public void remove() {
+                if (valid == false) {
+                    throw new IllegalStateException();
+                }
+                removeNode(current);
+                valid = false;
+            }
+        };
+    }
+
+    @Override
+    public void removeEdge(Object from, Object to) {
+        Map.Entry<V, Successors<V>> entry = entity.getEntry(from);
+        if (entry == null) {
+            return;
+        }
+        Successors<V> successors = entry.getValue();
+        Successors<V> next = successors.minus(to);
+        if (next != successors) {
+            entity = entity.plus(entry.getKey(), next);
+            version++;
+        }
+    }
+
+    @Override
+    public void removeNode(Object node) {
+        if (entity.containsKey(node) == false) {
+            return;
+        }
+        PersistentMap<V, Successors<V>> next = entity.minus(node);
+        for (Map.Entry<V, Successors<V>> entry : next.entrySet()) {
+            Successors<V> successors = entry.getValue();
+            Successors<V> rest = successors.minus(node);
+            if (rest != successors) {
+                next = next.plus(entry.getKey(), rest);
+            }
+        }
+        entity = next;
+        version++;
+    }
+
+    @Override
+    public void removeNodes(Collection<?> nodes) {
+        if (nodes == null) {
+            throw new IllegalArgumentException("nodes is null"); //$NON-NLS-1$
+        }
+        PersistentMap<V, Successors<V>> next = entity;
+        for (Object node : nodes) {
+            next = next.minus(node);
+        }
+        if (next == entity) {
+            return;
+        }
+        for (Map.Entry<V, Successors<V>> entry : next.entrySet()) {
+            Successors<V> successors = entry.getValue();
+            Successors<V> rest = successors;
+            for (V successor : successors) {
+                if (next.containsKey(successor) == false) {
+                    rest = rest.minus(successor);
+                }
+            }
+            if (rest != successors) {
+                next = next.plus(entry.getKey(), rest);
+            }
+        }
+        entity = next;
+        version++;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append('[');
+        for (Iterator<Graph.Vertex<V>> iter = iterator(); iter.hasNext();) {
+            buf.append(iter.next());
+            if (iter.hasNext()) {
+                buf.append(", "); //$NON-NLS-1$
+            }
+        }
+        buf.append(']');
+        return buf.toString();
+    }
+
+    private Successors<V> prepare(V node) {
+        Successors<V> successors = entity.get(node);
+        if (successors == null) {
+            successors = Successors.empty();
+            entity = entity.plus(node, successors);
+            version++;
+        }
+        return successors;
+    }
+
+    /**
+     * 接続先のノードの一覧を保持する、変更されない集合。
+     * @param <V> ノードを識別する値の型
+     */
+    private static final class Successors<V> extends AbstractSet<V> {
+
+        @SuppressWarnings("rawtypes")
+        private static final Successors EMPTY = new Successors<Object>(PersistentMap.<Object, Boolean>empty());
+
+        private final PersistentMap<V, Boolean> elements;
+
+        private Successors(PersistentMap<V, Boolean> elements) {
+            assert elements != null;
+            this.elements = elements;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> Successors<V> empty() {
+            return EMPTY;
+        }
+
+        Successors<V> plus(V value) {
+            PersistentMap<V, Boolean> next = elements.plus(value, Boolean.TRUE);
+            if (next == elements) {
+                return this;
+            }
+            return new Successors<V>(next);
+        }
+
+        Successors<V> minus(Object value) {
+            PersistentMap<V, Boolean> next = elements.minus(value);
+            if (next == elements) {
+                return this;
+            }
+            if (next.isEmpty()) {
+                return empty();
+            }
+            return new Successors<V>(next);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return elements.containsKey(o);
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return elements.keySet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+    }
+
+    /**
+     * グラフ上の頂点を表現し、接続先ノード情報を持つオブジェクト。
+     * @param <V> ノードを識別する値の型
+     */
+    private static final class PersistentVertex<V> implements Vertex<V> {
+
+        private final V node;
+
+        private final Set<V> connected;
+
+        PersistentVertex(V node, Set<V> connected) {
+            this.node = node;
+            this.connected = connected;
+        }
+
+        @Override
+        public V getNode() {
+            return node;
+        }
+
+        @Override
+        public Set<V> getConnected() {
+            return connected;
+        }
+
+        @Override
+        public String toString() {
+            return MessageFormat.format("{0} => {1}", node, connected);
+        }
+    }
+}
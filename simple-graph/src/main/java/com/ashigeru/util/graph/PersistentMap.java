@@ -0,0 +1,565 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 変更されない{@link Map}の実装。
+ * <p>
+ * 内部的にはHAMT (Hash Array Mapped Trie) を利用し、
+ * {@link #plus(Object, Object)}や{@link #minus(Object)}は変更された経路上の節のみを複製した
+ * 新しいオブジェクトを返す。
+ * 変更前と変更後のオブジェクトは、変更されなかった節を共有する。
+ * </p>
+ * @param <K> キーの型
+ * @param <V> 値の型
+ */
+final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentMap EMPTY = new PersistentMap<Object, Object>(null, 0);
+
+    private final Node<K, V> root;
+
+    private final int size;
+
+    private PersistentMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 空のマップを返す。
+     * @param <K> キーの型
+     * @param <V> 値の型
+     * @return 空のマップ
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * このマップに指定のエントリを追加したマップを返す。
+     * <p>
+     * 既に同じエントリが含まれる場合、このオブジェクト自身を返す。
+     * </p>
+     * @param key 追加するキー
+     * @param value 追加する値
+     * @return 追加後のマップ
+     */
+    PersistentMap<K, V> plus(K key, V value) {
+        int hash = hash(key);
+        if (root == null) {
+            return new PersistentMap<K, V>(new Leaf<K, V>(hash, key, value), 1);
+        }
+        Leaf<K, V> current = root.find(hash, key);
+        if (current != null && current.value == value) {
+            return this;
+        }
+        Node<K, V> next = root.put(hash, key, value, 0);
+        return new PersistentMap<K, V>(next, current == null ? size + 1 : size);
+    }
+
+    /**
+     * このマップから指定のキーを持つエントリを除去したマップを返す。
+     * <p>
+     * 指定のキーを持つエントリが含まれない場合、このオブジェクト自身を返す。
+     * </p>
+     * @param key 除去するキー
+     * @return 除去後のマップ
+     */
+    PersistentMap<K, V> minus(Object key) {
+        if (root == null) {
+            return this;
+        }
+        Node<K, V> next = root.remove(hash(key), key, 0);
+        if (next == root) {
+            return this;
+        }
+        if (next == null) {
+            return empty();
+        }
+        return new PersistentMap<K, V>(next, size - 1);
+    }
+
+    /**
+     * 指定のキーを持つエントリを返す。
+     * @param key 対象のキー
+     * @return 対応するエントリ、存在しない場合は{@code null}
+     */
+    Map.Entry<K, V> getEntry(Object key) {
+        if (root == null) {
+            return null;
+        }
+        return root.find(hash(key), key);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Leaf<K, V> leaf = root.find(hash(key), key);
+        return leaf == null ? null : leaf.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (root == null) {
+            return false;
+        }
+        return root.find(hash(key), key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new LeafIterator<K, V>(root);
+            }
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    static int hash(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    static boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    static <K, V> Node<K, V> merge(int shift, Node<K, V> a, Node<K, V> b) {
+        assert a.hash() != b.hash();
+        int indexA = (a.hash() >>> shift) & MASK;
+        int indexB = (b.hash() >>> shift) & MASK;
+        if (indexA == indexB) {
+            return new BitmapNode<K, V>(1 << indexA, PersistentMap.<K, V>array(merge(shift + BITS, a, b)));
+        }
+        if (indexA < indexB) {
+            return new BitmapNode<K, V>((1 << indexA) | (1 << indexB), PersistentMap.<K, V>array(a, b));
+        }
+        else {
+            return new BitmapNode<K, V>((1 << indexA) | (1 << indexB), PersistentMap.<K, V>array(b, a));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> Node<K, V>[] array(Node<?, ?>... nodes) {
+        return (Node<K, V>[]) nodes;
+    }
+
+    /**
+     * HAMTの節。
+     * @param <K> キーの型
+     * @param <V> 値の型
+     */
+    abstract static class Node<K, V> {
+
+        /**
+         * この節に含まれるキーのハッシュ値を返す (複数のハッシュ値を含む場合の動作は未定義)。
+         * @return ハッシュ値
+         */
+        abstract int hash();
+
+        /**
+         * この節の子の一覧を返す。
+         * @return 子の一覧、子を持たない場合は{@code null}
+         */
+        abstract Node<K, V>[] children();
+
+        abstract Leaf<K, V> find(int hash, Object key);
+
+        abstract Node<K, V> put(int hash, K key, V value, int shift);
+
+        abstract Node<K, V> remove(int hash, Object key, int shift);
+    }
+
+    /**
+     * 一つのエントリを表す葉。
+     * @param <K> キーの型
+     * @param <V> 値の型
+     */
+    static final class Leaf<K, V> extends Node<K, V> implements Map.Entry<K, V> {
+
+        final int hash;
+
+        final K key;
+
+        final V value;
+
+        Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        int hash() {
+            return hash;
+        }
+
+        @Override
+        Node<K, V>[] children() {
+            return null;
+        }
+
+        @Override
+        Leaf<K, V> find(int h, Object k) {
+            if (h == hash && PersistentMap.equals(key, k)) {
+                return this;
+            }
+            return null;
+        }
+
+        @Override
+        Node<K, V> put(int h, K k, V v, int shift) {
+            if (h == hash) {
+                if (PersistentMap.equals(key, k)) {
+                    if (value == v) {
+                        return this;
+                    }
+                    return new Leaf<K, V>(h, k, v);
+                }
+                return new CollisionNode<K, V>(h, PersistentMap.<K, V>array(this, new Leaf<K, V>(h, k, v)));
+            }
+            return merge(shift, this, new Leaf<K, V>(h, k, v));
+        }
+
+        @Override
+        Node<K, V> remove(int h, Object k, int shift) {
+            if (h == hash && PersistentMap.equals(key, k)) {
+                return null;
+            }
+            return this;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V v) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if ((obj instanceof Map.Entry<?, ?>) == false) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return PersistentMap.equals(key, other.getKey())
+                && PersistentMap.equals(value, other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value; //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * 同じハッシュ値を持つ複数のエントリを保持する節。
+     * @param <K> キーの型
+     * @param <V> 値の型
+     */
+    static final class CollisionNode<K, V> extends Node<K, V> {
+
+        final int hash;
+
+        final Node<K, V>[] leaves;
+
+        CollisionNode(int hash, Node<K, V>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        int hash() {
+            return hash;
+        }
+
+        @Override
+        Node<K, V>[] children() {
+            return leaves;
+        }
+
+        @Override
+        Leaf<K, V> find(int h, Object k) {
+            if (h != hash) {
+                return null;
+            }
+            for (Node<K, V> leaf : leaves) {
+                Leaf<K, V> found = leaf.find(h, k);
+                if (found != null) {
+                    return found;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node<K, V> put(int h, K k, V v, int shift) {
+            if (h != hash) {
+                return merge(shift, this, new Leaf<K, V>(h, k, v));
+            }
+            for (int i = 0; i < leaves.length; i++) {
+                Leaf<K, V> leaf = leaves[i].find(h, k);
+                if (leaf != null) {
+                    if (leaf.value == v) {
+                        return this;
+                    }
+                    Node<K, V>[] copy = leaves.clone();
+                    copy[i] = new Leaf<K, V>(h, k, v);
+                    return new CollisionNode<K, V>(hash, copy);
+                }
+            }
+            Node<K, V>[] copy = PersistentMap.<K, V>array(new Node<?, ?>[leaves.length + 1]);
+            System.arraycopy(leaves, 0, copy, 0, leaves.length);
+            copy[leaves.length] = new Leaf<K, V>(h, k, v);
+            return new CollisionNode<K, V>(hash, copy);
+        }
+
+        @Override
+        Node<K, V> remove(int h, Object k, int shift) {
+            if (h != hash) {
+                return this;
+            }
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].find(h, k) != null) {
+                    if (leaves.length == 2) {
+                        return leaves[1 - i];
+                    }
+                    Node<K, V>[] copy = PersistentMap.<K, V>array(new Node<?, ?>[leaves.length - 1]);
+                    System.arraycopy(leaves, 0, copy, 0, i);
+                    System.arraycopy(leaves, i + 1, copy, i, leaves.length - i - 1);
+                    return new CollisionNode<K, V>(hash, copy);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * ハッシュ値の一部を利用して子を振り分ける節。
+     * @param <K> キーの型
+     * @param <V> 値の型
+     */
+    static final class BitmapNode<K, V> extends Node<K, V> {
+
+        final int bitmap;
+
+        final Node<K, V>[] children;
+
+        BitmapNode(int bitmap, Node<K, V>[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        @Override
+        int hash() {
+            throw new AssertionError();
+        }
+
+        @Override
+        Node<K, V>[] children() {
+            return children;
+        }
+
+        @Override
+        Leaf<K, V> find(int h, Object k) {
+            Node<K, V> current = this;
+            int shift = 0;
+            while (current instanceof BitmapNode<?, ?>) {
+                BitmapNode<K, V> node = (BitmapNode<K, V>) current;
+                int bit = 1 << ((h >>> shift) & MASK);
+                if ((node.bitmap & bit) == 0) {
+                    return null;
+                }
+                current = node.children[Integer.bitCount(node.bitmap & (bit - 1))];
+                shift += BITS;
+            }
+            return current.find(h, k);
+        }
+
+        @Override
+        Node<K, V> put(int h, K k, V v, int shift) {
+            int bit = 1 << ((h >>> shift) & MASK);
+            int position = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Node<K, V>[] copy = PersistentMap.<K, V>array(new Node<?, ?>[children.length + 1]);
+                System.arraycopy(children, 0, copy, 0, position);
+                copy[position] = new Leaf<K, V>(h, k, v);
+                System.arraycopy(children, position, copy, position + 1, children.length - position);
+                return new BitmapNode<K, V>(bitmap | bit, copy);
+            }
+            Node<K, V> child = children[position];
+            Node<K, V> next = child.put(h, k, v, shift + BITS);
+            if (next == child) {
+                return this;
+            }
+            Node<K, V>[] copy = children.clone();
+            copy[position] = next;
+            return new BitmapNode<K, V>(bitmap, copy);
+        }
+
+        @Override
+        Node<K, V> remove(int h, Object k, int shift) {
+            int bit = 1 << ((h >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int position = Integer.bitCount(bitmap & (bit - 1));
+            Node<K, V> child = children[position];
+            Node<K, V> next = child.remove(h, k, shift + BITS);
+            if (next == child) {
+                return this;
+            }
+            if (next == null) {
+                if (children.length == 1) {
+                    return null;
+                }
+                if (children.length == 2 && children[1 - position].children() == null) {
+                    return children[1 - position];
+                }
+                Node<K, V>[] copy = PersistentMap.<K, V>array(new Node<?, ?>[children.length - 1]);
+                System.arraycopy(children, 0, copy, 0, position);
+                System.arraycopy(children, position + 1, copy, position, children.length - position - 1);
+                return new BitmapNode<K, V>(bitmap & ~bit, copy);
+            }
+            if (children.length == 1 && (next instanceof BitmapNode<?, ?>) == false) {
+                return next;
+            }
+            Node<K, V>[] copy = children.clone();
+            copy[position] = next;
+            return new BitmapNode<K, V>(bitmap, copy);
+        }
+    }
+
+    /**
+     * 全ての葉を順に返す反復子。
+     * @param <K> キーの型
+     * @param <V> 値の型
+     */
+    private static final class LeafIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Object[] arrays = new Object[16];
+
+        private final int[] positions = new int[16];
+
+        private int depth;
+
+        private Leaf<K, V> next;
+
+        LeafIterator(Node<K, V> root) {
+            if (root instanceof Leaf<?, ?>) {
+                next = (Leaf<K, V>) root;
+            }
+            else if (root != null) {
+                arrays[0] = root.children();
+                positions[0] = 0;
+                depth = 1;
+                advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Leaf<K, V> result = next;
+            advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth > 0) {
+                Node<K, V>[] array = (Node<K, V>[]) arrays[depth - 1];
+                int position = positions[depth - 1];
+                if (position >= array.length) {
+                    arrays[--depth] = null;
+                    continue;
+                }
+                positions[depth - 1] = position + 1;
+                Node<K, V> node = array[position];
+                if (node instanceof Leaf<?, ?>) {
+                    next = (Leaf<K, V>) node;
+                    return;
+                }
+                arrays[depth] = node.children();
+                positions[depth] = 0;
+                depth++;
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * グラフ上のノード間の到達可能性を高速に判定するための索引。
+ * <p>
+ * この索引は、対象のグラフの強連結成分を一つのノードに縮約した有向非巡回グラフ上に、
+ * GRAIL (Graph Reachability indexing via rAndomized Interval Labeling) の区間ラベルを
+ * 複数作成する。
+ * あるノードから別のノードに到達可能であれば、後者のラベルは全て前者のラベルに包含される。
+ * このため、多くの到達不可能な組み合わせはラベルの比較のみで判定できる。
+ * ラベルで判定できない場合のみ、ラベルで枝刈りしながら縮約したグラフを探索する。
+ * </p>
+ * <p>
+ * この索引は生成時のグラフの内容を元に作成され、その後のグラフへの変更は反映されない。
+ * このクラスのインスタンスは、複数のスレッドから同時に利用できる。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ */
+public class ReachabilityIndex<V> {
+
+    /**
+     * 標準のラベルの個数。
+     */
+    public static final int DEFAULT_LABEL_COUNT = 3;
+
+    private final CompactGraph<? extends V> graph;
+
+    /**
+     * 各ノードが属する強連結成分の番号
+     * (接続先の強連結成分には、必ず接続元より小さな番号が割り当てられている)。
+     */
+    private final int[] components;
+
+    /**
+     * 強連結成分が循環を含む場合のみ{@code true}。
+     */
+    private final boolean[] cyclic;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    /**
+     * 各ラベルの区間の下限 ({@code lows[label][component]})。
+     */
+    private final int[][] lows;
+
+    /**
+     * 各ラベルの区間の上限 ({@code highs[label][component]})。
+     */
+    private final int[][] highs;
+
+    /**
+     * 再利用可能な探索の作業領域 (存在しない場合は{@code null})。
+     * <p>
+     * 探索の間は作業領域を取り出して占有し、探索を終えたら戻す。
+     * 他のスレッドが占有している場合は、新たな作業領域を生成する。
+     * </p>
+     */
+    private final AtomicReference<Workspace> idle = new AtomicReference<Workspace>();
+
+    /**
+     * 標準の個数のラベルを持つ索引を生成する。
+     * @param graph 対象のグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public ReachabilityIndex(Graph<? extends V> graph) {
+        this(graph, DEFAULT_LABEL_COUNT);
+    }
+
+    /**
+     * 指定の個数のラベルを持つ索引を生成する。
+     * <p>
+     * ラベルの個数を多くすると、索引の生成時間とメモリ使用量が増加する代わりに、
+     * ラベルのみで到達可能性を判定できる割合が高くなる。
+     * </p>
+     * @param graph 対象のグラフ
+     * @param labelCount ラベルの個数
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     または{@code labelCount}が{@code 1}未満の場合
+     */
+    public ReachabilityIndex(Graph<? extends V> graph, int labelCount) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (labelCount < 1) {
+            throw new IllegalArgumentException("labelCount must be > 0"); //$NON-NLS-1$
+        }
+        if (graph instanceof CompactGraph<?>) {
+            this.graph = (CompactGraph<? extends V>) graph;
+        }
+        else {
+            this.graph = Graphs.freeze(graph);
+        }
+        CompactAlgorithms.Condensed found = CompactAlgorithms.condense(
+                this.graph.offsets,
+                this.graph.targets);
+        this.components = found.ids;
+        this.cyclic = findCyclic(found);
+        this.offsets = found.offsets;
+        this.targets = found.targets;
+        this.lows = new int[labelCount][];
+        this.highs = new int[labelCount][];
+        Random random = new Random();
+        for (int i = 0; i < labelCount; i++) {
+            lows[i] = new int[found.count];
+            highs[i] = new int[found.count];
+            label(random, lows[i], highs[i]);
+        }
+    }
+
+    /**
+     * {@code from}の値が割り当てられたノードから、{@code to}の値が割り当てられたノードに
+     * 一つ以上の接続を経由して到達可能である場合のみ{@code true}を返す。
+     * <p>
+     * この結果は{@code Graphs.collectAllConnected(graph, [from]).contains(to)}と同じである。
+     * つまり、{@code from}と{@code to}が同じノードである場合、
+     * そのノードが循環の一部である場合のみ{@code true}を返す。
+     * </p>
+     * @param from 接続元のノードに割り当てられた値
+     * @param to 接続先のノードに割り当てられた値
+     * @return 到達可能である場合は{@code true}、そうでない場合は{@code false}
+     */
+    public boolean isReachable(Object from, Object to) {
+        int fromId = graph.getId(from);
+        if (fromId < 0) {
+            return false;
+        }
+        int toId = graph.getId(to);
+        if (toId < 0) {
+            return false;
+        }
+        int source = components[fromId];
+        int target = components[toId];
+        if (source == target) {
+            return cyclic[source];
+        }
+        if (source < target || contains(source, target) == false) {
+            return false;
+        }
+        return search(source, target);
+    }
+
+    private boolean[] findCyclic(CompactAlgorithms.Condensed found) {
+        boolean[] results = new boolean[found.count];
+        for (int component = 0; component < found.count; component++) {
+            int begin = found.memberOffsets[component];
+            if (found.memberOffsets[component + 1] - begin >= 2) {
+                results[component] = true;
+            }
+            else {
+                int member = found.members[begin];
+                results[component] = graph.isConnected(member, member);
+            }
+        }
+        return results;
+    }
+
+    private void label(Random random, int[] low, int[] high) {
+        int size = low.length;
+        int[] roots = new int[size];
+        for (int i = 0; i < size; i++) {
+            roots[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = roots[i];
+            roots[i] = roots[j];
+            roots[j] = t;
+        }
+        boolean[] saw = new boolean[size];
+        int[] stack = new int[size];
+        int[] first = new int[size];
+        int[] step = new int[size];
+        int rank = 0;
+        for (int root : roots) {
+            if (saw[root]) {
+                continue;
+            }
+            saw[root] = true;
+            int top = 0;
+            stack[top++] = root;
+            first[root] = start(random, root);
+            step[root] = 0;
+            while (top > 0) {
+                int node = stack[top - 1];
+                int degree = offsets[node + 1] - offsets[node];
+                if (step[node] < degree) {
+                    int next = targets[offsets[node] + (first[node] + step[node]++) % degree];
+                    if (saw[next] == false) {
+                        saw[next] = true;
+                        stack[top++] = next;
+                        first[next] = start(random, next);
+                        step[next] = 0;
+                    }
+                }
+                else {
+                    top--;
+                    int min = rank;
+                    for (int i = offsets[node], n = offsets[node + 1]; i < n; i++) {
+                        min = Math.min(min, low[targets[i]]);
+                    }
+                    low[node] = min;
+                    high[node] = rank++;
+                }
+            }
+        }
+    }
+
+    private int start(Random random, int node) {
+        int degree = offsets[node + 1] - offsets[node];
+        return degree <= 1 ? 0 : random.nextInt(degree);
+    }
+
+    private boolean contains(int outer, int inner) {
+        for (int i = 0; i < lows.length; i++) {
+            if (lows[i][inner] < lows[i][outer] || highs[i][inner] > highs[i][outer]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean search(int source, int target) {
+        Workspace workspace = idle.getAndSet(null);
+        if (workspace == null) {
+            workspace = new Workspace(cyclic.length);
+        }
+        try {
+            return search(workspace, source, target);
+        }
+        finally {
+            idle.set(workspace);
+        }
+    }
+
+    private boolean search(Workspace workspace, int source, int target) {
+        assert workspace != null;
+        int stamp = workspace.next();
+        int[] stack = workspace.stack;
+        int top = 0;
+        stack[top++] = source;
+        workspace.stamps[source] = stamp;
+        while (top > 0) {
+            int node = stack[--top];
+            for (int i = offsets[node], n = offsets[node + 1]; i < n; i++) {
+                int next = targets[i];
+                if (next == target) {
+                    return true;
+                }
+                if (next < target || workspace.stamps[next] == stamp || contains(next, target) == false) {
+                    continue;
+                }
+                workspace.stamps[next] = stamp;
+                stack[top++] = next;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 探索に利用する作業領域。
+     */
+    private static final class Workspace {
+
+        final int[] stamps;
+
+        final int[] stack;
+
+        private int stamp;
+
+        Workspace(int size) {
+            this.stamps = new int[size];
+            this.stack = new int[size];
+        }
+
+        int next() {
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 0;
+            }
+            return ++stamp;
+        }
+    }
+}
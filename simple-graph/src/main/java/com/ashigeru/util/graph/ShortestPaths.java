@@ -0,0 +1,118 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+/**
+ * 重み付きグラフ上の、特定のノードを始点とする最短経路の一覧。
+ * <p>
+ * このオブジェクトは対象のグラフを参照するため、対象のグラフを変更した後に
+ * このオブジェクトの操作を呼び出すと{@link ConcurrentModificationException}をスローする。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ * @see Graphs#shortestPaths(WeightedGraph, Object)
+ */
+public final class ShortestPaths<V> {
+
+    private final WeightedGraph<V> graph;
+
+    private final long version;
+
+    private final int source;
+
+    private final double[] distances;
+
+    private final int[] previous;
+
+    /**
+     * インスタンスを生成する。
+     * @param graph 対象のグラフ
+     * @param source 始点の番号
+     * @param distances 各ノードへの最短距離 (到達できない場合は正の無限大)
+     * @param previous 各ノードへの最短経路上で直前のノードの番号 (存在しない場合は{@code -1})
+     */
+    ShortestPaths(WeightedGraph<V> graph, int source, double[] distances, int[] previous) {
+        assert graph != null;
+        assert distances != null;
+        assert previous != null;
+        this.graph = graph;
+        this.version = graph.getVersion();
+        this.source = source;
+        this.distances = distances;
+        this.previous = previous;
+    }
+
+    /**
+     * 始点のノードを返す。
+     * @return 始点のノード
+     * @throws ConcurrentModificationException 対象のグラフが変更されていた場合
+     */
+    public V getSource() {
+        graph.checkVersion(version);
+        return graph.getValue(source);
+    }
+
+    /**
+     * 指定のノードが始点から到達可能である場合に{@code true}を返す。
+     * @param node 対象のノード
+     * @return 到達可能である場合に{@code true}
+     * @throws ConcurrentModificationException 対象のグラフが変更されていた場合
+     */
+    public boolean isReachable(Object node) {
+        graph.checkVersion(version);
+        int id = graph.getId(node);
+        return id >= 0 && distances[id] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * 始点から指定のノードへの最短距離を返す。
+     * @param node 対象のノード
+     * @return 最短距離、到達できない場合は{@link Double#POSITIVE_INFINITY}
+     * @throws ConcurrentModificationException 対象のグラフが変更されていた場合
+     */
+    public double getDistance(Object node) {
+        graph.checkVersion(version);
+        int id = graph.getId(node);
+        if (id < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return distances[id];
+    }
+
+    /**
+     * 始点から指定のノードへの最短経路を返す。
+     * @param node 対象のノード
+     * @return 最短経路、到達できない場合は{@code null}
+     * @throws ConcurrentModificationException 対象のグラフが変更されていた場合
+     */
+    public WeightedPath<V> getPath(Object node) {
+        graph.checkVersion(version);
+        int id = graph.getId(node);
+        if (id < 0 || distances[id] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        List<V> nodes = new ArrayList<V>();
+        for (int current = id; current >= 0; current = previous[current]) {
+            nodes.add(graph.getValue(current));
+        }
+        Collections.reverse(nodes);
+        return new WeightedPath<V>(Collections.unmodifiableList(nodes), distances[id]);
+    }
+}
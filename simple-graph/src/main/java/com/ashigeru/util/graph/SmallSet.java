@@ -0,0 +1,298 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 要素数に応じて表現を切り替える{@link java.util.Set}の実装。
+ * <p>
+ * 要素が存在しない場合は内部の表を持たず、要素が1つの場合はその要素を直接保持する。
+ * 要素数が{@link #THRESHOLD}以下の場合は配列を線形に探索し、
+ * それを超えた場合に{@link HashSet}へ移行する。
+ * グラフ上の多くのノードは少数の接続先しか持たないため、
+ * 全てのノードに{@link HashSet}を割り当てる場合に比べて少ないメモリで表現できる。
+ * </p>
+ * <p>
+ * {@link HashSet}へ移行した後は、{@link #remove(Object)}によって要素数が
+ * {@link #THRESHOLD}の半分以下になった時点で配列の表現に戻す。
+ * </p>
+ * @param <E> 要素の型
+ */
+final class SmallSet<E> extends AbstractSet<E> {
+
+    /**
+     * 配列で表現する要素数の上限。
+     */
+    static final int THRESHOLD = 8;
+
+    private static final int HASHED = -1;
+
+    /**
+     * 要素の個数、{@link HashSet}で表現している場合は{@link #HASHED}。
+     */
+    private int size;
+
+    /**
+     * 要素数が{@code 0}の場合は{@code null}、{@code 1}の場合はその要素、
+     * それ以上の場合は要素を格納した配列、{@link #HASHED}の場合は{@link HashSet}。
+     */
+    private Object data;
+
+    private int modCount;
+
+    @Override
+    public int size() {
+        if (size == HASHED) {
+            return hashed().size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        switch (size) {
+        case HASHED:
+            return hashed().contains(o);
+        case 0:
+            return false;
+        case 1:
+            return eq(data, o);
+        default:
+            return indexOf(o) >= 0;
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        switch (size) {
+        case HASHED:
+            return hashed().add(e);
+        case 0:
+            data = e;
+            size = 1;
+            modCount++;
+            return true;
+        case 1:
+            if (eq(data, e)) {
+                return false;
+            }
+            data = new Object[] { data, e };
+            size = 2;
+            modCount++;
+            return true;
+        default:
+            if (indexOf(e) >= 0) {
+                return false;
+            }
+            Object[] array = (Object[]) data;
+            if (size == THRESHOLD) {
+                HashSet<Object> hash = new HashSet<Object>(THRESHOLD * 4);
+                for (int i = 0; i < size; i++) {
+                    hash.add(array[i]);
+                }
+                hash.add(e);
+                data = hash;
+                size = HASHED;
+                modCount++;
+                return true;
+            }
+            if (size == array.length) {
+                Object[] grown = new Object[Math.min(size * 2, THRESHOLD)];
+                System.arraycopy(array, 0, grown, 0, size);
+                array = grown;
+                data = grown;
+            }
+            array[size++] = e;
+            modCount++;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        switch (size) {
+        case HASHED: {
+            HashSet<E> hash = hashed();
+            if (hash.remove(o) == false) {
+                return false;
+            }
+            if (hash.size() <= THRESHOLD / 2) {
+                shrink(hash);
+            }
+            return true;
+        }
+        case 0:
+            return false;
+        case 1:
+            if (eq(data, o) == false) {
+                return false;
+            }
+            data = null;
+            size = 0;
+            modCount++;
+            return true;
+        default:
+            int index = indexOf(o);
+            if (index < 0) {
+                return false;
+            }
+            removeAt(index);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (size == HASHED) {
+            HashSet<E> hash = hashed();
+            boolean changed = hash.removeAll(c);
+            if (hash.size() <= THRESHOLD / 2) {
+                shrink(hash);
+            }
+            return changed;
+        }
+        return super.removeAll(c);
+    }
+
+    @Override
+    public void clear() {
+        data = null;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        if (size == HASHED) {
+            return hashed().iterator();
+        }
+        return new SmallIterator();
+    }
+
+    @SuppressWarnings("unchecked")
+    private HashSet<E> hashed() {
+        return (HashSet<E>) data;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int index) {
+        if (size == 1) {
+            return (E) data;
+        }
+        return (E) ((Object[]) data)[index];
+    }
+
+    private int indexOf(Object o) {
+        Object[] array = (Object[]) data;
+        for (int i = 0; i < size; i++) {
+            if (eq(array[i], o)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        if (size == 1) {
+            data = null;
+            size = 0;
+        }
+        else if (size == 2) {
+            data = ((Object[]) data)[1 - index];
+            size = 1;
+        }
+        else {
+            Object[] array = (Object[]) data;
+            System.arraycopy(array, index + 1, array, index, size - index - 1);
+            array[--size] = null;
+        }
+        modCount++;
+    }
+
+    private void shrink(HashSet<E> hash) {
+        int count = hash.size();
+        if (count == 0) {
+            data = null;
+        }
+        else if (count == 1) {
+            data = hash.iterator().next();
+        }
+        else {
+            data = hash.toArray(new Object[THRESHOLD]);
+        }
+        size = count;
+        modCount++;
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * 配列または単一の要素で表現している間の反復子。
+     */
+    private final class SmallIterator implements Iterator<E> {
+
+        private int position;
+
+        private int expectedModCount = modCount;
+
+        private boolean removable;
+
+        @Override
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        @Override
+        public E next() {
+            checkModification();
+            if (position >= size) {
+                throw new NoSuchElementException();
+            }
+            removable = true;
+            return elementAt(position++);
+        }
+
+        @Override
+        public void remove() {
+            if (removable == false) {
+                throw new IllegalStateException();
+            }
+            checkModification();
+            removeAt(--position);
+            expectedModCount = modCount;
+            removable = false;
+        }
+
+        private void checkModification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
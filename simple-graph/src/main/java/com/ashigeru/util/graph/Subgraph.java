@@ -0,0 +1,191 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 元のグラフのうち、条件に合致するノードのみを見せるビュー。
+ * <p>
+ * 条件の判定は、各ノードが参照されるたびに行う。
+ * 判定結果を保持するように指定した場合、それぞれのノードについて条件を一度だけ判定する。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ * @see Graphs#subgraphView(Graph, Matcher, boolean)
+ */
+final class Subgraph<V> extends GraphView<V> {
+
+    private final Graph<? extends V> graph;
+
+    private final Matcher<? super V> acceptor;
+
+    private final Map<Object, Boolean> matches;
+
+    private final Set<V> nodes;
+
+    /**
+     * インスタンスを生成する。
+     * @param graph 元のグラフ
+     * @param acceptor 部分グラフに含める頂点のみを許可するオブジェクト
+     * @param cache 条件の判定結果を保持する場合は{@code true}
+     */
+    Subgraph(Graph<? extends V> graph, Matcher<? super V> acceptor, boolean cache) {
+        assert graph != null;
+        assert acceptor != null;
+        this.graph = graph;
+        this.acceptor = acceptor;
+        this.matches = cache ? new HashMap<Object, Boolean>() : null;
+        this.nodes = new Filtered(graph.getNodeSet());
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        return graph.contains(node) && accepts(node);
+    }
+
+    @Override
+    public Set<V> getConnected(Object key) {
+        if (contains(key) == false) {
+            return Collections.emptySet();
+        }
+        return new Filtered(graph.getConnected(key));
+    }
+
+    @Override
+    public Set<V> getNodeSet() {
+        return nodes;
+    }
+
+    @Override
+    public boolean isConnected(Object from, Object to) {
+        return graph.isConnected(from, to) && accepts(from) && accepts(to);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.iterator().hasNext() == false;
+    }
+
+    @Override
+    public Iterator<Graph.Vertex<V>> iterator() {
+        return new ConvertIterator<V, Graph.Vertex<V>>(nodes.iterator()) {
+            @Override
+            Graph.Vertex<V> convert(V node) {
+                return new ViewVertex<V>(node, new Filtered(graph.getConnected(node)));
+            }
+        };
+    }
+
+    /**
+     * 指定のノードが条件に合致する場合のみ{@code true}を返す。
+     * @param node 元のグラフに含まれるノード
+     * @return 条件に合致する場合は{@code true}
+     */
+    boolean accepts(Object node) {
+        if (matches == null) {
+            return acceptor.matches(this.<V>cast(node));
+        }
+        Boolean cached = matches.get(node);
+        if (cached == null) {
+            cached = acceptor.matches(this.<V>cast(node));
+            matches.put(node, cached);
+        }
+        return cached;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cast(Object object) {
+        return (T) object;
+    }
+
+    /**
+     * 条件に合致するノードのみを見せる集合。
+     */
+    private final class Filtered extends AbstractSet<V> {
+
+        private final Set<? extends V> elements;
+
+        Filtered(Set<? extends V> elements) {
+            assert elements != null;
+            this.elements = elements;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return elements.contains(o) && accepts(o);
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            final Iterator<? extends V> iterator = elements.iterator();
+            return new Iterator<V>() {
+
+                private V next;
+
+                private boolean prepared;
+
+                @Override
+                public boolean hasNext() {
+                    while (prepared == false && iterator.hasNext()) {
+                        V candidate = iterator.next();
+                        if (accepts(candidate)) {
+                            next = candidate;
+                            prepared = true;
+                        }
+                    }
+                    return prepared;
+                }
+
+                @Override
+                public V next() {
+                    if (hasNext() == false) {
+                        throw new NoSuchElementException();
+                    }
+                    prepared = false;
+                    V result = next;
+                    next = null;
+                    return result;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int count = 0;
+            for (Iterator<V> iter = iterator(); iter.hasNext();) {
+                iter.next();
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return iterator().hasNext() == false;
+        }
+    }
+}
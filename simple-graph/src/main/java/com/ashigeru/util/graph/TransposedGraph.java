@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * 元のグラフの接続を逆向きに見せるビュー。
+ * @param <V> ノードを識別する値の型
+ * @see Graphs#transposeView(BidirectionalGraph)
+ */
+final class TransposedGraph<V> extends GraphView<V> implements BidirectionalGraph<V> {
+
+    private final BidirectionalGraph<V> graph;
+
+    /**
+     * インスタンスを生成する。
+     * @param graph 元のグラフ
+     */
+    TransposedGraph(BidirectionalGraph<V> graph) {
+        assert graph != null;
+        this.graph = graph;
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        return graph.contains(node);
+    }
+
+    @Override
+    public Set<V> getConnected(Object key) {
+        return Collections.unmodifiableSet(graph.getPredecessors(key));
+    }
+
+    @Override
+    public Set<V> getPredecessors(Object key) {
+        return Collections.unmodifiableSet(graph.getConnected(key));
+    }
+
+    @Override
+    public Set<V> getNodeSet() {
+        return Collections.unmodifiableSet(graph.getNodeSet());
+    }
+
+    @Override
+    public boolean isConnected(Object from, Object to) {
+        return graph.isConnected(to, from);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return graph.isEmpty();
+    }
+
+    @Override
+    public Iterator<Graph.Vertex<V>> iterator() {
+        return new ConvertIterator<V, Graph.Vertex<V>>(graph.getNodeSet().iterator()) {
+            @Override
+            Graph.Vertex<V> convert(V node) {
+                return new ViewVertex<V>(node, getConnected(node));
+            }
+        };
+    }
+}
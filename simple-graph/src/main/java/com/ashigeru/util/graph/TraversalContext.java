@@ -0,0 +1,276 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 同一のグラフに対する探索を繰り返し行うための文脈。
+ * <p>
+ * このオブジェクトは、探索に利用するキューやスタック、および訪問済みの印を
+ * 探索ごとに作り直さずに再利用する。
+ * 訪問済みの印は探索ごとに更新される世代番号で管理するため、探索の開始時に印を消去する必要はない。
+ * 一度訪問したノードについては以降の探索で新しいオブジェクトを生成しないため、
+ * 十分に探索を繰り返した後は、グラフ自身が生成する反復子を除いて新たなオブジェクトを生成しない。
+ * </p>
+ * <p>
+ * それぞれの探索結果は、呼び出し側が指定したコレクションに追加される。
+ * このクラスのインスタンスはスレッド安全でない。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ * @see Graphs
+ */
+public class TraversalContext<V> {
+
+    private final Graph<? extends V> graph;
+
+    private final Map<Object, Mark> marks = new HashMap<Object, Mark>();
+
+    private int generation;
+
+    private Object[] queue = new Object[16];
+
+    private Object[] stackNodes = new Object[16];
+
+    private Iterator<?>[] stackBranches = new Iterator<?>[16];
+
+    /**
+     * インスタンスを生成する。
+     * @param graph 探索対象のグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public TraversalContext(Graph<? extends V> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        this.graph = graph;
+    }
+
+    /**
+     * 指定のノード一覧から直接または間接的に後続する全てのノードを、指定のコレクションに追加する。
+     * <p>
+     * 追加されるノードは{@link Graphs#collectAllConnected(Graph, Collection)}の結果と同じである。
+     * </p>
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @param results 結果を追加するコレクション
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public void collectAllConnected(Collection<? extends V> startNodes, Collection<? super V> results) {
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (results == null) {
+            throw new IllegalArgumentException("results must not be null"); //$NON-NLS-1$
+        }
+        traverse(startNodes, null, null, results);
+    }
+
+    /**
+     * 指定の開始ノードを起点に、後続するノードの中から条件に合致するノードの一覧を、
+     * 指定のコレクションに追加する。
+     * <p>
+     * 追加されるノードは{@link Graphs#findNearest(Graph, Collection, Matcher)}の結果と同じである。
+     * </p>
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @param acceptor 利用する条件、合致するるものが条件に合致したとみなされる
+     * @param results 結果を追加するコレクション
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public void findNearest(
+            Collection<? extends V> startNodes,
+            Matcher<? super V> acceptor,
+            Collection<? super V> results) {
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (acceptor == null) {
+            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        }
+        if (results == null) {
+            throw new IllegalArgumentException("results must not be null"); //$NON-NLS-1$
+        }
+        traverse(startNodes, acceptor, results, null);
+    }
+
+    /**
+     * 指定の開始ノードを起点に、後続するノードの中から条件に合致するノードの一覧と、
+     * そこまでのノードの一覧を、指定のコレクションに追加する。
+     * <p>
+     * 追加されるノードは{@link Graphs#collectNearest(Graph, Collection, Matcher)}の結果と同じである。
+     * </p>
+     * @param startNodes 対象の開始ノードに割り当てられた値の一覧
+     * @param acceptor 利用する条件、合致するるものが条件に合致したとみなされる
+     * @param results 結果を追加するコレクション
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public void collectNearest(
+            Collection<? extends V> startNodes,
+            Matcher<? super V> acceptor,
+            Collection<? super V> results) {
+        if (startNodes == null) {
+            throw new IllegalArgumentException("startNodes must not be null"); //$NON-NLS-1$
+        }
+        if (acceptor == null) {
+            throw new IllegalArgumentException("acceptor must not be null"); //$NON-NLS-1$
+        }
+        if (results == null) {
+            throw new IllegalArgumentException("results must not be null"); //$NON-NLS-1$
+        }
+        traverse(startNodes, acceptor, null, results);
+    }
+
+    /**
+     * 対象のグラフに含まれるノードの一覧を、接続の末尾から順に指定のコレクションに追加する。
+     * <p>
+     * 追加されるノードの順序は{@link Graphs#sortPostOrder(Graph)}と同じ条件を満たす。
+     * </p>
+     * @param results 結果を追加するコレクション
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public void sortPostOrder(Collection<? super V> results) {
+        if (results == null) {
+            throw new IllegalArgumentException("results must not be null"); //$NON-NLS-1$
+        }
+        nextGeneration();
+        for (Graph.Vertex<? extends V> start : graph) {
+            if (visit(start.getNode()) == false) {
+                continue;
+            }
+            int top = push(0, start.getNode());
+            while (top > 0) {
+                Iterator<?> branches = stackBranches[top - 1];
+                if (branches.hasNext()) {
+                    Object node = branches.next();
+                    if (visit(node)) {
+                        top = push(top, node);
+                    }
+                }
+                else {
+                    top--;
+                    results.add(this.<V>cast(stackNodes[top]));
+                    stackNodes[top] = null;
+                    stackBranches[top] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * この文脈が保持している訪問済みの印を全て破棄する。
+     * <p>
+     * 対象のグラフから多数のノードを削除した後にこのメソッドを呼び出すと、
+     * 削除されたノードに関する情報が解放される。
+     * </p>
+     */
+    public void clear() {
+        marks.clear();
+        generation = 0;
+    }
+
+    private void traverse(
+            Collection<? extends V> startNodes,
+            Matcher<? super V> acceptor,
+            Collection<? super V> accepted,
+            Collection<? super V> visited) {
+        assert startNodes != null;
+        nextGeneration();
+        int tail = 0;
+        for (V start : startNodes) {
+            tail = enqueue(tail, graph.getConnected(start));
+        }
+        for (int head = 0; head < tail; head++) {
+            V node = cast(queue[head]);
+            queue[head] = null;
+            if (visited != null) {
+                visited.add(node);
+            }
+            if (acceptor != null && acceptor.matches(node)) {
+                if (accepted != null) {
+                    accepted.add(node);
+                }
+            }
+            else {
+                tail = enqueue(tail, graph.getConnected(node));
+            }
+        }
+    }
+
+    private int enqueue(int tail, Collection<?> nodes) {
+        int next = tail;
+        for (Object node : nodes) {
+            if (visit(node)) {
+                if (next == queue.length) {
+                    queue = Arrays.copyOf(queue, next * 2);
+                }
+                queue[next++] = node;
+            }
+        }
+        return next;
+    }
+
+    private int push(int top, Object node) {
+        if (top == stackNodes.length) {
+            stackNodes = Arrays.copyOf(stackNodes, top * 2);
+            stackBranches = Arrays.copyOf(stackBranches, top * 2);
+        }
+        stackNodes[top] = node;
+        stackBranches[top] = graph.getConnected(node).iterator();
+        return top + 1;
+    }
+
+    private void nextGeneration() {
+        if (generation == Integer.MAX_VALUE) {
+            for (Mark mark : marks.values()) {
+                mark.generation = 0;
+            }
+            generation = 0;
+        }
+        generation++;
+    }
+
+    private boolean visit(Object node) {
+        Mark mark = marks.get(node);
+        if (mark == null) {
+            mark = new Mark();
+            marks.put(node, mark);
+        }
+        else if (mark.generation == generation) {
+            return false;
+        }
+        mark.generation = generation;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cast(Object object) {
+        return (T) object;
+    }
+
+    /**
+     * ノードの訪問済みの印。
+     */
+    private static final class Mark {
+
+        /**
+         * 最後に訪問した探索の世代番号。
+         */
+        int generation;
+    }
+}
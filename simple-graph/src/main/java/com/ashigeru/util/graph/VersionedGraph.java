@@ -0,0 +1,34 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+/**
+ * 変更されるたびに版番号が更新されるグラフ。
+ * @param <V> ノードを識別する値
+ * @see AnalysisCache
+ */
+public interface VersionedGraph<V> extends Graph<V> {
+
+    /**
+     * このグラフの現在の版番号を返す。
+     * <p>
+     * このグラフのノードや接続が変更されると、以降この呼び出しはそれ以前と異なる値を返す。
+     * ノードや接続が変更されない限り、この呼び出しは同じ値を返す。
+     * </p>
+     * @return 現在の版番号
+     */
+    long getVersion();
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+/**
+ * 深さ優先探索でノードを列挙する順序。
+ * @see Graphs#depthFirst(Graph, java.util.Collection, VisitOrder, Matcher)
+ */
+public enum VisitOrder {
+
+    /**
+     * ノードを発見した時点で列挙する (前順)。
+     */
+    PRE_ORDER,
+
+    /**
+     * ノードから到達可能な全てのノードの探索を完了した時点で列挙する (後順)。
+     */
+    POST_ORDER
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link WeightedGraph}に対するアルゴリズム群。
+ * <p>
+ * いずれのアルゴリズムも、グラフがノードに割り当てた番号と、
+ * 接続先の番号および重みの配列のみを利用して探索する。
+ * </p>
+ */
+final class WeightedAlgorithms {
+
+    /**
+     * 指定の番号のノードを始点とする最短経路の一覧を、Dijkstraのアルゴリズムで求める。
+     * @param <V> ノードを識別する値の型
+     * @param graph 対象のグラフ
+     * @param source 始点の番号
+     * @return 最短経路の一覧
+     * @throws IllegalArgumentException 始点から到達可能な接続に負の重みが含まれる場合
+     */
+    static <V> ShortestPaths<V> computeShortestPaths(WeightedGraph<V> graph, int source) {
+        assert graph != null;
+        int limit = graph.getIdLimit();
+        double[] distances = new double[limit];
+        int[] previous = new int[limit];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        boolean[] settled = new boolean[limit];
+        DoubleHeap heap = new DoubleHeap(limit);
+        distances[source] = 0.0;
+        heap.offer(source, 0.0);
+        while (heap.isEmpty() == false) {
+            int node = heap.poll();
+            settled[node] = true;
+            double base = distances[node];
+            WeightedGraph.Edges edges = graph.getEdges(node);
+            int[] targets = edges.targets;
+            double[] weights = edges.weights;
+            for (int i = 0, n = edges.size; i < n; i++) {
+                double weight = weights[i];
+                if (weight < 0.0) {
+                    throw new IllegalArgumentException(MessageFormat.format(
+                            "weight must not be negative: {0} -> {1} ({2})", //$NON-NLS-1$
+                            graph.getValue(node),
+                            graph.getValue(targets[i]),
+                            weight));
+                }
+                int target = targets[i];
+                if (settled[target]) {
+                    continue;
+                }
+                double distance = base + weight;
+                if (distance < distances[target]) {
+                    distances[target] = distance;
+                    previous[target] = node;
+                    heap.offer(target, distance);
+                }
+            }
+        }
+        return new ShortestPaths<V>(graph, source, distances, previous);
+    }
+
+    /**
+     * 接続の重みの合計が最大となる経路を求める。
+     * @param <V> ノードを識別する値の型
+     * @param graph 対象のグラフ
+     * @return 重みの合計が最大となる経路、グラフが空の場合は空の経路
+     * @throws IllegalArgumentException グラフに循環が含まれる場合
+     */
+    static <V> WeightedPath<V> computeCriticalPath(WeightedGraph<V> graph) {
+        assert graph != null;
+        int limit = graph.getIdLimit();
+        double[] lengths = new double[limit];
+        int[] next = new int[limit];
+        Arrays.fill(next, -1);
+        // 0: 未訪問, 1: 訪問中, 2: 訪問済み
+        byte[] states = new byte[limit];
+        int[] stack = new int[limit];
+        int[] cursor = new int[limit];
+        int best = -1;
+        for (int start = 0; start < limit; start++) {
+            if (states[start] != 0 || graph.getEdges(start) == null) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = start;
+            states[start] = 1;
+            while (top > 0) {
+                int node = stack[top - 1];
+                WeightedGraph.Edges edges = graph.getEdges(node);
+                if (cursor[node] < edges.size) {
+                    int target = edges.targets[cursor[node]++];
+                    if (states[target] == 1) {
+                        throw new IllegalArgumentException(MessageFormat.format(
+                                "graph must be acyclic: {0}", //$NON-NLS-1$
+                                graph.getValue(target)));
+                    }
+                    if (states[target] == 0) {
+                        states[target] = 1;
+                        stack[top++] = target;
+                    }
+                }
+                else {
+                    // 接続先は全て確定しているため、このノードから始まる最長の経路を求める
+                    top--;
+                    states[node] = 2;
+                    double length = 0.0;
+                    int successor = -1;
+                    for (int i = 0; i < edges.size; i++) {
+                        int target = edges.targets[i];
+                        double candidate = edges.weights[i] + lengths[target];
+                        if (successor < 0 || candidate > length) {
+                            length = candidate;
+                            successor = target;
+                        }
+                    }
+                    if (successor >= 0 && length < 0.0) {
+                        length = 0.0;
+                        successor = -1;
+                    }
+                    lengths[node] = length;
+                    next[node] = successor;
+                    if (best < 0 || length > lengths[best]) {
+                        best = node;
+                    }
+                }
+            }
+        }
+        if (best < 0) {
+            return new WeightedPath<V>(Collections.<V>emptyList(), 0.0);
+        }
+        List<V> nodes = new ArrayList<V>();
+        for (int current = best; current >= 0; current = next[current]) {
+            nodes.add(graph.getValue(current));
+        }
+        return new WeightedPath<V>(Collections.unmodifiableList(nodes), lengths[best]);
+    }
+
+    /**
+     * インスタンス生成の禁止。
+     */
+    private WeightedAlgorithms() {
+        throw new AssertionError();
+    }
+}
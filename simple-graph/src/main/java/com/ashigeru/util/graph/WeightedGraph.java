@@ -0,0 +1,787 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.text.MessageFormat;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 各接続に重みを持つ{@link Graph}の実装。
+ * <p>
+ * このグラフは各ノードに整数の番号を割り当て、接続先の番号と重みをそれぞれ
+ * {@code int}と{@code double}の配列で保持する。
+ * 接続ごとにオブジェクトを生成しないため、重みを{@link Map}などで別途管理するよりも
+ * 少ないメモリで表現でき、{@link Graphs#shortestPaths(WeightedGraph, Object)}などの
+ * アルゴリズムは番号のみを利用して探索できる。
+ * </p>
+ * <p>
+ * {@link #addEdge(Object, Object)}で重みを指定せずに接続を追加した場合、
+ * その接続の重みは{@link #DEFAULT_WEIGHT}となる。
+ * </p>
+ * <p>
+ * {@link #getConnected(Object)}などが返す集合は変更できないビューであり、
+ * 以降のグラフへの変更が反映される。
+ * </p>
+ * <p>
+ * 二つの{@code WeightedGraph}は、同じノードの集合を持ち、各ノードの接続先の集合が等しく、
+ * さらに対応する接続の重みがいずれも等しい場合のみ等価である。
+ * 重みは{@link Double#doubleToLongBits(double)}の値で比較する。
+ * ノードの番号の割り当ては等価性に影響しない。
+ * </p>
+ * <p>
+ * このクラスのインスタンスはスレッド安全でない。
+ * </p>
+ * @param <V> ノードを識別する値の型
+ */
+public class WeightedGraph<V> implements VersionedGraph<V> {
+
+    /**
+     * 重みを指定せずに追加した接続の重み。
+     */
+    public static final double DEFAULT_WEIGHT = 1.0;
+
+    private final Map<V, Integer> ids;
+
+    private Object[] values;
+
+    private Edges[] edges;
+
+    private int limit;
+
+    private int[] free;
+
+    private int freeCount;
+
+    private long version;
+
+    /**
+     * 空のグラフを生成する。
+     */
+    public WeightedGraph() {
+        this.ids = new HashMap<V, Integer>();
+        this.values = new Object[16];
+        this.edges = new Edges[16];
+        this.free = new int[0];
+    }
+
+    /**
+     * 指定のグラフと同じ接続を持つグラフを生成する。
+     * <p>
+     * 指定のグラフが{@code WeightedGraph}である場合は各接続の重みも複製し、
+     * そうでない場合は全ての接続の重みを{@link #DEFAULT_WEIGHT}とする。
+     * </p>
+     * @param graph 複製元のグラフ
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public WeightedGraph(Graph<? extends V> graph) {
+        this();
+        if (graph == null) {
+            throw new IllegalArgumentException("graph must not be null"); //$NON-NLS-1$
+        }
+        if (graph instanceof WeightedGraph<?>) {
+            WeightedGraph<? extends V> other = (WeightedGraph<? extends V>) graph;
+            for (Graph.Vertex<? extends V> vertex : other) {
+                V from = vertex.getNode();
+                addNode(from);
+                for (V to : vertex.getConnected()) {
+                    addEdge(from, to, other.getWeight(from, to));
+                }
+            }
+        }
+        else {
+            for (Graph.Vertex<? extends V> vertex : graph) {
+                addEdges(vertex.getNode(), vertex.getConnected());
+            }
+        }
+    }
+
+    @Override
+    public void addEdge(V from, V to) {
+        int fromId = prepare(from);
+        int toId = prepare(to);
+        if (edges[fromId].indexOf(toId) < 0) {
+            edges[fromId].put(toId, DEFAULT_WEIGHT);
+            version++;
+        }
+    }
+
+    /**
+     * 指定の重みを持つ接続を追加する。
+     * <p>
+     * この呼び出しはまず{@link #addNode(Object)}によってそれぞれのノードを
+     * グラフに追加したのち、ノード間の接続を追加する。
+     * すでに接続が存在する場合は、その接続の重みを置き換える。
+     * </p>
+     * @param from 接続元のノード
+     * @param to 接続先のノード
+     * @param weight 接続の重み
+     * @throws IllegalArgumentException 重みが{@code NaN}である場合
+     */
+    public void addEdge(V from, V to, double weight) {
+        if (Double.isNaN(weight)) {
+            throw new IllegalArgumentException("weight must not be NaN"); //$NON-NLS-1$
+        }
+        int fromId = prepare(from);
+        int toId = prepare(to);
+        if (edges[fromId].put(toId, weight)) {
+            version++;
+        }
+    }
+
+    @Override
+    public void addEdges(V from, Collection<? extends V> to) {
+        if (to == null) {
+            throw new IllegalArgumentException("to is null"); //$NON-NLS-1$
+        }
+        addNode(from);
+        for (V v : to) {
+            addEdge(from, v);
+        }
+    }
+
+    @Override
+    public void addNode(V node) {
+        prepare(node);
+    }
+
+    @Override
+    public void clear() {
+        if (ids.isEmpty() == false) {
+            version++;
+        }
+        ids.clear();
+        for (int i = 0; i < limit; i++) {
+            if (edges[i] != null) {
+                edges[i].clear();
+            }
+        }
+        Arrays.fill(values, 0, limit, null);
+        Arrays.fill(edges, 0, limit, null);
+        limit = 0;
+        freeCount = 0;
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        return ids.containsKey(node);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        WeightedGraph<?> other = (WeightedGraph<?>) obj;
+        if (ids.size() != other.ids.size()) {
+            return false;
+        }
+        for (Map.Entry<V, Integer> entry : ids.entrySet()) {
+            int otherId = other.getId(entry.getKey());
+            if (otherId < 0) {
+                return false;
+            }
+            Edges mine = edges[entry.getValue()];
+            Edges theirs = other.edges[otherId];
+            if (mine.size != theirs.size) {
+                return false;
+            }
+            for (int i = 0; i < mine.size; i++) {
+                int target = other.getId(values[mine.targets[i]]);
+                if (target < 0) {
+                    return false;
+                }
+                int index = theirs.indexOf(target);
+                if (index < 0) {
+                    return false;
+                }
+                if (Double.doubleToLongBits(mine.weights[i])
+                        != Double.doubleToLongBits(theirs.weights[index])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<V> getConnected(Object key) {
+        int id = getId(key);
+        if (id < 0) {
+            return Collections.emptySet();
+        }
+        return new Successors(edges[id]);
+    }
+
+    @Override
+    public Set<V> getNodeSet() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    /**
+     * 指定の接続の重みを返す。
+     * @param from 接続元のノード
+     * @param to 接続先のノード
+     * @return 接続の重み、接続が存在しない場合は{@code NaN}
+     */
+    public double getWeight(Object from, Object to) {
+        int fromId = getId(from);
+        int toId = getId(to);
+        if (fromId < 0 || toId < 0) {
+            return Double.NaN;
+        }
+        Edges successors = edges[fromId];
+        int index = successors.indexOf(toId);
+        if (index < 0) {
+            return Double.NaN;
+        }
+        return successors.weights[index];
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int hashCode() {
+        // 重みは含めない (等価なグラフは同じ接続を持つため、等価性と矛盾しない)
+        final int prime = 31;
+        int result = 0;
+        for (Map.Entry<V, Integer> entry : ids.entrySet()) {
+            V node = entry.getKey();
+            int vertex = prime + ((node == null) ? 0 : node.hashCode());
+            vertex = prime * vertex + new Successors(edges[entry.getValue()]).hashCode();
+            result += vertex;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isConnected(Object from, Object to) {
+        int fromId = getId(from);
+        int toId = getId(to);
+        if (fromId < 0 || toId < 0) {
+            return false;
+        }
+        return edges[fromId].indexOf(toId) >= 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ids.isEmpty();
+    }
+
+    @Override
+    public Iterator<Graph.Vertex<V>> iterator() {
+        final Iterator<Map.Entry<V, Integer>> iterator = ids.entrySet().iterator();
+        return new Iterator<Graph.Vertex<V>>() {
+
+            private int current = -1;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Graph.Vertex<V> next() {
+                current = iterator.next().getValue();
+                return new WeightedVertex(current);
+            }
+
+            @Override
+            public void remove() {
+                if (current < 0) {
+                    throw new IllegalStateException();
+                }
+                iterator.remove();
+                release(current);
+                current = -1;
+            }
+        };
+    }
+
+    @Override
+    public void removeEdge(Object from, Object to) {
+        int fromId = getId(from);
+        int toId = getId(to);
+        if (fromId < 0 || toId < 0) {
+            return;
+        }
+        if (edges[fromId].remove(toId)) {
+            version++;
+        }
+    }
+
+    @Override
+    public void removeNode(Object node) {
+        Integer id = ids.remove(node);
+        if (id != null) {
+            release(id);
+        }
+    }
+
+    @Override
+    public void removeNodes(Collection<?> nodes) {
+        if (nodes == null) {
+            throw new IllegalArgumentException("nodes is null"); //$NON-NLS-1$
+        }
+        BitSet removed = new BitSet();
+        for (Object node : nodes) {
+            Integer id = ids.remove(node);
+            if (id != null) {
+                detach(id);
+                removed.set(id);
+            }
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < limit; i++) {
+            Edges other = edges[i];
+            if (other != null) {
+                other.removeAll(removed);
+            }
+        }
+        version++;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append('[');
+        for (Iterator<Graph.Vertex<V>> iter = iterator(); iter.hasNext();) {
+            buf.append(iter.next());
+            if (iter.hasNext()) {
+                buf.append(", "); //$NON-NLS-1$
+            }
+        }
+        buf.append(']');
+        return buf.toString();
+    }
+
+    /**
+     * 指定のノードに割り当てられた番号を返す。
+     * @param node 対象のノード
+     * @return 対応する番号、存在しない場合は{@code -1}
+     */
+    int getId(Object node) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * 指定の番号に対応するノードを返す。
+     * @param id 対象の番号
+     * @return 対応するノード
+     */
+    @SuppressWarnings("unchecked")
+    V getValue(int id) {
+        return (V) values[id];
+    }
+
+    /**
+     * 割り当てた番号の上限 (この値を含まない) を返す。
+     * <p>
+     * 削除されたノードの番号は再利用されるまで欠番となり、
+     * {@link #getEdges(int)}は{@code null}を返す。
+     * </p>
+     * @return 番号の上限
+     */
+    int getIdLimit() {
+        return limit;
+    }
+
+    /**
+     * 指定の番号に対応するノードの接続先を返す。
+     * @param id 対象の番号
+     * @return 接続先の一覧、欠番の場合は{@code null}
+     */
+    Edges getEdges(int id) {
+        return edges[id];
+    }
+
+    /**
+     * 指定の版から、このグラフが変更されていないことを確認する。
+     * @param expected 確認する版
+     * @throws ConcurrentModificationException グラフが変更されていた場合
+     */
+    void checkVersion(long expected) {
+        if (version != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private int prepare(V node) {
+        Integer found = ids.get(node);
+        if (found != null) {
+            return found;
+        }
+        int id;
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        }
+        else {
+            if (limit == values.length) {
+                values = Arrays.copyOf(values, limit * 2);
+                edges = Arrays.copyOf(edges, limit * 2);
+            }
+            id = limit++;
+        }
+        values[id] = node;
+        edges[id] = new Edges();
+        ids.put(node, id);
+        version++;
+        return id;
+    }
+
+    private void release(int id) {
+        detach(id);
+        for (int i = 0; i < limit; i++) {
+            Edges other = edges[i];
+            if (other != null) {
+                other.remove(id);
+            }
+        }
+        version++;
+    }
+
+    /**
+     * 指定の番号のノードを破棄し、番号を再利用できるようにする。
+     * <p>
+     * 他のノードからの接続は削除しない。
+     * </p>
+     * @param id 対象の番号
+     */
+    private void detach(int id) {
+        values[id] = null;
+        edges[id].clear();
+        edges[id] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, Math.max(8, freeCount * 2));
+        }
+        free[freeCount++] = id;
+    }
+
+    /**
+     * 特定のノードの接続先と、それぞれの重みの一覧。
+     * <p>
+     * 接続先の数が{@link #INDEX_THRESHOLD}を超える場合、
+     * 接続先の番号から位置を求めるための開番地法のハッシュ表を併せて保持する。
+     * </p>
+     */
+    static final class Edges {
+
+        static final int INDEX_THRESHOLD = 8;
+
+        /**
+         * 接続先の番号。
+         */
+        int[] targets = new int[2];
+
+        /**
+         * 接続の重み。
+         */
+        double[] weights = new double[2];
+
+        /**
+         * 接続先の数。
+         */
+        int size;
+
+        /**
+         * 接続先の番号から位置 + 1 を求めるハッシュ表 (未構築の場合は{@code null})。
+         */
+        private int[] table;
+
+        /**
+         * 指定の接続先の位置を返す。
+         * @param target 接続先の番号
+         * @return 位置、存在しない場合は{@code -1}
+         */
+        int indexOf(int target) {
+            if (size <= INDEX_THRESHOLD) {
+                for (int i = 0; i < size; i++) {
+                    if (targets[i] == target) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            if (table == null) {
+                rebuild();
+            }
+            int mask = table.length - 1;
+            for (int slot = hash(target) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                int index = table[slot] - 1;
+                if (targets[index] == target) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 接続を追加または置換する。
+         * @param target 接続先の番号
+         * @param weight 重み
+         * @return 変更があった場合は{@code true}
+         */
+        boolean put(int target, double weight) {
+            int index = indexOf(target);
+            if (index >= 0) {
+                if (Double.doubleToLongBits(weights[index]) == Double.doubleToLongBits(weight)) {
+                    return false;
+                }
+                weights[index] = weight;
+                return true;
+            }
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+            if (table != null) {
+                if (size * 2 > table.length) {
+                    rebuild();
+                }
+                else {
+                    insert(size - 1);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 接続を削除する。
+         * @param target 接続先の番号
+         * @return 削除した場合は{@code true}
+         */
+        boolean remove(int target) {
+            int index = indexOf(target);
+            if (index < 0) {
+                return false;
+            }
+            int last = size - 1;
+            if (table != null) {
+                // 削除した位置を詰め、末尾から移動する接続先の位置を付け替える
+                erase(slotOf(target));
+                if (index != last) {
+                    table[slotOf(targets[last])] = index + 1;
+                }
+            }
+            targets[index] = targets[last];
+            weights[index] = weights[last];
+            size = last;
+            if (size <= INDEX_THRESHOLD) {
+                table = null;
+            }
+            return true;
+        }
+
+        /**
+         * 指定の番号のいずれかを接続先とする接続を全て削除する。
+         * @param removed 削除する接続先の番号
+         */
+        void removeAll(BitSet removed) {
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                if (removed.get(targets[i]) == false) {
+                    targets[next] = targets[i];
+                    weights[next] = weights[i];
+                    next++;
+                }
+            }
+            if (next == size) {
+                return;
+            }
+            size = next;
+            if (table != null) {
+                if (size <= INDEX_THRESHOLD) {
+                    table = null;
+                }
+                else {
+                    rebuild();
+                }
+            }
+        }
+
+        /**
+         * 全ての接続を削除する。
+         */
+        void clear() {
+            size = 0;
+            table = null;
+        }
+
+        private void rebuild() {
+            int capacity = Integer.highestOneBit(Math.max(size, 1) * 4 - 1) << 1;
+            table = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                insert(i);
+            }
+        }
+
+        private int slotOf(int target) {
+            int mask = table.length - 1;
+            for (int slot = hash(target) & mask; true; slot = (slot + 1) & mask) {
+                assert table[slot] != 0;
+                if (targets[table[slot] - 1] == target) {
+                    return slot;
+                }
+            }
+        }
+
+        /**
+         * ハッシュ表の指定の位置を空け、後続の要素を探索可能な位置まで前に詰める。
+         * @param slot 対象の位置
+         */
+        private void erase(int slot) {
+            int mask = table.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+                int home = hash(targets[table[next] - 1]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    table[hole] = table[next];
+                    hole = next;
+                }
+            }
+            table[hole] = 0;
+        }
+
+        private void insert(int index) {
+            int mask = table.length - 1;
+            int slot = hash(targets[index]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+
+        private static int hash(int value) {
+            int h = value * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * 特定のノードの接続先を表す集合のビュー。
+     * <p>
+     * ノードの番号ではなく接続先の一覧そのものを参照するため、
+     * 対象のノードが削除された後は、その番号が再利用されても空の集合として振る舞う。
+     * </p>
+     */
+    private final class Successors extends AbstractSet<V> {
+
+        private final Edges successors;
+
+        Successors(Edges successors) {
+            assert successors != null;
+            this.successors = successors;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+
+                private int position = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return position < successors.size;
+                }
+
+                @Override
+                public V next() {
+                    if (hasNext() == false) {
+                        throw new NoSuchElementException();
+                    }
+                    return getValue(successors.targets[position++]);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return successors.size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int to = getId(o);
+            if (to < 0) {
+                return false;
+            }
+            return successors.indexOf(to) >= 0;
+        }
+    }
+
+    /**
+     * 特定のノードとその接続先を表す頂点。
+     */
+    private final class WeightedVertex implements Vertex<V> {
+
+        private final V node;
+
+        private final Edges successors;
+
+        WeightedVertex(int id) {
+            this.node = getValue(id);
+            this.successors = edges[id];
+        }
+
+        @Override
+        public Set<V> getConnected() {
+            return new Successors(successors);
+        }
+
+        @Override
+        public V getNode() {
+            return node;
+        }
+
+        @Override
+        public String toString() {
+            return MessageFormat.format("{0} => {1}", getNode(), getConnected());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import java.util.List;
+
+/**
+ * 重み付きグラフ上の経路。
+ * @param <V> ノードを識別する値の型
+ */
+public final class WeightedPath<V> {
+
+    private final List<V> nodes;
+
+    private final double length;
+
+    /**
+     * インスタンスを生成する。
+     * @param nodes 経路上のノードの一覧 (変更されないリスト)
+     * @param length 経路の長さ
+     */
+    WeightedPath(List<V> nodes, double length) {
+        assert nodes != null;
+        this.nodes = nodes;
+        this.length = length;
+    }
+
+    /**
+     * 経路上のノードを始点から順に並べたリストを返す。
+     * @return 経路上のノードの一覧
+     */
+    public List<V> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 経路の長さ (経路上の接続の重みの合計) を返す。
+     * @return 経路の長さ
+     */
+    public double getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return nodes + " (" + length + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link AnalysisCache}.
+ */
+public class AnalysisCacheTest {
+
+    /**
+     * 同じ版のグラフに対する解析結果を再利用する。
+     */
+    @Test
+    public void reuse() {
+        HashGraph<Integer> graph = new HashGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 2);
+        AnalysisCache<Integer> cache = new AnalysisCache<Integer>(graph, 100);
+
+        Set<Set<Integer>> circuits = cache.findCircuit();
+        assertThat(circuits, is(Graphs.findCircuit(graph)));
+        assertThat(cache.findCircuit(), sameInstance(circuits));
+
+        Set<Integer> heads = cache.collectHeads();
+        assertThat(heads, is(set(1)));
+        assertThat(cache.collectHeads(), sameInstance(heads));
+
+        Set<Integer> tails = cache.collectTails();
+        assertThat(tails, is(set()));
+        assertThat(cache.collectTails(), sameInstance(tails));
+
+        Set<Set<Integer>> sccs = cache.findStronglyConnectedComponents();
+        assertThat(sccs, is(Graphs.findStronglyConnectedComponents(graph)));
+        assertThat(cache.findStronglyConnectedComponents(), sameInstance(sccs));
+    }
+
+    /**
+     * グラフが変更されると解析結果を破棄する。
+     */
+    @Test
+    public void invalidate() {
+        HashGraph<Integer> graph = new HashGraph<Integer>();
+        graph.addEdge(1, 2);
+        AnalysisCache<Integer> cache = new AnalysisCache<Integer>(graph, 100);
+
+        List<Integer> order = cache.sortPostOrder();
+        assertThat(order, is(Arrays.asList(2, 1)));
+        assertThat(cache.sortPostOrder(), sameInstance(order));
+
+        graph.addEdge(2, 3);
+        assertThat(cache.sortPostOrder(), is(Arrays.asList(3, 2, 1)));
+        assertThat(cache.collectTails(), is(set(3)));
+
+        graph.removeNode(3);
+        assertThat(cache.collectTails(), is(set(2)));
+    }
+
+    /**
+     * 上限を超える場合は古い解析結果から破棄する。
+     */
+    @Test
+    public void capacity() {
+        HashGraph<Integer> graph = new HashGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdge(3, 4);
+        AnalysisCache<Integer> cache = new AnalysisCache<Integer>(graph, 4);
+
+        Set<Integer> heads = cache.collectHeads();
+        Set<Integer> tails = cache.collectTails();
+        assertThat(cache.collectHeads(), sameInstance(heads));
+
+        List<Integer> order = cache.sortPostOrder();
+        assertThat(cache.sortPostOrder(), sameInstance(order));
+        assertThat(cache.collectTails(), not(sameInstance(tails)));
+        assertThat(cache.collectTails(), is(tails));
+
+        AnalysisCache<Integer> empty = new AnalysisCache<Integer>(graph, 0);
+        Set<Integer> uncached = empty.collectHeads();
+        assertThat(empty.collectHeads(), not(sameInstance(uncached)));
+    }
+
+    /**
+     * 解析結果は変更できない。
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void unmodifiable() {
+        HashGraph<Integer> graph = new HashGraph<Integer>();
+        graph.addEdge(1, 2);
+        AnalysisCache<Integer> cache = new AnalysisCache<Integer>(graph, 100);
+        cache.collectHeads().add(3);
+    }
+
+    private Set<Integer> set(Integer...values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}
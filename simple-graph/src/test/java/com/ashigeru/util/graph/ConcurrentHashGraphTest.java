@@ -0,0 +1,135 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link ConcurrentHashGraph}.
+ */
+public class ConcurrentHashGraphTest {
+
+    /**
+     * 基本的な操作。
+     */
+    @Test
+    public void simple() {
+        ConcurrentHashGraph<Integer> graph = new ConcurrentHashGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdges(2, Arrays.asList(3, 4));
+        graph.addNode(5);
+        assertThat(graph.getNodeSet(), is(set(1, 2, 3, 4, 5)));
+        assertThat(graph.getConnected(2), is(set(3, 4)));
+        assertThat(graph.isConnected(1, 2), is(true));
+        assertThat(graph.isConnected(2, 1), is(false));
+        assertThat(graph.getConnected(null), is(set()));
+
+        graph.removeEdge(2, 3);
+        assertThat(graph.getConnected(2), is(set(4)));
+        graph.removeNode(2);
+        assertThat(graph.getNodeSet(), is(set(1, 3, 4, 5)));
+        assertThat(graph.getConnected(1), is(set()));
+
+        graph.removeNodes(Arrays.asList(3, 5, 6));
+        assertThat(graph.getNodeSet(), is(set(1, 4)));
+    }
+
+    /**
+     * 反復中の変更。
+     */
+    @Test
+    public void iterator_remove() {
+        ConcurrentHashGraph<Integer> graph = new ConcurrentHashGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 1);
+        for (Iterator<Graph.Vertex<Integer>> iter = graph.iterator(); iter.hasNext();) {
+            Graph.Vertex<Integer> vertex = iter.next();
+            if (vertex.getNode() == 2) {
+                iter.remove();
+            }
+            else {
+                graph.addEdge(vertex.getNode(), 10 + vertex.getNode());
+            }
+        }
+        assertThat(graph.contains(2), is(false));
+        assertThat(graph.getConnected(1), is(set(11)));
+        assertThat(graph.getConnected(3), is(set(1, 13)));
+    }
+
+    /**
+     * 複数のスレッドから同時に接続を追加。
+     * @throws Exception if failed
+     */
+    @Test
+    public void concurrent() throws Exception {
+        final ConcurrentHashGraph<Integer> graph = new ConcurrentHashGraph<Integer>(16);
+        final int size = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 16; t++) {
+                final int offset = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < size; i++) {
+                            graph.addEdge(i, (i + offset) % size);
+                            if (i % 100 == offset) {
+                                graph.removeEdge(i, (i + offset) % size);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertThat(graph.getNodeSet().size(), is(size));
+        for (int i = 0; i < size; i++) {
+            Set<Integer> expected = new HashSet<Integer>();
+            for (int t = 0; t < 16; t++) {
+                if (i % 100 != t) {
+                    expected.add((i + t) % size);
+                }
+            }
+            assertThat(graph.getConnected(i), is(expected));
+        }
+    }
+
+    private Set<Integer> set(Integer...values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link DependencyScheduler}.
+ */
+public class DependencySchedulerTest {
+
+    private ExecutorService executor;
+
+    /**
+     * Initializes the test.
+     */
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    /**
+     * Cleans up the test.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 接続先から順に実行する。
+     * @throws Exception if failed
+     */
+    @Test
+    public void successorsFirst() throws Exception {
+        Graph<Integer> graph = randomDag(new Random(1), 500, 2000);
+        final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+        DependencyScheduler scheduler = new DependencyScheduler(executor);
+        scheduler.start(graph, new DependencyScheduler.Task<Integer>() {
+            @Override
+            public void execute(Integer node) {
+                order.add(node);
+            }
+        }).await();
+
+        assertThat(order.size(), is(graph.getNodeSet().size()));
+        for (Graph.Vertex<Integer> vertex : graph) {
+            for (Integer successor : vertex.getConnected()) {
+                assertThat(order.indexOf(successor), lessThan(order.indexOf(vertex.getNode())));
+            }
+        }
+    }
+
+    /**
+     * 接続元から順に、同時実行数を制限して実行する。
+     * @throws Exception if failed
+     */
+    @Test
+    public void predecessorsFirst_bounded() throws Exception {
+        Graph<Integer> graph = randomDag(new Random(2), 200, 400);
+        final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        DependencyScheduler scheduler = new DependencyScheduler(
+                executor,
+                DependencyScheduler.Direction.PREDECESSORS_FIRST,
+                2);
+        scheduler.start(graph, new DependencyScheduler.Task<Integer>() {
+            @Override
+            public void execute(Integer node) throws Exception {
+                int current = running.incrementAndGet();
+                synchronized (peak) {
+                    peak.set(Math.max(peak.get(), current));
+                }
+                Thread.sleep(1);
+                order.add(node);
+                running.decrementAndGet();
+            }
+        }).await();
+
+        assertThat(order.size(), is(graph.getNodeSet().size()));
+        assertThat(peak.get(), lessThanOrEqualTo(2));
+        for (Graph.Vertex<Integer> vertex : graph) {
+            for (Integer successor : vertex.getConnected()) {
+                assertThat(order.indexOf(vertex.getNode()), lessThan(order.indexOf(successor)));
+            }
+        }
+    }
+
+    /**
+     * 失敗した処理に依存する処理は実行しない。
+     * @throws Exception if failed
+     */
+    @Test
+    public void failure() throws Exception {
+        Graph<Integer> graph = Graphs.newInstance();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(4, 2);
+        graph.addEdge(5, 6);
+        final Set<Integer> executed = Collections.synchronizedSet(new HashSet<Integer>());
+        DependencyScheduler.Execution<Integer> execution = new DependencyScheduler(executor).start(
+                graph,
+                new DependencyScheduler.Task<Integer>() {
+                    @Override
+                    public void execute(Integer node) {
+                        if (node == 2) {
+                            throw new IllegalStateException();
+                        }
+                        executed.add(node);
+                    }
+                });
+        try {
+            execution.await();
+            fail();
+        }
+        catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+        assertThat(executed, is(set(3, 5, 6)));
+        assertThat(execution.getFailures().keySet(), is(set(2)));
+        assertThat(execution.getSkipped(), is(set(1, 4)));
+        assertThat(execution.isDone(), is(true));
+    }
+
+    /**
+     * 処理を取り消す。
+     * @throws Exception if failed
+     */
+    @Test
+    public void cancel() throws Exception {
+        Graph<Integer> graph = Graphs.newInstance();
+        for (int i = 0; i < 100; i++) {
+            graph.addEdge(i + 1, i);
+        }
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger();
+        DependencyScheduler.Execution<Integer> execution = new DependencyScheduler(executor).start(
+                graph,
+                new DependencyScheduler.Task<Integer>() {
+                    @Override
+                    public void execute(Integer node) throws Exception {
+                        if (node == 10) {
+                            started.countDown();
+                            blocker.await();
+                        }
+                        count.incrementAndGet();
+                    }
+                });
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        execution.cancel();
+        blocker.countDown();
+        try {
+            execution.await();
+            fail();
+        }
+        catch (CancellationException e) {
+            // ok.
+        }
+        assertThat(count.get(), is(11));
+        assertThat(execution.getSkipped().size(), is(90));
+    }
+
+    /**
+     * 呼び出し元のスレッドで処理を実行する{@link Executor}で長い依存関係の連鎖を処理する。
+     * @throws Exception if failed
+     */
+    @Test
+    public void sameThread_longChain() throws Exception {
+        Graph<Integer> graph = Graphs.newInstance();
+        int size = 100000;
+        for (int i = 0; i < size; i++) {
+            graph.addEdge(i + 1, i);
+        }
+        final AtomicInteger last = new AtomicInteger(-1);
+        final AtomicInteger count = new AtomicInteger();
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        DependencyScheduler.Execution<Integer> execution = new DependencyScheduler(direct).start(
+                graph,
+                new DependencyScheduler.Task<Integer>() {
+                    @Override
+                    public void execute(Integer node) {
+                        assertThat(node, is(last.get() + 1));
+                        last.set(node);
+                        count.incrementAndGet();
+                    }
+                });
+        assertThat(execution.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(count.get(), is(size + 1));
+        assertThat(execution.getFailures().isEmpty(), is(true));
+    }
+
+    /**
+     * 循環を含むグラフ。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cyclic() {
+        Graph<Integer> graph = Graphs.newInstance();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 1);
+        new DependencyScheduler(executor).start(graph, new DependencyScheduler.Task<Integer>() {
+            @Override
+            public void execute(Integer node) {
+                return;
+            }
+        });
+    }
+
+    private Graph<Integer> randomDag(Random random, int nodes, int edges) {
+        Graph<Integer> graph = Graphs.newInstance();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            int a = random.nextInt(nodes);
+            int b = random.nextInt(nodes);
+            if (a != b) {
+                graph.addEdge(Math.min(a, b), Math.max(a, b));
+            }
+        }
+        return graph;
+    }
+
+    private Set<Integer> set(Integer...values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link DynamicDag}.
+ */
+public class DynamicDagTest {
+
+    /**
+     * 接続を追加するたびに順序を保持する。
+     */
+    @Test
+    public void sortPostOrder() {
+        DynamicDag<Integer> dag = new DynamicDag<Integer>();
+        dag.addNode(1);
+        dag.addNode(2);
+        dag.addNode(3);
+        dag.addNode(4);
+        dag.addEdge(4, 3);
+        assertPostOrdered(dag);
+        dag.addEdge(3, 2);
+        assertPostOrdered(dag);
+        dag.addEdge(2, 1);
+        assertPostOrdered(dag);
+        assertThat(dag.sortPostOrder(), is(Arrays.asList(1, 2, 3, 4)));
+        assertThat(Graphs.sortPostOrder(dag), is(Arrays.asList(1, 2, 3, 4)));
+    }
+
+    /**
+     * 循環する接続は追加できない。
+     */
+    @Test
+    public void addEdge_cyclic() {
+        DynamicDag<Integer> dag = new DynamicDag<Integer>();
+        dag.addEdge(1, 2);
+        dag.addEdge(2, 3);
+        try {
+            dag.addEdge(3, 1);
+            fail();
+        }
+        catch (CyclicEdgeException e) {
+            assertThat(e.getFrom(), is((Object) 3));
+            assertThat(e.getTo(), is((Object) 1));
+            assertThat(e.getPath(), is(Arrays.<Object>asList(1, 2, 3)));
+        }
+        try {
+            dag.addEdge(3, 3);
+            fail();
+        }
+        catch (CyclicEdgeException e) {
+            assertThat(e.getPath(), is(Arrays.<Object>asList(3)));
+        }
+        assertThat(dag.getConnected(3), is(set()));
+        assertPostOrdered(dag);
+    }
+
+    /**
+     * 循環する接続の追加を試みる。
+     */
+    @Test
+    public void tryAddEdge() {
+        DynamicDag<Integer> dag = new DynamicDag<Integer>();
+        assertThat(dag.tryAddEdge(1, 2), is(true));
+        assertThat(dag.tryAddEdge(2, 3), is(true));
+        assertThat(dag.tryAddEdge(1, 3), is(true));
+        assertThat(dag.tryAddEdge(3, 1), is(false));
+        assertThat(dag.tryAddEdge(1, 2), is(true));
+        assertThat(dag.isConnected(3, 1), is(false));
+        assertPostOrdered(dag);
+    }
+
+    /**
+     * 循環する接続を含む一覧は追加できない。
+     */
+    @Test
+    public void addEdges_cyclic() {
+        DynamicDag<Integer> dag = new DynamicDag<Integer>();
+        dag.addEdge(1, 2);
+        try {
+            dag.addEdges(2, Arrays.asList(3, 4, 1));
+            fail();
+        }
+        catch (CyclicEdgeException e) {
+            assertThat(e.getPath(), is(Arrays.<Object>asList(1, 2)));
+        }
+        assertThat(dag.getNodeSet(), is(set(1, 2)));
+        assertThat(dag.getConnected(2), is(set()));
+        assertPostOrdered(dag);
+    }
+
+    /**
+     * ノードを削除。
+     */
+    @Test
+    public void removeNode() {
+        DynamicDag<Integer> dag = new DynamicDag<Integer>();
+        for (int i = 0; i < 100; i++) {
+            dag.addEdge(i + 1, i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            dag.removeNode(i);
+        }
+        assertThat(dag.getNodeSet().size(), is(51));
+        assertThat(dag.getConnected(3), is(set()));
+        assertThat(dag.sortPostOrder().size(), is(51));
+        dag.addEdge(1, 99);
+        assertPostOrdered(dag);
+    }
+
+    /**
+     * 無作為な接続を追加。
+     */
+    @Test
+    public void random() {
+        Random random = new Random(1234);
+        DynamicDag<Integer> dag = new DynamicDag<Integer>();
+        Graph<Integer> shadow = Graphs.newInstance();
+        for (int i = 0; i < 2000; i++) {
+            int from = random.nextInt(200);
+            int to = random.nextInt(200);
+            shadow.addEdge(from, to);
+            boolean cyclic = Graphs.findCircuit(shadow).isEmpty() == false;
+            try {
+                dag.addEdge(from, to);
+                assertThat(cyclic, is(false));
+            }
+            catch (CyclicEdgeException e) {
+                assertThat(cyclic, is(true));
+                shadow.removeEdge(from, to);
+            }
+        }
+        assertPostOrdered(dag);
+    }
+
+    private void assertPostOrdered(DynamicDag<Integer> dag) {
+        List<Integer> list = dag.sortPostOrder();
+        assertThat(new HashSet<Integer>(list), is(dag.getNodeSet()));
+        for (int i = 0, n = list.size(); i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                assertThat(dag.isConnected(list.get(i), list.get(j)), is(false));
+            }
+        }
+    }
+
+    private Set<Integer> set(Integer...values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}
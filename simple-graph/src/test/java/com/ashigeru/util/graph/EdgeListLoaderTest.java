@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for {@link EdgeListLoader}.
+ */
+public class EdgeListLoaderTest {
+
+    private File file;
+
+    /**
+     * Cleans up the test.
+     */
+    @After
+    public void tearDown() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * 単純なファイルを読み出す。
+     * @throws Exception if failed
+     */
+    @Test
+    public void simple() throws Exception {
+        write("# comment\na b\n\na\tc\r\n  d  \nb c\na b\nあ a");
+        Graph<String> expect = new HashGraph<String>();
+        expect.addEdge("a", "b");
+        expect.addEdge("a", "c");
+        expect.addEdge("b", "c");
+        expect.addEdge("あ", "a");
+        expect.addNode("d");
+
+        HashGraph<String> graph = EdgeListLoader.loadHashGraph(file);
+        assertThat(graph, is(expect));
+
+        CompactGraph<String> compact = EdgeListLoader.loadCompactGraph(file);
+        assertThat(Graphs.copy(compact), is(expect));
+    }
+
+    /**
+     * 複数の断片に分割して並列に読み出す。
+     * @throws Exception if failed
+     */
+    @Test
+    public void parallel() throws Exception {
+        Random random = new Random(6789);
+        Graph<String> expect = new HashGraph<String>();
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            String from = "n" + random.nextInt(1000);
+            String to = "n" + random.nextInt(1000);
+            expect.addEdge(from, to);
+            buf.append(from).append(' ').append(to).append('\n');
+        }
+        write(buf.toString());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            EdgeListLoader.EdgeList chunked = EdgeListLoader.parse(file, executor, 1000);
+            HashGraph<String> graph = EdgeListLoader.toHashGraph(chunked);
+            assertThat(graph, is(expect));
+            Set<String> canonical = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+            canonical.addAll(graph.getNodeSet());
+            for (Graph.Vertex<String> vertex : graph) {
+                for (String successor : vertex.getConnected()) {
+                    assertThat(successor, canonical.contains(successor), is(true));
+                }
+            }
+
+            EdgeListLoader.EdgeList sequential = EdgeListLoader.parse(file, null, 1000);
+            CompactGraph<String> compact = EdgeListLoader.toCompactGraph(sequential);
+            assertThat(Graphs.copy(compact), is(expect));
+
+            assertThat(EdgeListLoader.loadHashGraph(file, executor), is(expect));
+            assertThat(Graphs.copy(EdgeListLoader.loadCompactGraph(file, executor)), is(expect));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 形式が正しくない。
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void invalid() throws Exception {
+        write("a b\na b c\n");
+        EdgeListLoader.loadHashGraph(file);
+    }
+
+    private void write(String content) throws IOException {
+        file = File.createTempFile("edges", ".txt");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
@@ -18,10 +18,19 @@ package com.ashigeru.util.graph;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 
@@ -57,6 +66,92 @@ public class GraphsTest {
         assertThat(copy.getConnected(4), is(set()));
     }
 
+    /**
+     * グラフを固定化。
+     */
+    @Test
+    public void freeze() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 4);
+        addPath(graph, 2, 1);
+        addPath(graph, 3, 2);
+        graph.addNode(5);
+        Graph<Integer> frozen = Graphs.freeze(graph);
+        assertThat(frozen.getNodeSet(), is(set(1, 2, 3, 4, 5)));
+        assertThat(frozen.getConnected(1), is(set(2)));
+        assertThat(frozen.getConnected(2), is(set(1, 3)));
+        assertThat(frozen.getConnected(3), is(set(2, 4)));
+        assertThat(frozen.getConnected(4), is(set()));
+        assertThat(frozen.getConnected(6), is(set()));
+        assertThat(frozen.isConnected(2, 3), is(true));
+        assertThat(frozen.isConnected(3, 1), is(false));
+        assertThat(Graphs.copy(frozen), is(graph));
+        assertThat(Graphs.freeze(graph), is(frozen));
+    }
+
+    /**
+     * 固定化したグラフに対する操作。
+     */
+    @Test
+    public void freeze_algorithms() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 4, 6);
+        addPath(graph, 2, 5, 7);
+        addPath(graph, 3, 4, 5, 3);
+        Graph<Integer> frozen = Graphs.freeze(graph);
+
+        assertThat(Graphs.collectAllConnected(frozen, set(3)), is(set(3, 4, 5, 6, 7)));
+        assertThat(Graphs.collectAllConnected(frozen, set(6, 8)), is(set()));
+
+        Integer[][] expect = { { 1 }, { 2 }, { 6 }, { 7 }, { 3, 4, 5 } };
+        assertThat(Graphs.findStronglyConnectedComponents(frozen), is(toPartition(expect)));
+
+        List<Integer> sorted = Graphs.sortPostOrder(frozen);
+        assertThat(new HashSet<Integer>(sorted), is(set(1, 2, 3, 4, 5, 6, 7)));
+        assertThat(sorted.get(6), is(1));
+        assertThat(sorted.indexOf(6), lessThan(sorted.indexOf(4)));
+        assertThat(sorted.indexOf(7), lessThan(sorted.indexOf(5)));
+    }
+
+    /**
+     * 固定化したグラフから条件に合致するノードを探索する。
+     */
+    @Test
+    public void freeze_findNearest() {
+        Random random = new Random(4321);
+        Graph<Integer> graph = Graphs.newInstance();
+        for (int i = 0; i < 1000; i++) {
+            graph.addEdge(random.nextInt(300), random.nextInt(300));
+        }
+        Graph<Integer> frozen = Graphs.freeze(graph);
+        Matcher<Integer> matcher = new Matcher<Integer>() {
+            @Override
+            public boolean matches(Integer object) {
+                return object % 5 == 0;
+            }
+        };
+        for (int i = 0; i < 20; i++) {
+            Set<Integer> starts = set(random.nextInt(300), random.nextInt(300), 1000);
+            assertThat(
+                    Graphs.findNearest(frozen, starts, matcher),
+                    is(Graphs.findNearest(graph, starts, matcher)));
+            assertThat(
+                    Graphs.collectNearest(frozen, starts, matcher),
+                    is(Graphs.collectNearest(graph, starts, matcher)));
+        }
+    }
+
+    /**
+     * 固定化したグラフは変更できない。
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void freeze_unmodifiable() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2);
+        Graph<Integer> frozen = Graphs.freeze(graph);
+        frozen.addEdge(2, 1);
+    }
+
     /**
      * サブグラフを作成。
      */
@@ -116,6 +211,74 @@ public class GraphsTest {
         assertThat(sub, is(graph));
     }
 
+    /**
+     * サブグラフのビューを作成。
+     */
+    @Test
+    public void subgraphView() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 4, 5, 1);
+        addPath(graph, 1, 3, 5, 2, 4, 1);
+        final Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+        Matcher<Integer> acceptor = new Matcher<Integer>() {
+            @Override
+            public boolean matches(Integer object) {
+                Integer count = counts.get(object);
+                counts.put(object, count == null ? 1 : count + 1);
+                return object != 5;
+            }
+        };
+        Graph<Integer> expect = Graphs.subgraph(graph, acceptor);
+        for (boolean cache : new boolean[] { true, false }) {
+            Graph<Integer> view = Graphs.subgraphView(graph, acceptor, cache);
+            assertThat(Graphs.copy(view), is(expect));
+            assertThat(view.getNodeSet(), is(set(1, 2, 3, 4)));
+            assertThat(view.getConnected(2), is(set(3, 4)));
+            assertThat(view.getConnected(5), is(set()));
+            assertThat(view.isConnected(4, 5), is(false));
+            assertThat(view.isConnected(4, 1), is(true));
+            assertThat(Graphs.findNearest(view, set(1), new Matcher<Integer>() {
+                @Override
+                public boolean matches(Integer object) {
+                    return object == 4;
+                }
+            }), is(set(4)));
+
+            counts.clear();
+            Graph<Integer> fresh = Graphs.subgraphView(graph, acceptor, cache);
+            Graphs.collectAllConnected(fresh, set(1));
+            Graphs.collectAllConnected(fresh, set(1));
+            if (cache) {
+                assertThat(counts.get(2), is(1));
+            }
+            else {
+                assertThat(counts.get(2), greaterThan(1));
+            }
+        }
+    }
+
+    /**
+     * 転置したビューを作成。
+     */
+    @Test
+    public void transposeView() {
+        for (boolean index : new boolean[] { true, false }) {
+            HashGraph<Integer> graph = new HashGraph<Integer>(index);
+            addPath(graph, 1, 2, 3, 4);
+            addPath(graph, 2, 4);
+            graph.addNode(5);
+            BidirectionalGraph<Integer> view = Graphs.transposeView(graph);
+            assertThat(Graphs.copy(view), is(Graphs.transpose(graph)));
+            assertThat(view.getConnected(4), is(set(2, 3)));
+            assertThat(view.getPredecessors(2), is(set(3, 4)));
+            assertThat(view.isConnected(2, 1), is(true));
+            assertThat(view.isConnected(1, 2), is(false));
+
+            graph.addEdge(5, 1);
+            assertThat(view.getConnected(1), is(set(5)));
+        }
+    }
+
     /**
      * Test method for {@link Graphs#collectAllConnected(Graph, java.util.Collection)}.
      */
@@ -361,6 +524,78 @@ public class GraphsTest {
         assertThat(results, is(set(-2, 3, -4)));
     }
 
+    /**
+     * 並列に幅優先探索を行う。
+     * @throws Exception if failed
+     */
+    @Test
+    public void traverseParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Random random = new Random(6789);
+            int size = 20000;
+            Graph<Integer> graph = Graphs.newInstance();
+            for (int i = 0; i < size * 2; i++) {
+                graph.addEdge(random.nextInt(size), random.nextInt(size));
+            }
+            Matcher<Integer> acceptor = new Matcher<Integer>() {
+                @Override
+                public boolean matches(Integer object) {
+                    return object % 7 == 0;
+                }
+            };
+            List<Integer> starts = Arrays.asList(1, 2, 3, 4, 5, size + 1);
+            assertThat(
+                    Graphs.collectAllConnected(graph, starts, executor),
+                    is(Graphs.collectAllConnected(graph, starts)));
+            assertThat(
+                    Graphs.findNearest(graph, starts, acceptor, executor),
+                    is(Graphs.findNearest(graph, starts, acceptor)));
+            assertThat(
+                    Graphs.collectNearest(graph, starts, acceptor, executor),
+                    is(Graphs.collectNearest(graph, starts, acceptor)));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * {@code null}のノードを含むグラフを並列に探索する。
+     * @throws Exception if failed
+     */
+    @Test
+    public void traverseParallel_null() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Graph<String> graph = Graphs.newInstance();
+            graph.addEdge("a", null);
+            graph.addEdge(null, "c");
+            graph.addEdge("a", "d");
+            graph.addEdge("d", "e");
+            Matcher<String> acceptor = new Matcher<String>() {
+                @Override
+                public boolean matches(String object) {
+                    return object == null || object.equals("e");
+                }
+            };
+            List<String> starts = Arrays.asList("a");
+            assertThat(
+                    Graphs.collectAllConnected(graph, starts, executor),
+                    is(Graphs.collectAllConnected(graph, starts)));
+            assertThat(
+                    Graphs.findNearest(graph, starts, acceptor, executor),
+                    is(Graphs.findNearest(graph, starts, acceptor)));
+            assertThat(
+                    Graphs.collectNearest(graph, starts, acceptor, executor),
+                    is(Graphs.collectNearest(graph, starts, acceptor)));
+            assertThat(Graphs.findNearest(graph, starts, acceptor, executor).contains(null), is(true));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Test method for {@link Graphs#findCircuit(Graph)}.
      */
@@ -467,6 +702,100 @@ public class GraphsTest {
         assertThat(scc, is(toPartition(expect)));
     }
 
+    /**
+     * Test method for {@link Graphs#findStronglyConnectedComponents(Graph)}.
+     */
+    @Test
+    public void testFindStronglyConnectedComponents_Nested() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 1);
+        addPath(graph, 3, 4, 5, 6, 4);
+        addPath(graph, 5, 2);
+        addPath(graph, 6, 7, 8, 7);
+        addPath(graph, 9, 1);
+
+        Set<Set<Integer>> scc = Graphs.findStronglyConnectedComponents(graph);
+
+        Integer[][] expect = { { 1, 2, 3, 4, 5, 6 }, { 7, 8 }, { 9 } };
+        assertThat(scc, is(toPartition(expect)));
+        assertThat(Graphs.findStronglyConnectedComponents(Graphs.freeze(graph)), is(scc));
+    }
+
+    /**
+     * Test method for {@link Graphs#findStronglyConnectedComponents(Graph)}.
+     */
+    @Test
+    public void testFindStronglyConnectedComponents_Deep() {
+        Graph<Integer> graph = Graphs.newInstance();
+        int size = 100000;
+        for (int i = 0; i < size; i++) {
+            graph.addEdge(i, i + 1);
+        }
+        graph.addEdge(size, size / 2);
+
+        Set<Set<Integer>> scc = Graphs.findStronglyConnectedComponents(graph);
+
+        assertThat(scc.size(), is(size / 2 + 1));
+        Set<Integer> cycle = new HashSet<Integer>();
+        for (int i = size / 2; i <= size; i++) {
+            cycle.add(i);
+        }
+        assertThat(cycle, isIn(scc));
+    }
+
+    /**
+     * Test method for {@link Graphs#findStronglyConnectedComponentsParallel(Graph, Executor)}.
+     * @throws Exception if failed
+     */
+    @Test
+    public void testFindStronglyConnectedComponentsParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Graph<Integer> graph = Graphs.newInstance();
+            addPath(graph, 1, 2, 3, 4, 6);
+            addPath(graph, 2, 5, 7);
+            addPath(graph, 3, 4, 5, 3);
+
+            Set<Set<Integer>> scc = Graphs.findStronglyConnectedComponentsParallel(graph, executor);
+
+            Integer[][] expect = { { 1 }, { 2 }, { 6 }, { 7 }, { 3, 4, 5 } };
+            assertThat(scc, is(toPartition(expect)));
+
+            Integer[][] circuits = { { 3, 4, 5 } };
+            assertThat(Graphs.findCircuit(graph, executor), is(toPartition(circuits)));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test method for {@link Graphs#findStronglyConnectedComponentsParallel(Graph, Executor)}.
+     * @throws Exception if failed
+     */
+    @Test
+    public void testFindStronglyConnectedComponentsParallel_Random() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Random random = new Random(12345);
+            for (int size : new int[] { 10, 100, 5000 }) {
+                Graph<Integer> graph = Graphs.newInstance();
+                for (int i = 0; i < size; i++) {
+                    graph.addNode(i);
+                }
+                for (int i = 0; i < size * 3 / 2; i++) {
+                    graph.addEdge(random.nextInt(size), random.nextInt(size));
+                }
+                Set<Set<Integer>> expect = Graphs.findStronglyConnectedComponents(graph);
+                assertThat(Graphs.findStronglyConnectedComponentsParallel(graph, executor), is(expect));
+                assertThat(Graphs.findCircuit(graph, executor), is(Graphs.findCircuit(graph)));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Test method for {@link Graphs#newInstance()}.
      */
@@ -698,6 +1027,410 @@ public class GraphsTest {
         assertThat(Graphs.collectTails(graph), is(set()));
     }
 
+    /**
+     * Test method for {@link Graphs#shortestPaths(WeightedGraph, Object)}.
+     */
+    @Test
+    public void shortestPaths() {
+        WeightedGraph<String> graph = new WeightedGraph<String>();
+        graph.addEdge("a", "b", 4);
+        graph.addEdge("a", "c", 1);
+        graph.addEdge("c", "b", 2);
+        graph.addEdge("b", "d", 1);
+        graph.addEdge("e", "a", 1);
+
+        ShortestPaths<String> paths = Graphs.shortestPaths(graph, "a");
+        assertThat(paths.getSource(), is("a"));
+        assertThat(paths.getDistance("a"), is(0.0));
+        assertThat(paths.getDistance("b"), is(3.0));
+        assertThat(paths.getDistance("d"), is(4.0));
+        assertThat(paths.getPath("d").getNodes(), is(Arrays.asList("a", "c", "b", "d")));
+        assertThat(paths.getPath("d").getLength(), is(4.0));
+        assertThat(paths.isReachable("e"), is(false));
+        assertThat(paths.getDistance("e"), is(Double.POSITIVE_INFINITY));
+        assertThat(paths.getPath("e"), is(nullValue()));
+    }
+
+    /**
+     * Test method for {@link Graphs#shortestPaths(WeightedGraph, Object)}.
+     */
+    @Test
+    public void shortestPaths_random() {
+        Random random = new Random(6502);
+        WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+        int size = 200;
+        for (int i = 0; i < size * 5; i++) {
+            graph.addEdge(random.nextInt(size), random.nextInt(size), random.nextInt(100));
+        }
+        Integer source = graph.getNodeSet().iterator().next();
+        ShortestPaths<Integer> paths = Graphs.shortestPaths(graph, source);
+
+        // Bellman-Ford
+        Map<Integer, Double> expected = new HashMap<Integer, Double>();
+        expected.put(source, 0.0);
+        for (boolean changed = true; changed;) {
+            changed = false;
+            for (Graph.Vertex<Integer> vertex : graph) {
+                Double base = expected.get(vertex.getNode());
+                if (base == null) {
+                    continue;
+                }
+                for (Integer to : vertex.getConnected()) {
+                    double distance = base + graph.getWeight(vertex.getNode(), to);
+                    Double current = expected.get(to);
+                    if (current == null || distance < current) {
+                        expected.put(to, distance);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        for (Integer node : graph.getNodeSet()) {
+            Double distance = expected.get(node);
+            if (distance == null) {
+                assertThat(paths.isReachable(node), is(false));
+            }
+            else {
+                assertThat(paths.getDistance(node), is(distance));
+                assertThat(paths.getPath(node).getLength(), is(distance));
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link Graphs#shortestPaths(WeightedGraph, Object)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shortestPaths_negative() {
+        WeightedGraph<String> graph = new WeightedGraph<String>();
+        graph.addEdge("a", "b", -1);
+        Graphs.shortestPaths(graph, "a");
+    }
+
+    /**
+     * Test method for {@link Graphs#shortestPaths(WeightedGraph, Object)}.
+     */
+    @Test(expected = ConcurrentModificationException.class)
+    public void shortestPaths_modified() {
+        WeightedGraph<String> graph = new WeightedGraph<String>();
+        graph.addEdge("a", "b", 1);
+        ShortestPaths<String> paths = Graphs.shortestPaths(graph, "a");
+        graph.addEdge("b", "c", 1);
+        paths.getDistance("b");
+    }
+
+    /**
+     * Test method for {@link Graphs#criticalPath(WeightedGraph)}.
+     */
+    @Test
+    public void criticalPath() {
+        WeightedGraph<String> graph = new WeightedGraph<String>();
+        graph.addEdge("a", "b", 3);
+        graph.addEdge("b", "d", 1);
+        graph.addEdge("a", "c", 1);
+        graph.addEdge("c", "d", 5);
+        graph.addEdge("d", "e", 2);
+        graph.addEdge("x", "e", 1);
+
+        WeightedPath<String> path = Graphs.criticalPath(graph);
+        assertThat(path.getNodes(), is(Arrays.asList("a", "c", "d", "e")));
+        assertThat(path.getLength(), is(8.0));
+    }
+
+    /**
+     * Test method for {@link Graphs#criticalPath(WeightedGraph)}.
+     */
+    @Test
+    public void criticalPath_empty() {
+        WeightedGraph<String> graph = new WeightedGraph<String>();
+        WeightedPath<String> path = Graphs.criticalPath(graph);
+        assertThat(path.getNodes().size(), is(0));
+        assertThat(path.getLength(), is(0.0));
+    }
+
+    /**
+     * Test method for {@link Graphs#criticalPath(WeightedGraph)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void criticalPath_cyclic() {
+        WeightedGraph<String> graph = new WeightedGraph<String>();
+        graph.addEdge("a", "b", 1);
+        graph.addEdge("b", "c", 1);
+        graph.addEdge("c", "a", 1);
+        Graphs.criticalPath(graph);
+    }
+
+    /**
+     * Test method for {@link Graphs#transitiveReduction(Graph)}.
+     */
+    @Test
+    public void transitiveReduction() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 4);
+        graph.addEdge(1, 3);
+        graph.addEdge(1, 4);
+        graph.addEdge(2, 4);
+        graph.addEdge(5, 4);
+        graph.addNode(6);
+
+        Graph<Integer> reduced = Graphs.transitiveReduction(graph);
+        Graph<Integer> expected = Graphs.newInstance();
+        addPath(expected, 1, 2, 3, 4);
+        expected.addEdge(5, 4);
+        expected.addNode(6);
+        assertThat(reduced, is(expected));
+        assertThat(graph.isConnected(1, 3), is(true));
+    }
+
+    /**
+     * Test method for {@link Graphs#transitiveReduction(Graph)}.
+     */
+    @Test
+    public void transitiveReduction_random() {
+        Random random = new Random(3141);
+        Graph<Integer> graph = Graphs.newInstance();
+        int size = 100;
+        for (int i = 0; i < size * 10; i++) {
+            int a = random.nextInt(size);
+            int b = random.nextInt(size);
+            if (a < b) {
+                graph.addEdge(a, b);
+            }
+            else if (b < a) {
+                graph.addEdge(b, a);
+            }
+        }
+        Graph<Integer> reduced = Graphs.transitiveReduction(graph);
+        assertThat(reduced.getNodeSet(), is(graph.getNodeSet()));
+        for (Graph.Vertex<Integer> vertex : graph) {
+            Integer from = vertex.getNode();
+            assertThat(
+                    Graphs.collectAllConnected(reduced, Arrays.asList(from)),
+                    is(Graphs.collectAllConnected(graph, Arrays.asList(from))));
+            for (Integer to : vertex.getConnected()) {
+                Graph<Integer> rest = Graphs.copy(graph);
+                rest.removeEdge(from, to);
+                boolean implied = Graphs.collectAllConnected(rest, Arrays.asList(from)).contains(to);
+                assertThat(from + "=>" + to, reduced.isConnected(from, to), is(implied == false));
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link Graphs#reduceTransitively(Graph)}.
+     */
+    @Test
+    public void reduceTransitively() {
+        HashGraph<Integer> graph = new HashGraph<Integer>(true);
+        addPath(graph, 1, 2, 3, 4);
+        graph.addEdge(1, 3);
+        graph.addEdge(1, 4);
+        graph.addEdge(2, 4);
+
+        assertThat(Graphs.reduceTransitively(graph), is(3));
+        assertThat(graph.getConnected(1), is(set(2)));
+        assertThat(graph.getConnected(2), is(set(3)));
+        assertThat(graph.getPredecessors(4), is(set(3)));
+    }
+
+    /**
+     * Test method for {@link Graphs#transitiveReduction(Graph)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void transitiveReduction_cyclic() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 1);
+        Graphs.transitiveReduction(graph);
+    }
+
+    /**
+     * Test method for {@link Graphs#condense(Graph)}.
+     */
+    @Test
+    public void condense() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 1);
+        addPath(graph, 3, 4, 5, 4);
+        addPath(graph, 2, 6);
+        addPath(graph, 7, 7);
+
+        Condensation<Integer> condensation = Graphs.condense(graph);
+        assertThat(condensation.getComponentCount(), is(4));
+        int c1 = condensation.getComponentId(1);
+        int c4 = condensation.getComponentId(4);
+        int c6 = condensation.getComponentId(6);
+        int c7 = condensation.getComponentId(7);
+        assertThat(condensation.getComponentId(3), is(c1));
+        assertThat(condensation.getComponentId(5), is(c4));
+        assertThat(condensation.getComponentId(8), is(-1));
+
+        assertThat(condensation.getMembers(c1), is(set(1, 2, 3)));
+        assertThat(condensation.getMembers(c4), is(set(4, 5)));
+        assertThat(condensation.getMembers(c6), is(set(6)));
+
+        int[] successors = condensation.getSuccessors(c1);
+        assertThat(successors.length, is(2));
+        assertThat(set(successors[0], successors[1]), is(set(c4, c6)));
+        assertThat(condensation.getSuccessors(c4).length, is(0));
+        assertThat(condensation.getSuccessors(c7).length, is(0));
+        assertThat(c4, lessThan(c1));
+        assertThat(c6, lessThan(c1));
+
+        assertThat(condensation.isCircuit(c1), is(true));
+        assertThat(condensation.isCircuit(c6), is(false));
+        assertThat(condensation.isCircuit(c7), is(true));
+
+        Graph<Integer> dag = condensation.toGraph();
+        assertThat(dag.getNodeSet(), is(set(0, 1, 2, 3)));
+        assertThat(dag.getConnected(c1), is(set(c4, c6)));
+        assertThat(Graphs.findCircuit(dag).isEmpty(), is(true));
+    }
+
+    /**
+     * Test method for {@link Graphs#condense(Graph)}.
+     */
+    @Test
+    public void condense_random() {
+        Random random = new Random(2718);
+        Graph<Integer> graph = Graphs.newInstance();
+        int size = 300;
+        for (int i = 0; i < size * 2; i++) {
+            graph.addEdge(random.nextInt(size), random.nextInt(size));
+        }
+        Condensation<Integer> condensation = Graphs.condense(graph);
+        Set<Set<Integer>> expected = Graphs.findStronglyConnectedComponents(graph);
+        Set<Set<Integer>> actual = new HashSet<Set<Integer>>();
+        for (int i = 0; i < condensation.getComponentCount(); i++) {
+            actual.add(new HashSet<Integer>(condensation.getMembers(i)));
+        }
+        assertThat(actual, is(expected));
+        for (Graph.Vertex<Integer> vertex : graph) {
+            int from = condensation.getComponentId(vertex.getNode());
+            for (Integer to : vertex.getConnected()) {
+                int target = condensation.getComponentId(to);
+                if (from != target) {
+                    assertThat(target, lessThan(from));
+                    assertThat(Arrays.binarySearch(condensation.getSuccessors(from), target), greaterThanOrEqualTo(0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link Graphs#breadthFirst(Graph, java.util.Collection)}.
+     */
+    @Test
+    public void breadthFirst() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 4, 6);
+        addPath(graph, 1, 3, 5, 1);
+        addPath(graph, 7, 1);
+
+        List<Integer> list = toList(Graphs.breadthFirst(graph, Arrays.asList(1)));
+        assertThat(list.size(), is(6));
+        assertThat(list.get(0), is(1));
+        assertThat(new HashSet<Integer>(list.subList(1, 3)), is(set(2, 3)));
+        assertThat(new HashSet<Integer>(list.subList(3, 5)), is(set(4, 5)));
+        assertThat(list.get(5), is(6));
+
+        Matcher<Integer> notTwo = new Matcher<Integer>() {
+            @Override
+            public boolean matches(Integer object) {
+                return object != 2;
+            }
+        };
+        assertThat(
+                new HashSet<Integer>(toList(Graphs.breadthFirst(graph, Arrays.asList(1), notTwo))),
+                is(set(1, 2, 3, 5)));
+    }
+
+    /**
+     * Test method for {@link Graphs#depthFirst(Graph, java.util.Collection)}.
+     */
+    @Test
+    public void depthFirst() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3);
+        addPath(graph, 2, 4);
+        addPath(graph, 3, 1);
+
+        List<Integer> pre = toList(Graphs.depthFirst(graph, Arrays.asList(1, 5)));
+        assertThat(pre.size(), is(4));
+        assertThat(pre.get(0), is(1));
+        assertThat(pre.get(1), is(2));
+
+        List<Integer> post = toList(Graphs.depthFirst(
+                graph, Arrays.asList(1), VisitOrder.POST_ORDER, new Matcher<Integer>() {
+                    @Override
+                    public boolean matches(Integer object) {
+                        return true;
+                    }
+                }));
+        assertThat(post.size(), is(4));
+        assertThat(post.get(3), is(1));
+        assertThat(post.get(2), is(2));
+
+        Graph<Integer> dag = Graphs.newInstance();
+        addPath(dag, 1, 2, 3, 4);
+        addPath(dag, 1, 5, 4);
+        List<Integer> sorted = toList(Graphs.depthFirst(
+                dag, dag.getNodeSet(), VisitOrder.POST_ORDER, new Matcher<Integer>() {
+                    @Override
+                    public boolean matches(Integer object) {
+                        return true;
+                    }
+                }));
+        assertPostOrdered(dag, sorted);
+    }
+
+    /**
+     * 深さ優先探索で接続先の探索を打ち切る。
+     */
+    @Test
+    public void depthFirst_prune() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3);
+        addPath(graph, 1, -4, 5);
+        List<Integer> list = toList(Graphs.depthFirst(
+                graph, Arrays.asList(1), VisitOrder.PRE_ORDER, new Matcher<Integer>() {
+                    @Override
+                    public boolean matches(Integer object) {
+                        return object > 0;
+                    }
+                }));
+        assertThat(new HashSet<Integer>(list), is(set(1, 2, 3, -4)));
+    }
+
+    /**
+     * 途中で列挙を打ち切る。
+     */
+    @Test
+    public void depthFirst_lazy() {
+        final Set<Integer> visited = new HashSet<Integer>();
+        Graph<Integer> graph = Graphs.newInstance();
+        for (int i = 0; i < 100000; i++) {
+            graph.addEdge(i, i + 1);
+        }
+        Matcher<Integer> recorder = new Matcher<Integer>() {
+            @Override
+            public boolean matches(Integer object) {
+                visited.add(object);
+                return true;
+            }
+        };
+        Iterator<Integer> iter = Graphs.depthFirst(
+                graph, Arrays.asList(0), VisitOrder.PRE_ORDER, recorder).iterator();
+        for (int i = 0; i < 10; i++) {
+            assertThat(iter.next(), is(i));
+        }
+        assertThat(visited.size(), lessThan(20));
+
+        List<Integer> post = toList(Graphs.depthFirst(
+                graph, Arrays.asList(0), VisitOrder.POST_ORDER, recorder));
+        assertThat(post.get(0), is(100000));
+        assertThat(post.size(), is(100001));
+    }
+
     private <V> void addPath(Graph<V> graph, V first, V...vertexes) {
         graph.addNode(first);
         V current = first;
@@ -707,6 +1440,103 @@ public class GraphsTest {
         }
     }
 
+    /**
+     * Test method for {@link Graphs#findPath(Graph, Object, Object)}.
+     */
+    @Test
+    public void findPath() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 4, 5);
+        addPath(graph, 1, 6, 5);
+        addPath(graph, 7, 1);
+
+        assertThat(Graphs.findPath(graph, 1, 5), is(Arrays.asList(1, 6, 5)));
+        assertThat(Graphs.findPath(graph, 2, 5), is(Arrays.asList(2, 3, 4, 5)));
+        assertThat(Graphs.findPath(graph, 3, 3), is(Arrays.asList(3)));
+        assertThat(Graphs.findPath(graph, 5, 1), is(nullValue()));
+        assertThat(Graphs.findPath(graph, 1, 100), is(nullValue()));
+    }
+
+    /**
+     * Test method for {@link Graphs#findPath(Graph, Object, Object)}.
+     */
+    @Test
+    public void findPath_bidirectional() {
+        HashGraph<Integer> graph = new HashGraph<Integer>(true);
+        addPath(graph, 1, 2, 3, 4, 5);
+        addPath(graph, 1, 6, 7, 5);
+        addPath(graph, 8, 9, 5);
+        addPath(graph, 1, 10, 11, 12);
+
+        assertThat(Graphs.findPath(graph, 1, 5), is(Arrays.asList(1, 6, 7, 5)));
+        assertThat(Graphs.findPath(graph, 1, 9), is(nullValue()));
+        assertThat(Graphs.findPath(Graphs.transposeView(graph), 5, 1), is(Arrays.asList(5, 7, 6, 1)));
+    }
+
+    /**
+     * Test method for {@link Graphs#findPath(Graph, Object, Object)}.
+     */
+    @Test
+    public void findPath_random() {
+        Random random = new Random(1618);
+        HashGraph<Integer> indexed = new HashGraph<Integer>(true);
+        int size = 200;
+        for (int i = 0; i < size * 2; i++) {
+            indexed.addEdge(random.nextInt(size), random.nextInt(size));
+        }
+        Graph<Integer> plain = Graphs.copy(indexed);
+        for (int i = 0; i < 300; i++) {
+            Integer from = random.nextInt(size);
+            Integer to = random.nextInt(size);
+            if (indexed.contains(from) == false || indexed.contains(to) == false) {
+                continue;
+            }
+            Integer expected = distance(plain, from, to);
+            for (Graph<Integer> graph : Arrays.<Graph<Integer>>asList(indexed, plain)) {
+                List<Integer> path = Graphs.findPath(graph, from, to);
+                if (expected == null) {
+                    assertThat(path, is(nullValue()));
+                    continue;
+                }
+                assertThat(path, is(notNullValue()));
+                assertThat(path.size() - 1, is(expected));
+                assertThat(path.get(0), is(from));
+                assertThat(path.get(path.size() - 1), is(to));
+                for (int j = 1; j < path.size(); j++) {
+                    assertThat(graph.isConnected(path.get(j - 1), path.get(j)), is(true));
+                }
+            }
+        }
+    }
+
+    private <T> Integer distance(Graph<T> graph, T from, T to) {
+        Map<T, Integer> distances = new HashMap<T, Integer>();
+        List<T> queue = new ArrayList<T>();
+        distances.put(from, 0);
+        queue.add(from);
+        for (int i = 0; i < queue.size(); i++) {
+            T node = queue.get(i);
+            if (node.equals(to)) {
+                return distances.get(node);
+            }
+            for (T next : graph.getConnected(node)) {
+                if (distances.containsKey(next) == false) {
+                    distances.put(next, distances.get(node) + 1);
+                    queue.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    private <T> List<T> toList(Iterable<T> iterable) {
+        List<T> results = new ArrayList<T>();
+        for (T value : iterable) {
+            results.add(value);
+        }
+        return results;
+    }
+
     private void assertPostOrdered(Graph<?> graph, List<?> list) {
         for (int i = 0, n = list.size(); i < n; i++) {
             Object from = list.get(i);
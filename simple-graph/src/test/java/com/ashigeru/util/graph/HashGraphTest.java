@@ -0,0 +1,167 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link HashGraph}.
+ */
+public class HashGraphTest {
+
+    /**
+     * 接続元の一覧を取得。
+     */
+    @Test
+    public void getPredecessors() {
+        for (boolean index : new boolean[] { true, false }) {
+            HashGraph<Integer> graph = new HashGraph<Integer>(index);
+            graph.addEdge(1, 2);
+            graph.addEdges(3, Arrays.asList(2, 4));
+            graph.addEdge(2, 2);
+            assertThat(graph.getPredecessors(1), is(set()));
+            assertThat(graph.getPredecessors(2), is(set(1, 2, 3)));
+            assertThat(graph.getPredecessors(4), is(set(3)));
+            assertThat(graph.getPredecessors(5), is(set()));
+
+            graph.removeEdge(3, 2);
+            assertThat(graph.getPredecessors(2), is(set(1, 2)));
+        }
+    }
+
+    /**
+     * ノードを削除。
+     */
+    @Test
+    public void removeNode() {
+        for (boolean index : new boolean[] { true, false }) {
+            HashGraph<Integer> graph = new HashGraph<Integer>(index);
+            graph.addEdge(1, 2);
+            graph.addEdge(2, 3);
+            graph.addEdge(3, 2);
+            graph.addEdge(2, 2);
+            graph.removeNode(2);
+            assertThat(graph.getNodeSet(), is(set(1, 3)));
+            assertThat(graph.getConnected(1), is(set()));
+            assertThat(graph.getConnected(3), is(set()));
+            assertThat(graph.getPredecessors(3), is(set()));
+
+            graph.addEdge(1, 2);
+            assertThat(graph.getPredecessors(2), is(set(1)));
+            assertThat(graph.getConnected(2), is(set()));
+        }
+    }
+
+    /**
+     * 反復子からノードを削除。
+     */
+    @Test
+    public void iterator_remove() {
+        for (boolean index : new boolean[] { true, false }) {
+            HashGraph<Integer> graph = new HashGraph<Integer>(index);
+            graph.addEdge(1, 2);
+            graph.addEdge(2, 3);
+            long version = graph.getVersion();
+            for (Iterator<Graph.Vertex<Integer>> iter = graph.iterator(); iter.hasNext();) {
+                if (iter.next().getNode() == 2) {
+                    iter.remove();
+                }
+            }
+            assertThat(graph.getVersion(), not(version));
+            assertThat(graph.getNodeSet(), is(set(1, 3)));
+            assertThat(graph.getConnected(1), is(set()));
+            assertThat(graph.getPredecessors(3), is(set()));
+            assertThat(Graphs.findPath(graph, 1, 3), is(nullValue()));
+        }
+    }
+
+    /**
+     * 複数のノードを削除。
+     */
+    @Test
+    public void removeNodes() {
+        for (boolean index : new boolean[] { true, false }) {
+            HashGraph<Integer> graph = new HashGraph<Integer>(index);
+            graph.addEdge(1, 2);
+            graph.addEdge(2, 3);
+            graph.addEdge(3, 4);
+            graph.addEdge(4, 1);
+            graph.removeNodes(Arrays.asList(2, 4, 5));
+            assertThat(graph.getNodeSet(), is(set(1, 3)));
+            assertThat(graph.getConnected(1), is(set()));
+            assertThat(graph.getConnected(3), is(set()));
+            assertThat(graph.getPredecessors(1), is(set()));
+            assertThat(graph.getPredecessors(3), is(set()));
+        }
+    }
+
+    /**
+     * 索引の有無は等価性に影響しない。
+     */
+    @Test
+    public void equals_index() {
+        HashGraph<Integer> a = new HashGraph<Integer>(true);
+        HashGraph<Integer> b = new HashGraph<Integer>(false);
+        a.addEdge(1, 2);
+        b.addEdge(1, 2);
+        assertThat(a, is(b));
+        assertThat(a.hashCode(), is(b.hashCode()));
+    }
+
+    /**
+     * 変更に応じて版番号が更新される。
+     */
+    @Test
+    public void getVersion() {
+        HashGraph<Integer> graph = new HashGraph<Integer>();
+        long version = graph.getVersion();
+
+        graph.addEdge(1, 2);
+        assertThat(graph.getVersion(), not(version));
+        version = graph.getVersion();
+
+        graph.addEdge(1, 2);
+        graph.addNode(2);
+        graph.removeEdge(2, 1);
+        graph.removeNode(3);
+        assertThat(graph.getVersion(), is(version));
+
+        graph.removeEdge(1, 2);
+        assertThat(graph.getVersion(), not(version));
+        version = graph.getVersion();
+
+        Iterator<Graph.Vertex<Integer>> iter = graph.iterator();
+        iter.next();
+        iter.remove();
+        assertThat(graph.getVersion(), not(version));
+        version = graph.getVersion();
+
+        graph.clear();
+        assertThat(graph.getVersion(), not(version));
+    }
+
+    private Set<Integer> set(Integer...values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link IncrementalEngine}.
+ */
+public class IncrementalEngineTest {
+
+    private final Map<String, Integer> base = new HashMap<String, Integer>();
+
+    private final IncrementalEngine.Computation<String, Integer> sum =
+        new IncrementalEngine.Computation<String, Integer>() {
+            @Override
+            public Integer compute(String node, Map<String, Integer> inputs) {
+                int result = base.containsKey(node) ? base.get(node) : 0;
+                for (Integer value : inputs.values()) {
+                    result += value;
+                }
+                return result;
+            }
+        };
+
+    /**
+     * 基本的な操作。
+     */
+    @Test
+    public void update() {
+        Graph<String> graph = Graphs.newInstance();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        graph.addEdge("x", "y");
+        base.put("a", 1);
+        base.put("b", 10);
+        base.put("c", 100);
+        base.put("y", 5);
+
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(graph, sum);
+        List<String> first = engine.update(graph.getNodeSet());
+        assertThat(first.size(), is(5));
+        assertThat(first.indexOf("c"), lessThan(first.indexOf("b")));
+        assertThat(first.indexOf("b"), lessThan(first.indexOf("a")));
+        assertThat(engine.get("a"), is(111));
+        assertThat(engine.get("x"), is(5));
+
+        base.put("b", 20);
+        List<String> second = engine.update(Arrays.asList("b"));
+        assertThat(second, is(Arrays.asList("b", "a")));
+        assertThat(engine.get("a"), is(121));
+        assertThat(engine.get("c"), is(100));
+    }
+
+    /**
+     * 計算結果が変化しなければ依存元を再計算しない。
+     */
+    @Test
+    public void cutoff() {
+        Graph<String> graph = Graphs.newInstance();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        base.put("c", 1);
+
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(graph, sum);
+        engine.update(graph.getNodeSet());
+
+        List<String> result = engine.update(Arrays.asList("c"));
+        assertThat(result, is(Arrays.asList("c")));
+        assertThat(engine.get("a"), is(1));
+    }
+
+    /**
+     * 未計算の依存先を併せて計算する。
+     */
+    @Test
+    public void update_missing() {
+        Graph<String> graph = Graphs.newInstance();
+        graph.addEdge("a", "b");
+        base.put("b", 3);
+
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(graph, sum);
+        engine.update(graph.getNodeSet());
+
+        graph.addEdge("a", "c");
+        base.put("c", 4);
+        List<String> result = engine.update(Arrays.asList("a"));
+        assertThat(result, is(Arrays.asList("c", "a")));
+        assertThat(engine.get("a"), is(7));
+    }
+
+    /**
+     * 依存元の索引を持つグラフ。
+     */
+    @Test
+    public void update_bidirectional() {
+        HashGraph<String> graph = new HashGraph<String>(true);
+        graph.addEdge("a", "c");
+        graph.addEdge("b", "c");
+        graph.addEdge("d", "e");
+        base.put("c", 1);
+
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(graph, sum);
+        engine.update(graph.getNodeSet());
+
+        base.put("c", 2);
+        List<String> result = engine.update(Arrays.asList("c"));
+        assertThat(new HashSet<String>(result), is(new HashSet<String>(Arrays.asList("a", "b", "c"))));
+        assertThat(engine.get("a"), is(2));
+        assertThat(engine.get("b"), is(2));
+    }
+
+    /**
+     * 依存元の索引を持たないグラフ。
+     */
+    @Test
+    public void update_unindexed() {
+        final AtomicInteger scans = new AtomicInteger();
+        HashGraph<String> graph = new HashGraph<String>() {
+            @Override
+            public Set<String> getPredecessors(Object key) {
+                throw new AssertionError(key);
+            }
+            @Override
+            public Iterator<Graph.Vertex<String>> iterator() {
+                scans.incrementAndGet();
+                return super.iterator();
+            }
+        };
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        graph.addEdge("x", "c");
+        base.put("c", 1);
+
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(graph, sum);
+        engine.update(graph.getNodeSet());
+        assertThat(scans.get(), is(1));
+
+        base.put("c", 2);
+        List<String> result = engine.update(Arrays.asList("c"));
+        assertThat(new HashSet<String>(result), is(new HashSet<String>(Arrays.asList("a", "b", "c", "x"))));
+        assertThat(engine.get("a"), is(2));
+        assertThat(scans.get(), is(1));
+
+        graph.addEdge("y", "b");
+        engine.update(Arrays.asList("y"));
+        assertThat(engine.get("y"), is(2));
+        assertThat(scans.get(), is(2));
+    }
+
+    /**
+     * 変更の履歴を持たないグラフ。
+     */
+    @Test
+    public void update_compact() {
+        Graph<String> source = Graphs.newInstance();
+        source.addEdge("a", "b");
+        source.addEdge("b", "c");
+        source.addEdge("d", "c");
+        source.addEdge("e", "f");
+        base.put("c", 1);
+        base.put("f", 3);
+        CompactGraph<String> graph = Graphs.freeze(source);
+
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(graph, sum);
+        engine.update(graph.getNodeSet());
+        assertThat(engine.get("a"), is(1));
+        assertThat(engine.get("e"), is(3));
+
+        base.put("c", 5);
+        List<String> result = engine.update(Arrays.asList("c"));
+        assertThat(new HashSet<String>(result), is(new HashSet<String>(Arrays.asList("a", "b", "c", "d"))));
+        assertThat(engine.get("a"), is(5));
+        assertThat(engine.get("d"), is(5));
+        assertThat(engine.get("e"), is(3));
+    }
+
+    /**
+     * 削除されたノードの計算結果を破棄する。
+     */
+    @Test
+    public void update_removed() {
+        Graph<String> graph = Graphs.newInstance();
+        graph.addEdge("a", "b");
+        base.put("b", 3);
+
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(graph, sum);
+        engine.update(graph.getNodeSet());
+
+        graph.removeNode("b");
+        List<String> result = engine.update(Arrays.asList("a", "b"));
+        assertThat(result, is(Arrays.asList("a")));
+        assertThat(engine.get("a"), is(0));
+        assertThat(engine.getResults().containsKey("b"), is(false));
+    }
+
+    /**
+     * 計算中に例外が発生した場合。
+     */
+    @Test
+    public void update_failure() {
+        Graph<String> graph = Graphs.newInstance();
+        graph.addEdge("a", "b");
+        base.put("b", 1);
+        final boolean[] fail = { false };
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(
+                graph,
+                new IncrementalEngine.Computation<String, Integer>() {
+                    @Override
+                    public Integer compute(String node, Map<String, Integer> inputs) {
+                        if (fail[0] && node.equals("a")) {
+                            throw new IllegalStateException();
+                        }
+                        return sum.compute(node, inputs);
+                    }
+                });
+        engine.update(graph.getNodeSet());
+
+        base.put("b", 2);
+        fail[0] = true;
+        try {
+            engine.update(Arrays.asList("b"));
+            fail();
+        }
+        catch (IllegalStateException e) {
+            // ok.
+        }
+        fail[0] = false;
+        List<String> result = engine.update(Collections.<String>emptySet());
+        assertThat(result, is(Arrays.asList("a")));
+        assertThat(engine.get("a"), is(2));
+    }
+
+    /**
+     * 循環を含む場合。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void update_cyclic() {
+        Graph<String> graph = Graphs.newInstance();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "a");
+        IncrementalEngine<String, Integer> engine = new IncrementalEngine<String, Integer>(graph, sum);
+        engine.update(Arrays.asList("a"));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link IntGraph}.
+ */
+public class IntGraphTest {
+
+    /**
+     * 基本的な操作。
+     */
+    @Test
+    public void simple() {
+        IntGraph graph = new IntGraph();
+        graph.addEdge(1, 2);
+        graph.addEdges(2, 3, 4);
+        graph.addNode(5);
+        assertThat(graph.getNodes(), is(new int[] { 1, 2, 3, 4, 5 }));
+        assertThat(graph.getConnected(2), is(new int[] { 3, 4 }));
+        assertThat(graph.isConnected(1, 2), is(true));
+        assertThat(graph.isConnected(2, 1), is(false));
+        assertThat(graph.contains(0), is(false));
+        assertThat(graph.getEdgeCount(), is(3));
+
+        graph.removeEdge(2, 3);
+        assertThat(graph.getConnected(2), is(new int[] { 4 }));
+        graph.removeNode(2);
+        assertThat(graph.getNodes(), is(new int[] { 1, 3, 4, 5 }));
+        assertThat(graph.getConnected(1), is(new int[0]));
+        assertThat(graph.getEdgeCount(), is(0));
+        assertThat(graph.toString(), is("[1 => [], 3 => [], 4 => [], 5 => []]"));
+
+        graph.clear();
+        assertThat(graph.isEmpty(), is(true));
+        assertThat(graph.getNodeCount(), is(0));
+    }
+
+    /**
+     * 多数の接続の追加と削除。
+     */
+    @Test
+    public void random() {
+        Random random = new Random(777);
+        IntGraph graph = new IntGraph();
+        Graph<Integer> expected = Graphs.newInstance();
+        for (int i = 0; i < 20000; i++) {
+            int from = random.nextInt(50);
+            int to = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                graph.removeEdge(from, to);
+                expected.removeEdge(from, to);
+            }
+            else {
+                graph.addEdge(from, to);
+                expected.addEdge(from, to);
+            }
+        }
+        assertThat(graph.toGraph(), is(expected));
+        int edges = 0;
+        for (Graph.Vertex<Integer> vertex : expected) {
+            edges += vertex.getConnected().size();
+        }
+        assertThat(graph.getEdgeCount(), is(edges));
+    }
+
+    /**
+     * 負のノード。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void addNode_negative() {
+        IntGraph graph = new IntGraph();
+        graph.addNode(-1);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link IntGraphs}.
+ */
+public class IntGraphsTest {
+
+    /**
+     * Test method for {@link IntGraphs#collectAllConnected(IntGraph, int[])}.
+     */
+    @Test
+    public void collectAllConnected() {
+        Random random = new Random(10);
+        IntGraph graph = random(random, 200, 300);
+        Graph<Integer> expected = graph.toGraph();
+        for (int i = 0; i < 20; i++) {
+            int start = random.nextInt(200);
+            assertThat(
+                    toSet(IntGraphs.collectAllConnected(graph, start)),
+                    is(Graphs.collectAllConnected(expected, Arrays.asList(start))));
+        }
+    }
+
+    /**
+     * Test method for {@link IntGraphs#findNearest(IntGraph, int[], IntMatcher)}.
+     */
+    @Test
+    public void findNearest() {
+        Random random = new Random(11);
+        IntGraph graph = random(random, 200, 400);
+        Graph<Integer> expected = graph.toGraph();
+        IntMatcher intMatcher = new IntMatcher() {
+            @Override
+            public boolean matches(int value) {
+                return value % 7 == 0;
+            }
+        };
+        Matcher<Integer> matcher = new Matcher<Integer>() {
+            @Override
+            public boolean matches(Integer object) {
+                return object % 7 == 0;
+            }
+        };
+        for (int i = 0; i < 20; i++) {
+            int start = random.nextInt(200);
+            assertThat(
+                    toSet(IntGraphs.findNearest(graph, new int[] { start }, intMatcher)),
+                    is(Graphs.findNearest(expected, Arrays.asList(start), matcher)));
+            assertThat(
+                    toSet(IntGraphs.collectNearest(graph, new int[] { start }, intMatcher)),
+                    is(Graphs.collectNearest(expected, Arrays.asList(start), matcher)));
+        }
+    }
+
+    /**
+     * Test method for {@link IntGraphs#findStronglyConnectedComponents(IntGraph)}.
+     */
+    @Test
+    public void findStronglyConnectedComponents() {
+        IntGraph graph = random(new Random(12), 300, 500);
+        graph.removeNode(5);
+        assertThat(
+                toSets(IntGraphs.findStronglyConnectedComponents(graph)),
+                is(Graphs.findStronglyConnectedComponents(graph.toGraph())));
+        assertThat(
+                toSets(IntGraphs.findCircuit(graph)),
+                is(Graphs.findCircuit(graph.toGraph())));
+    }
+
+    /**
+     * Test method for {@link IntGraphs#sortPostOrder(IntGraph)}.
+     */
+    @Test
+    public void sortPostOrder() {
+        IntGraph graph = new IntGraph();
+        Random random = new Random(13);
+        for (int i = 0; i < 500; i++) {
+            int a = random.nextInt(100);
+            int b = random.nextInt(100);
+            if (a != b) {
+                graph.addEdge(Math.max(a, b), Math.min(a, b));
+            }
+        }
+        graph.addNode(150);
+        int[] order = IntGraphs.sortPostOrder(graph);
+        assertThat(order.length, is(graph.getNodeCount()));
+        int[] positions = new int[graph.getIdLimit()];
+        for (int i = 0; i < order.length; i++) {
+            positions[order[i]] = i;
+        }
+        for (int from : graph.getNodes()) {
+            for (int to : graph.getConnected(from)) {
+                assertThat(positions[to], lessThan(positions[from]));
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link IntGraphs#transpose(IntGraph)}.
+     */
+    @Test
+    public void transpose() {
+        IntGraph graph = random(new Random(14), 50, 100);
+        assertThat(IntGraphs.transpose(graph).toGraph(), is(Graphs.transpose(graph.toGraph())));
+        assertThat(IntGraphs.copy(graph).toGraph(), is(graph.toGraph()));
+    }
+
+    /**
+     * Test method for {@link IntGraphs#collectHeads(IntGraph)}.
+     */
+    @Test
+    public void collectHeadsAndTails() {
+        IntGraph graph = random(new Random(15), 100, 80);
+        assertThat(toSet(IntGraphs.collectHeads(graph)), is(Graphs.collectHeads(graph.toGraph())));
+        assertThat(toSet(IntGraphs.collectTails(graph)), is(Graphs.collectTails(graph.toGraph())));
+    }
+
+    private IntGraph random(Random random, int size, int edges) {
+        IntGraph graph = new IntGraph();
+        for (int i = 0; i < size; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            graph.addEdge(random.nextInt(size), random.nextInt(size));
+        }
+        return graph;
+    }
+
+    private Set<Integer> toSet(BitSet bits) {
+        Set<Integer> results = new HashSet<Integer>();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            results.add(i);
+        }
+        return results;
+    }
+
+    private Set<Set<Integer>> toSets(int[][] components) {
+        Set<Set<Integer>> results = new HashSet<Set<Integer>>();
+        for (int[] component : components) {
+            List<Integer> members = new ArrayList<Integer>();
+            for (int member : component) {
+                members.add(member);
+            }
+            results.add(new HashSet<Integer>(members));
+        }
+        return results;
+    }
+}
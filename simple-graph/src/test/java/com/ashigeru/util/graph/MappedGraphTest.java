@@ -0,0 +1,142 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link MappedGraph}.
+ */
+public class MappedGraphTest {
+
+    private File file;
+
+    /**
+     * Initializes the test.
+     * @throws Exception if failed
+     */
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("graph", ".bin");
+    }
+
+    /**
+     * Cleans up the test.
+     */
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * 保存したグラフを開く。
+     * @throws Exception if failed
+     */
+    @Test
+    public void simple() throws Exception {
+        Graph<String> graph = new HashGraph<String>();
+        graph.addEdge("a", "b");
+        graph.addEdge("a", "c");
+        graph.addEdge("c", "a");
+        graph.addEdge("あ", "a");
+        graph.addNode("d");
+        MappedGraph.write(graph, file);
+
+        MappedGraph mapped = MappedGraph.open(file);
+        assertThat(mapped.getNodeSet(), is(set("a", "b", "c", "d", "あ")));
+        assertThat(mapped.getConnected("a"), is(set("b", "c")));
+        assertThat(mapped.getConnected("d"), is(set()));
+        assertThat(mapped.getConnected("x"), is(set()));
+        assertThat(mapped.getConnected(1), is(set()));
+        assertThat(mapped.isConnected("あ", "a"), is(true));
+        assertThat(mapped.isConnected("a", "あ"), is(false));
+        assertThat(mapped.contains("d"), is(true));
+        assertThat(mapped.contains("e"), is(false));
+        assertThat(Graphs.copy(mapped), is(graph));
+        assertThat(Graphs.findCircuit(mapped), is(Graphs.findCircuit(graph)));
+    }
+
+    /**
+     * 空のグラフ。
+     * @throws Exception if failed
+     */
+    @Test
+    public void empty() throws Exception {
+        MappedGraph.write(new HashGraph<String>(), file);
+        MappedGraph mapped = MappedGraph.open(file);
+        assertThat(mapped.isEmpty(), is(true));
+        assertThat(mapped.getNodeSet().size(), is(0));
+        assertThat(mapped.contains("a"), is(false));
+    }
+
+    /**
+     * 大きめのグラフ。
+     * @throws Exception if failed
+     */
+    @Test
+    public void random() throws Exception {
+        Random random = new Random(2468);
+        Graph<String> graph = new HashGraph<String>();
+        for (int i = 0; i < 10000; i++) {
+            graph.addEdge("v" + random.nextInt(3000), "v" + random.nextInt(3000));
+        }
+        MappedGraph.write(graph, file);
+        MappedGraph mapped = MappedGraph.open(file, false);
+        assertThat(Graphs.copy(mapped), is(graph));
+        for (int i = 0; i < 1000; i++) {
+            String from = "v" + random.nextInt(3000);
+            String to = "v" + random.nextInt(3000);
+            assertThat(mapped.isConnected(from, to), is(graph.isConnected(from, to)));
+        }
+    }
+
+    /**
+     * 破損したファイル。
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void broken() throws Exception {
+        Graph<String> graph = new HashGraph<String>();
+        graph.addEdge("a", "b");
+        MappedGraph.write(graph, file);
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.seek(output.length() - 1);
+            output.write('x');
+        }
+        finally {
+            output.close();
+        }
+        MappedGraph.open(file);
+    }
+
+    private Set<String> set(String...values) {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link PersistentGraph}.
+ */
+public class PersistentGraphTest {
+
+    /**
+     * 基本的な操作。
+     */
+    @Test
+    public void simple() {
+        PersistentGraph<Integer> graph = new PersistentGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdges(2, Arrays.asList(3, 4));
+        graph.addNode(5);
+        assertThat(graph.getNodeSet(), is(set(1, 2, 3, 4, 5)));
+        assertThat(graph.getConnected(2), is(set(3, 4)));
+        assertThat(graph.isConnected(1, 2), is(true));
+        assertThat(graph.isConnected(2, 1), is(false));
+
+        graph.removeEdge(2, 3);
+        assertThat(graph.getConnected(2), is(set(4)));
+        graph.removeNode(2);
+        assertThat(graph.getNodeSet(), is(set(1, 3, 4, 5)));
+        assertThat(graph.getConnected(1), is(set()));
+
+        graph.removeNodes(Arrays.asList(3, 5, 6));
+        assertThat(graph.getNodeSet(), is(set(1, 4)));
+        assertThat(Graphs.copy(graph), is(Graphs.copy(new PersistentGraph<Integer>(graph))));
+    }
+
+    /**
+     * 複製は複製元と独立して変更できる。
+     */
+    @Test
+    public void snapshot() {
+        PersistentGraph<Integer> graph = new PersistentGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        PersistentGraph<Integer> snapshot = graph.snapshot();
+        assertThat(snapshot, is(graph));
+
+        graph.addEdge(3, 1);
+        graph.removeNode(2);
+        snapshot.addEdge(2, 4);
+
+        assertThat(graph.getNodeSet(), is(set(1, 3)));
+        assertThat(graph.getConnected(3), is(set(1)));
+        assertThat(snapshot.getNodeSet(), is(set(1, 2, 3, 4)));
+        assertThat(snapshot.getConnected(2), is(set(3, 4)));
+        assertThat(snapshot.getConnected(3), is(set()));
+        assertThat(snapshot, not(graph));
+    }
+
+    /**
+     * ハッシュ値が衝突するキー。
+     */
+    @Test
+    public void collision() {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        map = map.plus("Aa", 1).plus("BB", 2).plus("C", 3);
+        assertThat(map.size(), is(3));
+        assertThat(map.get("Aa"), is(1));
+        assertThat(map.get("BB"), is(2));
+        PersistentMap<String, Integer> removed = map.minus("Aa");
+        assertThat(removed.size(), is(2));
+        assertThat(removed.containsKey("Aa"), is(false));
+        assertThat(removed.get("BB"), is(2));
+        assertThat(map.get("Aa"), is(1));
+        assertThat(removed.minus("BB").minus("C").isEmpty(), is(true));
+    }
+
+    /**
+     * 無作為な操作を{@link HashMap}と比較。
+     */
+    @Test
+    public void random() {
+        Random random = new Random(12345);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        PersistentMap<Integer, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(3000) * (random.nextBoolean() ? 65536 : 1);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            }
+            else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+        }
+        assertThat(map.size(), is(expected.size()));
+        assertThat(map, is(expected));
+        assertThat(new HashMap<Integer, Integer>(map), is(expected));
+    }
+
+    private Set<Integer> set(Integer...values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}
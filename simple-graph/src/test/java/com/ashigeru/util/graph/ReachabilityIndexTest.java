@@ -0,0 +1,133 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link ReachabilityIndex}.
+ */
+public class ReachabilityIndexTest {
+
+    /**
+     * 単純な到達可能性。
+     */
+    @Test
+    public void simple() {
+        Graph<Integer> graph = Graphs.newInstance();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 4);
+        graph.addEdge(4, 3);
+        graph.addEdge(5, 5);
+        graph.addNode(6);
+        ReachabilityIndex<Integer> index = new ReachabilityIndex<Integer>(graph);
+        assertThat(index.isReachable(1, 4), is(true));
+        assertThat(index.isReachable(4, 1), is(false));
+        assertThat(index.isReachable(1, 1), is(false));
+        assertThat(index.isReachable(3, 3), is(true));
+        assertThat(index.isReachable(5, 5), is(true));
+        assertThat(index.isReachable(6, 6), is(false));
+        assertThat(index.isReachable(1, 7), is(false));
+        assertThat(index.isReachable(7, 1), is(false));
+    }
+
+    /**
+     * 無作為なグラフについて、全ての組み合わせの到達可能性を検査する。
+     */
+    @Test
+    public void random() {
+        Random random = new Random(4321);
+        for (int attempt = 0; attempt < 10; attempt++) {
+            int size = 60;
+            Graph<Integer> graph = Graphs.newInstance();
+            for (int i = 0; i < size; i++) {
+                graph.addNode(i);
+            }
+            for (int i = 0; i < size * (attempt % 3 + 1); i++) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                if (attempt % 2 == 0 && from <= to) {
+                    continue;
+                }
+                graph.addEdge(from, to);
+            }
+            ReachabilityIndex<Integer> index = new ReachabilityIndex<Integer>(graph, attempt % 4 + 1);
+            for (int from = 0; from < size; from++) {
+                Set<Integer> reachable = Graphs.collectAllConnected(graph, Collections.singleton(from));
+                for (int to = 0; to < size; to++) {
+                    assertThat(from + "->" + to, index.isReachable(from, to), is(reachable.contains(to)));
+                }
+            }
+        }
+    }
+
+    /**
+     * 複数のスレッドから同時に問い合わせる。
+     * @throws Exception if failed
+     */
+    @Test
+    public void concurrent() throws Exception {
+        Random random = new Random(8765);
+        final int size = 200;
+        final Graph<Integer> graph = Graphs.newInstance();
+        for (int i = 0; i < size * 2; i++) {
+            graph.addEdge(random.nextInt(size), random.nextInt(size));
+        }
+        final ReachabilityIndex<Integer> index = new ReachabilityIndex<Integer>(graph, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 8; i++) {
+                final int offset = i;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int from = offset; from < size; from += 8) {
+                            Set<Integer> reachable = Graphs.collectAllConnected(graph, Collections.singleton(from));
+                            for (int to = 0; to < size; to++) {
+                                if (graph.contains(from) && graph.contains(to)
+                                        && index.isReachable(from, to) != reachable.contains(to)) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(), is(true));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
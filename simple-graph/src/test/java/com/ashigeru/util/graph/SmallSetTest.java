@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link SmallSet}.
+ */
+public class SmallSetTest {
+
+    /**
+     * 基本的な操作。
+     */
+    @Test
+    public void simple() {
+        SmallSet<String> set = new SmallSet<String>();
+        assertThat(set.isEmpty(), is(true));
+        assertThat(set.add("a"), is(true));
+        assertThat(set.add("a"), is(false));
+        assertThat(set, is((Set<String>) new HashSet<String>(Arrays.asList("a"))));
+        assertThat(set.add("b"), is(true));
+        assertThat(set.add(null), is(true));
+        assertThat(set.contains(null), is(true));
+        assertThat(set.size(), is(3));
+        assertThat(set.remove("a"), is(true));
+        assertThat(set.remove("a"), is(false));
+        assertThat(set, is((Set<String>) new HashSet<String>(Arrays.asList("b", null))));
+        set.clear();
+        assertThat(set.isEmpty(), is(true));
+    }
+
+    /**
+     * 要素数が閾値を超える場合。
+     */
+    @Test
+    public void promote() {
+        SmallSet<Integer> set = new SmallSet<Integer>();
+        for (int i = 0; i < SmallSet.THRESHOLD * 2; i++) {
+            assertThat(set.add(i), is(true));
+            assertThat(set.size(), is(i + 1));
+        }
+        for (int i = 0; i < SmallSet.THRESHOLD * 2; i++) {
+            assertThat(set.contains(i), is(true));
+        }
+        for (int i = 0; i < SmallSet.THRESHOLD * 2; i++) {
+            assertThat(set.remove(i), is(true));
+            assertThat(set.size(), is(SmallSet.THRESHOLD * 2 - i - 1));
+            assertThat(set.contains(i), is(false));
+            if (i + 1 < SmallSet.THRESHOLD * 2) {
+                assertThat(set.contains(i + 1), is(true));
+            }
+        }
+        assertThat(set.isEmpty(), is(true));
+    }
+
+    /**
+     * 反復子から要素を削除する。
+     */
+    @Test
+    public void iterator_remove() {
+        Random random = new Random(99);
+        for (int size = 0; size < SmallSet.THRESHOLD * 2; size++) {
+            SmallSet<Integer> set = new SmallSet<Integer>();
+            Set<Integer> expected = new HashSet<Integer>();
+            for (int i = 0; i < size; i++) {
+                set.add(i);
+                expected.add(i);
+            }
+            for (Iterator<Integer> iter = set.iterator(); iter.hasNext();) {
+                Integer value = iter.next();
+                if (random.nextBoolean()) {
+                    iter.remove();
+                    expected.remove(value);
+                }
+            }
+            assertThat(set, is(expected));
+        }
+    }
+
+    /**
+     * 無作為な操作。
+     */
+    @Test
+    public void random() {
+        Random random = new Random(100);
+        SmallSet<Integer> set = new SmallSet<Integer>();
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            Integer value = random.nextInt(20);
+            switch (random.nextInt(3)) {
+            case 0:
+                assertThat(set.remove(value), is(expected.remove(value)));
+                break;
+            default:
+                assertThat(set.add(value), is(expected.add(value)));
+                break;
+            }
+            assertThat(set.size(), is(expected.size()));
+            assertThat(set.contains(value), is(expected.contains(value)));
+        }
+        assertThat(set, is(expected));
+        assertThat(set.hashCode(), is(expected.hashCode()));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link TraversalContext}.
+ */
+public class TraversalContextTest {
+
+    private static final Matcher<Integer> NEGATIVE = new Matcher<Integer>() {
+        @Override
+        public boolean matches(Integer object) {
+            return object < 0;
+        }
+    };
+
+    /**
+     * 同じ文脈で探索を繰り返す。
+     */
+    @Test
+    public void reuse() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3, 4, 2);
+        addPath(graph, 3, 5);
+        addPath(graph, 1, -6, 7);
+        TraversalContext<Integer> context = new TraversalContext<Integer>(graph);
+        for (int i = 0; i < 3; i++) {
+            for (Integer start : graph.getNodeSet()) {
+                Set<Integer> starts = set(start);
+                Set<Integer> results = new HashSet<Integer>();
+                context.collectAllConnected(starts, results);
+                assertThat(results, is(Graphs.collectAllConnected(graph, starts)));
+
+                results.clear();
+                context.findNearest(starts, NEGATIVE, results);
+                assertThat(results, is(Graphs.findNearest(graph, starts, NEGATIVE)));
+
+                results.clear();
+                context.collectNearest(starts, NEGATIVE, results);
+                assertThat(results, is(Graphs.collectNearest(graph, starts, NEGATIVE)));
+            }
+        }
+    }
+
+    /**
+     * 後順に並べる。
+     */
+    @Test
+    public void sortPostOrder() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3);
+        addPath(graph, 1, 2, 4);
+        addPath(graph, 1, 5, 6);
+        addPath(graph, 1, 5, 7);
+        TraversalContext<Integer> context = new TraversalContext<Integer>(graph);
+        for (int i = 0; i < 2; i++) {
+            List<Integer> sorted = new ArrayList<Integer>();
+            context.sortPostOrder(sorted);
+            assertThat(new HashSet<Integer>(sorted), is(set(1, 2, 3, 4, 5, 6, 7)));
+            assertThat(sorted.size(), is(7));
+            assertThat(sorted.get(6), is(1));
+            for (int from = 0; from < sorted.size(); from++) {
+                for (int to = from + 1; to < sorted.size(); to++) {
+                    assertThat(graph.isConnected(sorted.get(from), sorted.get(to)), is(false));
+                }
+            }
+        }
+    }
+
+    /**
+     * 文脈を消去した後に探索する。
+     */
+    @Test
+    public void clear() {
+        Graph<Integer> graph = Graphs.newInstance();
+        addPath(graph, 1, 2, 3);
+        TraversalContext<Integer> context = new TraversalContext<Integer>(graph);
+        Set<Integer> results = new HashSet<Integer>();
+        context.collectAllConnected(set(1), results);
+        assertThat(results, is(set(2, 3)));
+
+        graph.removeNode(3);
+        context.clear();
+        results.clear();
+        context.collectAllConnected(set(1), results);
+        assertThat(results, is(set(2)));
+    }
+
+    private <V> void addPath(Graph<V> graph, V first, V...vertexes) {
+        graph.addNode(first);
+        V current = first;
+        for (V v : vertexes) {
+            graph.addEdge(current, v);
+            current = v;
+        }
+    }
+
+    private Set<Integer> set(Integer...values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}
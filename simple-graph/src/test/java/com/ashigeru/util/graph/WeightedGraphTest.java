@@ -0,0 +1,263 @@
+/*
+ * Copyright 2010 @ashigeru
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.ashigeru.util.graph;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link WeightedGraph}.
+ */
+public class WeightedGraphTest {
+
+    /**
+     * 基本的な操作。
+     */
+    @Test
+    public void simple() {
+        WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdges(2, Arrays.asList(3, 4));
+        graph.addNode(5);
+        assertThat(graph.getNodeSet(), is(set(1, 2, 3, 4, 5)));
+        assertThat(graph.getConnected(2), is(set(3, 4)));
+        assertThat(graph.isConnected(1, 2), is(true));
+        assertThat(graph.isConnected(2, 1), is(false));
+
+        graph.removeEdge(2, 3);
+        assertThat(graph.getConnected(2), is(set(4)));
+        graph.removeNode(2);
+        assertThat(graph.getNodeSet(), is(set(1, 3, 4, 5)));
+        assertThat(graph.getConnected(1), is(set()));
+
+        graph.removeNodes(Arrays.asList(3, 5, 6));
+        assertThat(graph.getNodeSet(), is(set(1, 4)));
+
+        graph.addEdge(6, 1);
+        assertThat(graph.getNodeSet(), is(set(1, 4, 6)));
+        assertThat(graph.getConnected(6), is(set(1)));
+        assertThat(Graphs.copy(graph), is(Graphs.copy(new WeightedGraph<Integer>(graph))));
+
+        graph.clear();
+        assertThat(graph.isEmpty(), is(true));
+    }
+
+    /**
+     * 重みの操作。
+     */
+    @Test
+    public void getWeight() {
+        WeightedGraph<String> graph = new WeightedGraph<String>();
+        graph.addEdge("a", "b");
+        graph.addEdge("a", "c", 2.5);
+        assertThat(graph.getWeight("a", "b"), is(WeightedGraph.DEFAULT_WEIGHT));
+        assertThat(graph.getWeight("a", "c"), is(2.5));
+        assertThat(Double.isNaN(graph.getWeight("b", "a")), is(true));
+        assertThat(Double.isNaN(graph.getWeight("a", "x")), is(true));
+
+        long version = graph.getVersion();
+        graph.addEdge("a", "c");
+        assertThat(graph.getWeight("a", "c"), is(2.5));
+        assertThat(graph.getVersion(), is(version));
+
+        graph.addEdge("a", "c", -1.0);
+        assertThat(graph.getWeight("a", "c"), is(-1.0));
+        assertThat(graph.getVersion(), greaterThan(version));
+
+        WeightedGraph<String> copy = new WeightedGraph<String>(graph);
+        assertThat(copy.getWeight("a", "c"), is(-1.0));
+    }
+
+    /**
+     * 多数の接続を持つノード。
+     */
+    @Test
+    public void manyEdges() {
+        Random random = new Random(12345);
+        WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 0; i < 5000; i++) {
+            int to = random.nextInt(1000);
+            if (random.nextInt(4) == 0) {
+                graph.removeEdge(0, to);
+                expected.remove(to);
+            }
+            else {
+                graph.addEdge(0, to, to);
+                expected.add(to);
+            }
+        }
+        assertThat(graph.getConnected(0), is(expected));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(graph.isConnected(0, i), is(expected.contains(i)));
+            if (expected.contains(i)) {
+                assertThat(graph.getWeight(0, i), is((double) i));
+            }
+        }
+    }
+
+    /**
+     * 多数の接続を持つノードから接続を削除する。
+     */
+    @Test
+    public void manyEdges_remove() {
+        Random random = new Random(54321);
+        WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 0; i < 20000; i++) {
+            int to = random.nextInt(64);
+            if (random.nextBoolean()) {
+                graph.removeEdge(0, to);
+                expected.remove(to);
+            }
+            else {
+                graph.addEdge(0, to, to);
+                expected.add(to);
+            }
+            int probe = random.nextInt(64);
+            assertThat(graph.isConnected(0, to), is(expected.contains(to)));
+            assertThat(graph.isConnected(0, probe), is(expected.contains(probe)));
+        }
+        assertThat(graph.getConnected(0), is(expected));
+        for (Integer to : expected) {
+            assertThat(graph.getWeight(0, to), is((double) to));
+        }
+    }
+
+    /**
+     * 複数のノードを削除する。
+     */
+    @Test
+    public void removeNodes() {
+        WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+        for (int i = 1; i < 100; i++) {
+            graph.addEdge(0, i, i);
+            graph.addEdge(i, (i + 1) % 100);
+        }
+        Set<Integer> removed = new HashSet<Integer>();
+        for (int i = 1; i < 100; i += 3) {
+            removed.add(i);
+        }
+        removed.add(1000);
+        long version = graph.getVersion();
+        graph.removeNodes(removed);
+        assertThat(graph.getVersion(), not(version));
+        Set<Integer> rest = new HashSet<Integer>();
+        for (int i = 1; i < 100; i++) {
+            if (removed.contains(i) == false) {
+                rest.add(i);
+                assertThat(graph.getWeight(0, i), is((double) i));
+                assertThat(graph.isConnected(i, (i + 1) % 100), is(removed.contains((i + 1) % 100) == false));
+            }
+        }
+        assertThat(graph.getConnected(0), is(rest));
+        assertThat(graph.getNodeSet().size(), is(rest.size() + 1));
+
+        version = graph.getVersion();
+        graph.removeNodes(Arrays.asList(1000, 2000));
+        assertThat(graph.getVersion(), is(version));
+    }
+
+    /**
+     * 反復子からノードを削除する。
+     */
+    @Test
+    public void iterator_remove() {
+        WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 1);
+        for (Iterator<Graph.Vertex<Integer>> iter = graph.iterator(); iter.hasNext();) {
+            if (iter.next().getNode() == 2) {
+                iter.remove();
+            }
+        }
+        assertThat(graph.getNodeSet(), is(set(1, 3)));
+        assertThat(graph.getConnected(1), is(set()));
+        assertThat(graph.getConnected(3), is(set(1)));
+    }
+
+    /**
+     * 削除したノードの番号を再利用しても、削除前に取得したビューは変化しない。
+     */
+    @Test
+    public void getConnected_recycled() {
+        WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+        graph.addEdge(1, 2);
+        graph.addEdge(3, 4);
+        Set<Integer> view = graph.getConnected(1);
+        Graph.Vertex<Integer> vertex = graph.iterator().next();
+        graph.removeNode(1);
+        graph.removeNode(vertex.getNode());
+        graph.addEdge(5, 6);
+        graph.addEdge(7, 8);
+        assertThat(view, is(set()));
+        assertThat(view.contains(6), is(false));
+        assertThat(vertex.getConnected(), is(set()));
+        assertThat(graph.getConnected(5), is(set(6)));
+        assertThat(graph.getConnected(7), is(set(8)));
+    }
+
+    /**
+     * 等価性。
+     */
+    @Test
+    public void equals() {
+        WeightedGraph<Integer> a = new WeightedGraph<Integer>();
+        a.addEdge(1, 2, 0.5);
+        a.addEdge(2, 3);
+        a.addNode(4);
+        WeightedGraph<Integer> b = new WeightedGraph<Integer>();
+        b.addNode(4);
+        b.addEdge(2, 3);
+        b.addEdge(1, 2, 0.5);
+        assertThat(a, is(b));
+        assertThat(a.hashCode(), is(b.hashCode()));
+
+        b.addEdge(1, 2, 1.5);
+        assertThat(a, not(b));
+        assertThat(a.hashCode(), is(b.hashCode()));
+
+        b.addEdge(1, 2, 0.5);
+        b.addEdge(3, 1);
+        assertThat(a, not(b));
+
+        b.removeEdge(3, 1);
+        assertThat(a, is(b));
+        assertThat(a, is(new WeightedGraph<Integer>(a)));
+    }
+
+    /**
+     * 重みに{@code NaN}を指定する。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void addEdge_nan() {
+        WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+        graph.addEdge(1, 2, Double.NaN);
+    }
+
+    private Set<Integer> set(Integer...values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}